@@ -0,0 +1,325 @@
+package bench;
+
+import monitor.LatencyHistogram;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Microbenchmark dos depósitos na conta partilhada, ao estilo do JMH, para cada {@link EstrategiaDeposito}
+ * e número de threads.
+ * <p>
+ * Ao contrário do Stress Test (uma execução a frio com sleep dentro da secção crítica), cada medição:
+ * <ul>
+ * <li>corre em {@code -f} JVMs novas (forks), para que o JIT e o GC de uma estratégia não contaminem a seguinte;</li>
+ * <li>faz {@code -wi} iterações de aquecimento e {@code -i} iterações medidas de {@code -r} ms cada;</li>
+ * <li>reporta a média do throughput com o erro de um intervalo de confiança a 99.9% (t de Student, como o JMH)
+ * e os percentis p50/p99/p99.9 da latência de um depósito (1 em cada 64 é cronometrado).</li>
+ * </ul>
+ * Não depende do menu interativo:
+ * <pre>
+ * java -cp out/production/Simulador:out/production/SimuladorBench bench.ContaBenchmark -t 1,2,4,8 -f 2
+ * </pre>
+ * Opções: {@code -e} estratégias (ex: {@code semaforo-justo,long-adder}), {@code -t} threads, {@code -wi}, {@code -i},
+ * {@code -r} (ms), {@code -f} (0 = na própria JVM) e {@code -v} para mostrar cada iteração.
+ */
+public final class ContaBenchmark {
+
+    /** Limites (ns) da grelha comum onde os forks exportam o histograma: passos de 10% entre 10 ns e ~10 s. */
+    private static final long[] LIMITES = limites();
+
+    /** 1 em cada 64 depósitos é cronometrado (cronometrar todos mediria sobretudo o System.nanoTime). */
+    private static final int AMOSTRA_MASK = 63;
+
+    /** Espaçamento entre os contadores de operações de cada thread (evita false sharing). */
+    private static final int PADDING = 16;
+
+    /** t de Student bilateral a 99.9% para 1..30 graus de liberdade. */
+    private static final double[] T_999 = {
+            636.619, 31.599, 12.924, 8.610, 6.869, 5.959, 5.408, 5.041, 4.781, 4.587,
+            4.437, 4.318, 4.221, 4.140, 4.073, 4.015, 3.965, 3.922, 3.883, 3.850,
+            3.819, 3.792, 3.768, 3.745, 3.725, 3.707, 3.690, 3.674, 3.659, 3.646};
+
+    /** Recebe o throughput de cada iteração (fase "aquecimento" ou "medicao"). */
+    private interface Progresso {
+        void iteracao(String fase, int numero, double opsPorMs);
+    }
+
+    private record Opcoes(List<EstrategiaDeposito> estrategias, int[] threads, int aquecimento, int iteracoes,
+                          long iteracaoMs, int forks, boolean detalhe) { }
+
+    /** Resultado de um fork: throughput das iterações medidas, histograma acumulado e verificação do saldo. */
+    private static final class Medicao {
+        final List<Double> throughput = new ArrayList<>();
+        final long[] acumulado = new long[LIMITES.length];
+        long amostras;
+        boolean saldoCorreto = true;
+
+        void juntar(Medicao outra) {
+            throughput.addAll(outra.throughput);
+            for (int i = 0; i < acumulado.length; i++) acumulado[i] += outra.acumulado[i];
+            amostras += outra.amostras;
+            saldoCorreto &= outra.saldoCorreto;
+        }
+
+        /** Limite da grelha abaixo do qual está a fração {@code p} das amostras. */
+        String percentil(double p) {
+            if (amostras == 0) return "-";
+            long alvo = Math.max(1, (long) Math.ceil(p * amostras));
+            for (int i = 0; i < LIMITES.length; i++) {
+                if (acumulado[i] >= alvo) return String.valueOf(LIMITES[i]);
+            }
+            return ">" + LIMITES[LIMITES.length - 1];
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--fork")) {
+            executarFork(args);
+            return;
+        }
+        Opcoes opcoes = parse(args);
+
+        System.out.println("# Estratégias: " + opcoes.estrategias().stream().map(EstrategiaDeposito::nome).toList());
+        System.out.println("# Threads: " + Arrays.toString(opcoes.threads()));
+        System.out.println("# Aquecimento: " + opcoes.aquecimento() + " x " + opcoes.iteracaoMs() + " ms | Medição: "
+                + opcoes.iteracoes() + " x " + opcoes.iteracaoMs() + " ms | Forks: " + opcoes.forks());
+        System.out.println("# JVM: " + System.getProperty("java.vm.name") + " " + System.getProperty("java.version")
+                + " | CPUs: " + Runtime.getRuntime().availableProcessors());
+        System.out.println();
+        System.out.printf("%-20s %7s %5s %4s %12s   %10s %7s %9s %9s %10s%n",
+                "Benchmark", "Threads", "Mode", "Cnt", "Score", "Error", "Units", "p50 (ns)", "p99 (ns)", "p99.9 (ns)");
+
+        for (EstrategiaDeposito estrategia : opcoes.estrategias()) {
+            for (int threads : opcoes.threads()) {
+                Medicao total = new Medicao();
+                if (opcoes.forks() == 0) {
+                    total.juntar(medir(estrategia, threads, opcoes, opcoes.detalhe()
+                            ? (fase, numero, ops) -> imprimirIteracao(estrategia, threads, 0, fase, numero, ops)
+                            : null));
+                } else {
+                    for (int f = 1; f <= opcoes.forks(); f++) {
+                        total.juntar(lancarFork(estrategia, threads, opcoes, f));
+                    }
+                }
+                imprimirLinha(estrategia, threads, total);
+            }
+        }
+    }
+
+    /**
+     * Um fork: aquecimento, iterações medidas e verificação do saldo final, numa conta nova.
+     *
+     * @param progresso Recebe o throughput de cada iteração (ou null).
+     */
+    private static Medicao medir(EstrategiaDeposito estrategia, int threads, Opcoes opcoes, Progresso progresso)
+            throws InterruptedException {
+        EstrategiaDeposito.Conta conta = estrategia.criar();
+        LatencyHistogram latencia = new LatencyHistogram();
+        Medicao medicao = new Medicao();
+        long depositos = 0;
+
+        for (int i = 0; i < opcoes.aquecimento() + opcoes.iteracoes(); i++) {
+            boolean aquecimento = i < opcoes.aquecimento();
+            long[] resultado = iteracao(conta, threads, opcoes.iteracaoMs(), aquecimento ? null : latencia);
+            depositos += resultado[0];
+            double opsPorMs = resultado[0] / (resultado[1] / 1_000_000.0);
+            if (!aquecimento) medicao.throughput.add(opsPorMs);
+            if (progresso != null) {
+                progresso.iteracao(aquecimento ? "aquecimento" : "medicao",
+                        aquecimento ? i + 1 : i + 1 - opcoes.aquecimento(), opsPorMs);
+            }
+        }
+
+        long[] acumulado = latencia.cumulativeCounts(LIMITES); // última posição = total
+        System.arraycopy(acumulado, 0, medicao.acumulado, 0, LIMITES.length);
+        medicao.amostras = acumulado[LIMITES.length];
+        // A conta guarda o saldo num int: compara módulo 2^32
+        medicao.saldoCorreto = (int) conta.saldo() == (int) depositos;
+        return medicao;
+    }
+
+    /**
+     * Uma iteração: todas as threads arrancam juntas, depositam 1€ em ciclo durante {@code ms} e param.
+     *
+     * @param latencia Histograma dos depósitos cronometrados (null no aquecimento).
+     * @return {depósitos, duração em ns}
+     */
+    private static long[] iteracao(EstrategiaDeposito.Conta conta, int threads, long ms, LatencyHistogram latencia)
+            throws InterruptedException {
+        CountDownLatch prontas = new CountDownLatch(threads);
+        CountDownLatch partida = new CountDownLatch(1);
+        AtomicBoolean parar = new AtomicBoolean();
+        long[] operacoes = new long[threads * PADDING];
+        Thread[] trabalhadoras = new Thread[threads];
+        // Um histograma por thread, para a medição não partilhar contadores entre as threads medidas
+        LatencyHistogram[] latencias = new LatencyHistogram[threads];
+
+        for (int t = 0; t < threads; t++) {
+            int indice = t * PADDING;
+            LatencyHistogram minha = latencia == null ? null : (latencias[t] = new LatencyHistogram());
+            trabalhadoras[t] = new Thread(() -> {
+                prontas.countDown();
+                try { partida.await(); } catch (InterruptedException e) { return; }
+                long n = 0;
+                while (!parar.get()) {
+                    if (minha != null && (n & AMOSTRA_MASK) == 0) {
+                        long inicio = System.nanoTime();
+                        conta.depositar(1);
+                        minha.record(System.nanoTime() - inicio);
+                    } else {
+                        conta.depositar(1);
+                    }
+                    n++;
+                }
+                operacoes[indice] = n;
+            }, "Bench-" + t);
+            trabalhadoras[t].start();
+        }
+
+        prontas.await();
+        long inicio = System.nanoTime();
+        partida.countDown();
+        Thread.sleep(ms);
+        parar.set(true);
+        for (Thread t : trabalhadoras) t.join();
+        long duracao = System.nanoTime() - inicio;
+
+        long total = 0;
+        for (int t = 0; t < threads; t++) {
+            total += operacoes[t * PADDING];
+            if (latencia != null) latencia.add(latencias[t]);
+        }
+        return new long[]{total, duracao};
+    }
+
+    /** Corre {@link #medir} numa JVM nova com as mesmas opções de JVM e lê o resultado do stdout. */
+    private static Medicao lancarFork(EstrategiaDeposito estrategia, int threads, Opcoes opcoes, int fork)
+            throws IOException, InterruptedException {
+        List<String> comando = new ArrayList<>();
+        comando.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        comando.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        comando.addAll(List.of("-cp", System.getProperty("java.class.path"), ContaBenchmark.class.getName(), "--fork",
+                estrategia.name(), String.valueOf(threads), String.valueOf(opcoes.aquecimento()),
+                String.valueOf(opcoes.iteracoes()), String.valueOf(opcoes.iteracaoMs())));
+
+        Process processo = new ProcessBuilder(comando).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        Medicao medicao = new Medicao();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(processo.getInputStream(), StandardCharsets.UTF_8))) {
+            String linha;
+            while ((linha = in.readLine()) != null) {
+                String[] campos = linha.split(" ");
+                switch (campos[0]) {
+                    case "ITER" -> {
+                        if (campos[1].equals("medicao")) medicao.throughput.add(Double.parseDouble(campos[3]));
+                        if (opcoes.detalhe()) {
+                            imprimirIteracao(estrategia, threads, fork, campos[1], Integer.parseInt(campos[2]),
+                                    Double.parseDouble(campos[3]));
+                        }
+                    }
+                    case "HIST" -> {
+                        medicao.amostras = Long.parseLong(campos[1]);
+                        for (int i = 0; i < LIMITES.length; i++) medicao.acumulado[i] = Long.parseLong(campos[i + 2]);
+                    }
+                    case "SALDO" -> medicao.saldoCorreto = Boolean.parseBoolean(campos[1]);
+                    default -> System.out.println(linha);
+                }
+            }
+        }
+        if (processo.waitFor() != 0) {
+            throw new IllegalStateException("Fork " + fork + " de " + estrategia.nome() + " terminou com erro");
+        }
+        return medicao;
+    }
+
+    /** Lado do fork: mede e escreve o resultado no stdout (ITER/HIST/SALDO). */
+    private static void executarFork(String[] args) throws InterruptedException {
+        Opcoes opcoes = new Opcoes(List.of(), new int[0], Integer.parseInt(args[3]), Integer.parseInt(args[4]),
+                Long.parseLong(args[5]), 0, true);
+        Medicao medicao = medir(EstrategiaDeposito.valueOf(args[1]), Integer.parseInt(args[2]), opcoes,
+                (fase, numero, ops) -> System.out.printf(Locale.ROOT, "ITER %s %d %.3f%n", fase, numero, ops));
+
+        StringBuilder hist = new StringBuilder("HIST ").append(medicao.amostras);
+        for (long c : medicao.acumulado) hist.append(' ').append(c);
+        System.out.println(hist);
+        System.out.println("SALDO " + medicao.saldoCorreto);
+    }
+
+    private static void imprimirIteracao(EstrategiaDeposito estrategia, int threads, int fork, String fase, int numero,
+                                         double opsPorMs) {
+        System.out.printf("# %s, %d threads, fork %d, %s %d: %.3f ops/ms%n", estrategia.nome(), threads, fork, fase,
+                numero, opsPorMs);
+    }
+
+    private static void imprimirLinha(EstrategiaDeposito estrategia, int threads, Medicao medicao) {
+        List<Double> valores = medicao.throughput;
+        int n = valores.size();
+        double media = valores.stream().mapToDouble(Double::doubleValue).average().orElse(Double.NaN);
+        double erro = Double.NaN;
+        if (n > 1) {
+            double soma = 0;
+            for (double v : valores) soma += (v - media) * (v - media);
+            erro = t999(n - 1) * Math.sqrt(soma / (n - 1)) / Math.sqrt(n);
+        }
+        System.out.printf("%-20s %7d %5s %4d %12.3f ± %10.3f %7s %9s %9s %10s%s%n", estrategia.nome(), threads, "thrpt",
+                n, media, erro, "ops/ms", medicao.percentil(0.50), medicao.percentil(0.99), medicao.percentil(0.999),
+                medicao.saldoCorreto ? "" : "  [SALDO INCORRETO]");
+    }
+
+    private static double t999(int grausLiberdade) {
+        if (grausLiberdade <= T_999.length) return T_999[grausLiberdade - 1];
+        if (grausLiberdade <= 40) return 3.551;
+        if (grausLiberdade <= 60) return 3.460;
+        if (grausLiberdade <= 120) return 3.373;
+        return 3.291;
+    }
+
+    private static long[] limites() {
+        List<Long> limites = new ArrayList<>();
+        for (double v = 10; v <= 10_000_000_000L; v *= 1.1) {
+            long limite = Math.round(v);
+            if (limites.isEmpty() || limites.get(limites.size() - 1) < limite) limites.add(limite);
+        }
+        return limites.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static Opcoes parse(String[] args) {
+        List<EstrategiaDeposito> estrategias = List.of(EstrategiaDeposito.values());
+        int[] threads = null;
+        int aquecimento = 3, iteracoes = 5, forks = 2;
+        long iteracaoMs = 1000;
+        boolean detalhe = false;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-e" -> estrategias = Arrays.stream(args[++i].split(",")).map(EstrategiaDeposito::parse).toList();
+                case "-t" -> threads = Arrays.stream(args[++i].split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+                case "-wi" -> aquecimento = Integer.parseInt(args[++i]);
+                case "-i" -> iteracoes = Integer.parseInt(args[++i]);
+                case "-r" -> iteracaoMs = Long.parseLong(args[++i]);
+                case "-f" -> forks = Integer.parseInt(args[++i]);
+                case "-v" -> detalhe = true;
+                default -> throw new IllegalArgumentException("Opção desconhecida: " + args[i]
+                        + " (use -e, -t, -wi, -i, -r, -f, -v)");
+            }
+        }
+        if (threads == null) {
+            // 1, 2, 4, 8, ... até ao dobro dos processadores (mínimo 8)
+            int maximo = Math.max(8, 2 * Runtime.getRuntime().availableProcessors());
+            List<Integer> potencias = new ArrayList<>();
+            for (int t = 1; t <= maximo; t *= 2) potencias.add(t);
+            threads = potencias.stream().mapToInt(Integer::intValue).toArray();
+        }
+        return new Opcoes(estrategias, threads, aquecimento, iteracoes, iteracaoMs, forks, detalhe);
+    }
+}
@@ -0,0 +1,206 @@
+package bench;
+
+import resources.ContaAtomica;
+import resources.ContaConjunta;
+import resources.ContaRepartida;
+
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Estratégias de sincronização de um depósito na conta partilhada.
+ * <p>
+ * As estratégias com lock fazem exatamente o read-modify-write dos workers ({@code getSaldo} + {@code setSaldo}
+ * numa {@link ContaConjunta}), mas sem logging nem latência simulada, para medir apenas o custo da sincronização.
+ * As sem locks usam as contas dos workers correspondentes ({@code ContaAtomica} e {@code ContaRepartida}).
+ */
+public enum EstrategiaDeposito {
+
+    /** Semáforo justo da própria conta, como em {@code RaceConditionsSecure}. */
+    SEMAFORO_JUSTO("semaforo-justo") {
+        @Override
+        Conta criar() {
+            ContaConjunta conta = new ContaConjunta();
+            Semaphore mutex = conta.getMutex();
+            return new Conta() {
+                @Override
+                public void depositar(int valor) {
+                    mutex.acquireUninterruptibly();
+                    try {
+                        conta.setSaldo(conta.getSaldo() + valor);
+                    } finally {
+                        mutex.release();
+                    }
+                }
+
+                @Override
+                public long saldo() {
+                    return conta.getSaldo();
+                }
+            };
+        }
+    },
+
+    /** Monitor intrínseco da conta, como em {@code RaceConditionSynchronized}. */
+    SYNCHRONIZED("synchronized") {
+        @Override
+        Conta criar() {
+            ContaConjunta conta = new ContaConjunta();
+            return new Conta() {
+                @Override
+                public void depositar(int valor) {
+                    synchronized (conta) {
+                        conta.setSaldo(conta.getSaldo() + valor);
+                    }
+                }
+
+                @Override
+                public long saldo() {
+                    synchronized (conta) {
+                        return conta.getSaldo();
+                    }
+                }
+            };
+        }
+    },
+
+    REENTRANT_JUSTO("reentrant-justo") {
+        @Override
+        Conta criar() {
+            return comLock(new ReentrantLock(true));
+        }
+    },
+
+    REENTRANT_INJUSTO("reentrant-injusto") {
+        @Override
+        Conta criar() {
+            return comLock(new ReentrantLock(false));
+        }
+    },
+
+    /** Write lock de um StampedLock (não reentrante, sem fairness). */
+    STAMPED("stamped") {
+        @Override
+        Conta criar() {
+            ContaConjunta conta = new ContaConjunta();
+            StampedLock lock = new StampedLock();
+            return new Conta() {
+                @Override
+                public void depositar(int valor) {
+                    long stamp = lock.writeLock();
+                    try {
+                        conta.setSaldo(conta.getSaldo() + valor);
+                    } finally {
+                        lock.unlockWrite(stamp);
+                    }
+                }
+
+                @Override
+                public long saldo() {
+                    long stamp = lock.readLock();
+                    try {
+                        return conta.getSaldo();
+                    } finally {
+                        lock.unlockRead(stamp);
+                    }
+                }
+            };
+        }
+    },
+
+    /** Ciclo de CAS num único contador ({@code ContaAtomica}, como em {@code RaceConditionAtomic}). */
+    ATOMIC_LONG("atomic-long") {
+        @Override
+        Conta criar() {
+            ContaAtomica conta = new ContaAtomica();
+            return new Conta() {
+                @Override
+                public void depositar(int valor) {
+                    long saldo;
+                    do {
+                        saldo = conta.lerSaldo();
+                    } while (!conta.compareAndSet(saldo, saldo + valor));
+                }
+
+                @Override
+                public long saldo() {
+                    return conta.lerSaldo();
+                }
+            };
+        }
+    },
+
+    /** Saldo repartido por células ({@code ContaRepartida}, como em {@code RaceConditionLongAdder}). */
+    LONG_ADDER("long-adder") {
+        @Override
+        Conta criar() {
+            ContaRepartida conta = new ContaRepartida();
+            return new Conta() {
+                @Override
+                public void depositar(int valor) {
+                    conta.depositar(valor);
+                }
+
+                @Override
+                public long saldo() {
+                    return conta.getSaldo();
+                }
+            };
+        }
+    };
+
+    /** Conta vista pelo benchmark: depósito sincronizado e leitura do saldo no fim. */
+    interface Conta {
+        void depositar(int valor);
+
+        long saldo();
+    }
+
+    private final String nome;
+
+    EstrategiaDeposito(String nome) {
+        this.nome = nome;
+    }
+
+    /** Nova conta (saldo 0) protegida por esta estratégia. */
+    abstract Conta criar();
+
+    public String nome() {
+        return nome;
+    }
+
+    /** Aceita o nome curto (ex: "reentrant-justo") ou o nome da constante. */
+    public static EstrategiaDeposito parse(String valor) {
+        for (EstrategiaDeposito e : values()) {
+            if (e.nome.equalsIgnoreCase(valor)) return e;
+        }
+        return valueOf(valor.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+
+    private static Conta comLock(ReentrantLock lock) {
+        ContaConjunta conta = new ContaConjunta();
+        return new Conta() {
+            @Override
+            public void depositar(int valor) {
+                lock.lock();
+                try {
+                    conta.setSaldo(conta.getSaldo() + valor);
+                } finally {
+                    lock.unlock();
+                }
+            }
+
+            @Override
+            public long saldo() {
+                lock.lock();
+                try {
+                    return conta.getSaldo();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        };
+    }
+}
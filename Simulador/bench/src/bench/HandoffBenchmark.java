@@ -0,0 +1,167 @@
+package bench;
+
+import monitor.LatencyHistogram;
+import resources.DepartamentoCreditoFila;
+import resources.DepartamentoCreditoSync;
+import resources.SistemaSenhas;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.IntFunction;
+
+/**
+ * Benchmark da passagem de vez (handoff) no Ticket Lock do departamento de crédito, com N clientes em fila:
+ * wait/notifyAll ({@link DepartamentoCreditoSync}) contra a fila com park/unpark ({@link DepartamentoCreditoFila}).
+ * <p>
+ * Cada cliente repete tirar senha, aguardar a vez e sair, sem trabalho na secção crítica, por isso a fila tem
+ * sempre cerca de N - 1 clientes à espera. Para cada iteração de {@code -r} ms são medidos:
+ * <ul>
+ * <li>o throughput de passagens de vez;</li>
+ * <li>a latência de uma passagem (do {@code sair()} de um cliente ao regresso do {@code aguardarVez()} do
+ * seguinte), em percentis;</li>
+ * <li>o CPU consumido pelos clientes ({@code ThreadMXBean}), por passagem e em percentagem de um core: com
+ * notifyAll cada passagem acorda todos os clientes, com a fila só o seguinte.</li>
+ * </ul>
+ * Corre na própria JVM (sem forks), com {@code -wi} iterações de aquecimento:
+ * <pre>
+ * java -cp out/production/Simulador:out/production/SimuladorBench bench.HandoffBenchmark -w 10,100,1000
+ * </pre>
+ * Opções: {@code -e} implementações ({@code wait-notify,fila}), {@code -w} clientes em fila, {@code -wi}, {@code -i}
+ * e {@code -r} (ms).
+ */
+public final class HandoffBenchmark {
+
+    /** Uma implementação do sistema de senhas, criada para um dado número de clientes. */
+    private record Implementacao(String nome, IntFunction<SistemaSenhas> criar) { }
+
+    private static final List<Implementacao> IMPLEMENTACOES = List.of(
+            new Implementacao("wait-notify", clientes -> new DepartamentoCreditoSync()),
+            new Implementacao("fila", DepartamentoCreditoFila::new));
+
+    private record Opcoes(List<Implementacao> implementacoes, int[] clientes, int aquecimento, int iteracoes,
+                          long iteracaoMs) { }
+
+    /** Estado partilhado pelos clientes: só é escrito por quem está a ser atendido. */
+    private static final class Balcao {
+        final SistemaSenhas senhas;
+        volatile long libertadoEm;
+        volatile long passagens;
+        volatile LatencyHistogram latencia = new LatencyHistogram();
+        volatile boolean parar;
+
+        Balcao(SistemaSenhas senhas) {
+            this.senhas = senhas;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Opcoes opcoes = parse(args);
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads.isThreadCpuTimeSupported()) threads.setThreadCpuTimeEnabled(true);
+
+        System.out.println("# Implementações: " + opcoes.implementacoes().stream().map(Implementacao::nome).toList());
+        System.out.println("# Clientes em fila: " + Arrays.toString(opcoes.clientes()));
+        System.out.println("# Aquecimento: " + opcoes.aquecimento() + " x " + opcoes.iteracaoMs() + " ms | Medição: "
+                + opcoes.iteracoes() + " x " + opcoes.iteracaoMs() + " ms (na própria JVM)");
+        System.out.println("# JVM: " + System.getProperty("java.vm.name") + " " + System.getProperty("java.version")
+                + " | CPUs: " + Runtime.getRuntime().availableProcessors());
+        System.out.println();
+        System.out.printf("%-12s %8s %14s %10s %10s %11s %14s %9s%n", "Benchmark", "Clientes", "Passagens/s",
+                "p50 (µs)", "p99 (µs)", "p99.9 (µs)", "CPU/pass (µs)", "CPU (%)");
+
+        for (int clientes : opcoes.clientes()) {
+            for (Implementacao implementacao : opcoes.implementacoes()) {
+                medir(implementacao, clientes, opcoes, threads);
+            }
+        }
+    }
+
+    /** Arranca os clientes uma vez e mede as iterações consecutivas enquanto eles continuam em fila. */
+    private static void medir(Implementacao implementacao, int clientes, Opcoes opcoes, ThreadMXBean threads)
+            throws InterruptedException {
+        Balcao balcao = new Balcao(implementacao.criar().apply(clientes));
+        CountDownLatch partida = new CountDownLatch(1);
+        Thread[] fila = new Thread[clientes];
+        for (int c = 0; c < clientes; c++) {
+            fila[c] = new Thread(() -> atender(balcao, partida), "Cliente-" + c);
+            fila[c].start();
+        }
+        partida.countDown();
+
+        Thread.sleep(opcoes.aquecimento() * opcoes.iteracaoMs());
+
+        double passagensPorSegundo = 0, cpuPorPassagem = 0, cpuPercent = 0;
+        LatencyHistogram latencia = new LatencyHistogram();
+        for (int i = 0; i < opcoes.iteracoes(); i++) {
+            LatencyHistogram iteracao = new LatencyHistogram();
+            balcao.latencia = iteracao;
+            long passagensAntes = balcao.passagens, cpuAntes = cpu(threads, fila), inicio = System.nanoTime();
+            Thread.sleep(opcoes.iteracaoMs());
+            long passagens = balcao.passagens - passagensAntes, cpu = cpu(threads, fila) - cpuAntes;
+            long duracao = System.nanoTime() - inicio;
+
+            passagensPorSegundo += passagens * 1e9 / duracao / opcoes.iteracoes();
+            cpuPorPassagem += (passagens == 0 ? 0 : cpu / 1000.0 / passagens) / opcoes.iteracoes();
+            cpuPercent += 100.0 * cpu / duracao / opcoes.iteracoes();
+            latencia.add(iteracao);
+        }
+
+        // Os clientes já com senha ainda têm de ser atendidos antes de saírem da fila
+        balcao.parar = true;
+        for (Thread t : fila) t.join();
+
+        System.out.printf("%-12s %8d %14.0f %10.1f %10.1f %11.1f %14.2f %9.1f%n", implementacao.nome(), clientes,
+                passagensPorSegundo, latencia.percentile(0.50) / 1000.0, latencia.percentile(0.99) / 1000.0,
+                latencia.percentile(0.999) / 1000.0, cpuPorPassagem, cpuPercent);
+    }
+
+    private static void atender(Balcao balcao, CountDownLatch partida) {
+        try {
+            partida.await();
+            while (!balcao.parar) {
+                int senha = balcao.senhas.tirarSenha();
+                balcao.senhas.aguardarVez(senha);
+                long libertado = balcao.libertadoEm;
+                if (libertado != 0) balcao.latencia.record(System.nanoTime() - libertado);
+                balcao.passagens++; // só quem está a ser atendido escreve
+                balcao.libertadoEm = System.nanoTime();
+                balcao.senhas.sair();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** CPU (ns) consumido até agora pelos clientes (-1 por thread já terminada é ignorado). */
+    private static long cpu(ThreadMXBean threads, Thread[] fila) {
+        long total = 0;
+        for (Thread t : fila) total += Math.max(0, threads.getThreadCpuTime(t.threadId()));
+        return total;
+    }
+
+    private static Opcoes parse(String[] args) {
+        List<Implementacao> implementacoes = IMPLEMENTACOES;
+        int[] clientes = {10, 100, 1000};
+        int aquecimento = 1, iteracoes = 3;
+        long iteracaoMs = 1000;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-e" -> {
+                    List<String> nomes = Arrays.stream(args[++i].split(",")).map(String::trim).toList();
+                    implementacoes = IMPLEMENTACOES.stream().filter(m -> nomes.contains(m.nome())).toList();
+                }
+                case "-w" -> clientes = Arrays.stream(args[++i].split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+                case "-wi" -> aquecimento = Integer.parseInt(args[++i]);
+                case "-i" -> iteracoes = Integer.parseInt(args[++i]);
+                case "-r" -> iteracaoMs = Long.parseLong(args[++i]);
+                default -> throw new IllegalArgumentException("Opção desconhecida: " + args[i]
+                        + " (use -e, -w, -wi, -i, -r)");
+            }
+        }
+        return new Opcoes(implementacoes, clientes, aquecimento, iteracoes, iteracaoMs);
+    }
+}
@@ -1,9 +1,42 @@
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 import monitor.EventType;
+import monitor.LatencyHistogram;
+import monitor.LockLatency;
+import monitor.MonitorAggregator;
+import monitor.MonitorReport;
+import monitor.VirtualThreadPinning;
 import monitor.eBPFMonitor;
+import resources.BalcaoAtendimento;
 import resources.DepartamentoCredito;
+import resources.DepartamentoCreditoBalcoes;
+import resources.DepartamentoCreditoFila;
 import resources.DepartamentoCreditoSync;
+import resources.SistemaSenhas;
+import resources.BancoOffHeap;
+import resources.ContaAtomica;
 import resources.ContaConjunta;
+import resources.ContaRepartida;
 import resources.CarteiraCliente;
 
 // Importação dos Cenários Inseguros
@@ -21,6 +54,20 @@ import scens.DeadlockSynchronized;
 import scens.RaceConditionSynchronized;
 import scens.StarvationSynchronized;
 
+// Importação dos Cenários Seguros sem locks (AtomicLong CAS / LongAdder)
+import scens.RaceConditionAtomic;
+import scens.RaceConditionLongAdder;
+
+// Carga com Zipf sobre o banco off-heap
+import scens.BancoWorkload;
+import scens.ZipfGenerator;
+
+// Motor de transferências entre N carteiras
+import scens.TransferenciaWorker;
+
+// Clientes do departamento de crédito com vários balcões
+import scens.ClienteBalcao;
+
 /**
  * Ponto de entrada (Entry Point) do Simulador de Sistema Bancário.
  * <p>
@@ -32,7 +79,8 @@ import scens.StarvationSynchronized;
  * <li><b>Mitigação via Monitores/Wait-Notify</b> (Low-level synchronization - {@code synchronized}).</li>
  * </ol>
  * <p>
- * Inclui também um modo de <b>Stress Test</b> para validação de integridade sob carga elevada.
+ * Inclui também um modo de <b>Stress Test</b> para validação de integridade sob carga elevada
+ * e uma <b>Matriz de Cenários</b> que executa todos os cenários em paralelo, cada um com o seu monitor.
  */
 public class Main {
 
@@ -54,6 +102,11 @@ public class Main {
             System.out.println("2. Deadlock (Denial of Service)");
             System.out.println("3. Starvation (Negação de Serviços)");
             System.out.println("4. Stress Test (Carga Elevada)");
+            System.out.println("5. Benchmark do Monitor (Síncrono vs Ring Buffer)");
+            System.out.println("6. Matriz de Cenários (em paralelo, um monitor por cenário)");
+            System.out.println("7. Banco com Milhões de Contas (off-heap, locks repartidos)");
+            System.out.println("8. Motor de Transferências (N carteiras, ordem por id vs try-lock)");
+            System.out.println("9. Departamento de Crédito com Balcões (filas pesadas por classe + envelhecimento)");
             System.out.println("0. Sair");
             System.out.print("\nSelecione o cenário: ");
 
@@ -69,14 +122,29 @@ public class Main {
 
             if (opcao == 0) {
                 System.out.println("A encerrar sistema...");
+                monitor.shutdown();
                 break;
             }
 
-            if (opcao < 1 || opcao > 4) {
+            if (opcao < 1 || opcao > 9) {
                 System.out.println("Opção inválida");
                 continue;
             }
 
+            // O benchmark mede apenas o monitor, a matriz executa todos os modos, o banco off-heap é sempre
+            // protegido (compara números de stripes), o motor de transferências compara duas estratégias seguras e
+            // os balcões comparam escalonadores justos: não há escolha seguro/inseguro
+            if (opcao >= 5) {
+                if (opcao == 5) runMonitorBenchmark();
+                else if (opcao == 6) runScenarioMatrix();
+                else if (opcao == 7) runBancoOffHeap();
+                else if (opcao == 8) runMotorTransferencias();
+                else runDepartamentoBalcoes();
+                System.out.println("Pressione ENTER para voltar ao menu...");
+                scanner.nextLine();
+                continue;
+            }
+
             // Seleção do Modo de Segurança
             System.out.println("O que deseja executar?");
             System.out.println("0 - Inseguro (Demonstrar Ataque)");
@@ -110,6 +178,7 @@ public class Main {
                     runStressTest(seguro);
                     break;
             }
+            monitor.log("MAIN", EventType.SYSTEM_END, "Cenário " + opcao + " terminado");
             monitor.print();
             System.out.println("Pressione ENTER para voltar ao menu...");
             scanner.nextLine();
@@ -130,18 +199,14 @@ public class Main {
      */
     private static void runRaceCondition(boolean seguro) {
         Scanner scanner = new Scanner(System.in);
-        ContaConjunta conta = new ContaConjunta();
-        Thread[] threads = new Thread[5];
-
-        java.util.Random random = new java.util.Random();
-        int totalEsperado=0;
-
         int tipoDefesa = 1; // 1 = Semáforo (Default)
 
         if (seguro) {
             System.out.println("\n--- Escolha a Técnica de Sincronização ---");
             System.out.println("1. Semáforos (java.util.concurrent)");
             System.out.println("2. Monitores Intrínsecos (synchronized block)");
+            System.out.println("3. Sem locks (AtomicLong CAS)");
+            System.out.println("4. Saldo repartido (LongAdder)");
             System.out.print("Opção: ");
             try {
                 String input = scanner.nextLine();
@@ -149,22 +214,31 @@ public class Main {
             } catch (NumberFormatException e) {}
         }
 
-        System.out.println(">>> Cenário: Depósitos Simultâneos. Modo: " + (seguro ? (tipoDefesa==1?"Semáforo":"Synchronized") : "INSEGURO"));
+        executarRaceCondition(eBPFMonitor.getInstance(), seguro, tipoDefesa, System.out);
+    }
+
+    /**
+     * Corpo do cenário de Race Condition, sem interação com o utilizador.
+     *
+     * @param monitor    Monitor que recebe os eventos do cenário.
+     * @param seguro     {@code true} para ativar a proteção.
+     * @param tipoDefesa 1 = Semáforo, 2 = Synchronized, 3 = AtomicLong CAS, 4 = LongAdder.
+     * @param out        Destino do relatório.
+     */
+    private static void executarRaceCondition(eBPFMonitor monitor, boolean seguro, int tipoDefesa, PrintStream out) {
+        ContaConjunta conta = novaConta(seguro, tipoDefesa);
+        Thread[] threads = new Thread[5];
+
+        java.util.Random random = new java.util.Random();
+        int totalEsperado=0;
+
+        out.println(">>> Cenário: Depósitos Simultâneos. Modo: " + (seguro ? nomeDefesa(tipoDefesa) : "INSEGURO"));
 
         for (int i = 0; i < 5; i++) {
             //Gera valor entre 10 e 100
             int valorAleatorio = 10 + random.nextInt(91);
             totalEsperado += valorAleatorio;
-            Runnable worker;
-            if (seguro) {
-                if (tipoDefesa == 2) {
-                    worker = new RaceConditionSynchronized(conta, valorAleatorio);
-                } else {
-                    worker = new RaceConditionsSecure(conta, valorAleatorio);
-                }
-            } else {
-                worker = new RaceConditionInsecure(conta, valorAleatorio);
-            }
+            Runnable worker = novoDeposito(monitor, conta, seguro, tipoDefesa, valorAleatorio, -1);
             threads[i] = new Thread(worker, "MB- " + i);
             threads[i].start();
         }
@@ -173,18 +247,19 @@ public class Main {
             try{ t.join(); } catch (InterruptedException e) {}
         }
 
-        System.out.println("\n--- RELATÓRIO FINAL ---");
-        System.out.println("Saldo Esperado (Soma dos depósitos): " + totalEsperado + "€");
-        System.out.println("Saldo Real (Na conta):               " + conta.getSaldo() + "€");
+        out.println("\n--- RELATÓRIO FINAL ---");
+        out.println("Saldo Esperado (Soma dos depósitos): " + totalEsperado + "€");
+        out.println("Saldo Real (Na conta):               " + conta.getSaldo() + "€");
 
         if (conta.getSaldo() != totalEsperado) {
             int diferenca = totalEsperado - conta.getSaldo();
-            eBPFMonitor.getInstance().log("MAIN", EventType.ERROR, "FALHA DE INTEGRIDADE: Perderam-se " + diferenca + "€");
-            System.out.println("Estado: DADOS CORROMPIDOS (Perda de " + diferenca + "€)");
+            monitor.log("MAIN", EventType.ERROR, "FALHA DE INTEGRIDADE: Perderam-se " + diferenca + "€");
+            out.println("Estado: DADOS CORROMPIDOS (Perda de " + diferenca + "€)");
         } else {
-            eBPFMonitor.getInstance().log("MAIN", EventType.RESULT, "Sucesso. Saldo: " + conta.getSaldo());
-            System.out.println("Estado: INTEGRIDADE OK");
+            monitor.log("MAIN", EventType.RESULT, "Sucesso. Saldo: " + conta.getSaldo());
+            out.println("Estado: INTEGRIDADE OK");
         }
+        if (seguro) imprimirSeccaoSerializada(conta, tipoDefesa, out);
     }
 
     /**
@@ -197,9 +272,6 @@ public class Main {
      */
     private static void runDeadLock(boolean seguro) {
         Scanner scanner = new Scanner(System.in);
-        CarteiraCliente a = new CarteiraCliente("Cliente A");
-        CarteiraCliente b = new CarteiraCliente("Cliente B");
-
         int tipoDefesa = 1;
 
         if (seguro) {
@@ -213,38 +285,77 @@ public class Main {
             } catch (NumberFormatException e) {}
         }
 
-        System.out.println(">>> DeadLock. Modo: " + (seguro ? (tipoDefesa==1?"Semáforo":"Synchronized") : "INSEGURO"));
+        executarDeadLock(eBPFMonitor.getInstance(), seguro, tipoDefesa, System.out);
+    }
+
+    /**
+     * Corpo do cenário de Deadlock, sem interação com o utilizador.
+     *
+     * @param monitor    Monitor que recebe os eventos (e cujo grafo de espera deteta o ciclo).
+     * @param seguro     {@code true} para usar ordenação de recursos.
+     * @param tipoDefesa 1 = Semáforo, 2 = Synchronized.
+     * @param out        Destino do relatório.
+     */
+    private static void executarDeadLock(eBPFMonitor monitor, boolean seguro, int tipoDefesa, PrintStream out) {
+        CarteiraCliente a = new CarteiraCliente("Cliente A");
+        CarteiraCliente b = new CarteiraCliente("Cliente B");
+
+        out.println(">>> DeadLock. Modo: " + (seguro ? (tipoDefesa==1?"Semáforo":"Synchronized") : "INSEGURO"));
 
         Thread t1, t2;
 
         if (seguro) {
             if (tipoDefesa == 2) {
-                t1 = new Thread(new DeadlockSynchronized("Agente-1", a, b), "Agente-1");
-                t2 = new Thread(new DeadlockSynchronized("Agente-2", b, a), "Agente-2");
+                t1 = new Thread(new DeadlockSynchronized(monitor, "Agente-1", a, b), "Agente-1");
+                t2 = new Thread(new DeadlockSynchronized(monitor, "Agente-2", b, a), "Agente-2");
             } else {
-                t1 = new Thread(new DeadlockSecure("Agente-1", a, b), "Agente-1");
-                t2 = new Thread(new DeadlockSecure("Agente-2", b, a), "Agente-2");
+                t1 = new Thread(new DeadlockSecure(monitor, "Agente-1", a, b), "Agente-1");
+                t2 = new Thread(new DeadlockSecure(monitor, "Agente-2", b, a), "Agente-2");
             }
         } else {
-            t1 = new Thread(new DeadlockInsecure("Hacker", a, b), "Hacker");
-            t2 = new Thread(new DeadlockInsecure("Vitima", b, a), "Vitima");
+            t1 = new Thread(new DeadlockInsecure(monitor, "Hacker", a, b), "Hacker");
+            t2 = new Thread(new DeadlockInsecure(monitor, "Vitima", b, a), "Vitima");
         }
+        long deadlocksAntes = monitor.deadlockCount();
+        long inicio = System.nanoTime();
+
         t1.start();
         t2.start();
 
         try{
-            t1.join(3000);
-            t2.join(3000);
+            // O grafo de espera do monitor deteta o ciclo assim que a última aresta é inserida;
+            // o timeout de 3s fica apenas como rede de segurança
+            boolean detetado = false;
+            long prazo = inicio + 3_000_000_000L;
+            while ((t1.isAlive() || t2.isAlive()) && System.nanoTime() < prazo) {
+                if (monitor.awaitDeadlock(deadlocksAntes, 10)) {
+                    detetado = true;
+                    break;
+                }
+            }
 
-            if (t1.isAlive() || t2.isAlive()) {
-                eBPFMonitor.getInstance().log("MAIN", EventType.DEADLOCK_DETECTED, "TIMEOUT: Deadlock confirmado");
-                System.out.println("Alerta, DeadLock detetado. A encerrar threads...");
+            if (detetado) {
+                long ms = (System.nanoTime() - inicio) / 1_000_000;
+                out.println("Alerta, DeadLock detetado pelo grafo de espera (" + ms + "ms): " + monitor.lastDeadlock());
+                if (Boolean.parseBoolean(System.getProperty("ebpf.deadlock.jvmCheck", "false"))) {
+                    Thread.sleep(50); // dá tempo às threads para ficarem efetivamente bloqueadas
+                    out.println("Verificação JVM (ThreadMXBean): " + monitor.crossCheckDeadlock()
+                            + " threads confirmadas (Semaphore não tem dono visível à JVM)");
+                }
+                out.println("A encerrar threads...");
+                t1.interrupt();
+                t2.interrupt();
+                t1.join(500);
+                t2.join(500);
+            } else if (t1.isAlive() || t2.isAlive()) {
+                monitor.log("MAIN", EventType.DEADLOCK_DETECTED, "TIMEOUT: Deadlock confirmado");
+                out.println("Alerta, DeadLock detetado. A encerrar threads...");
                 t1.interrupt();
                 t2.interrupt();
                 t1.join(500);
                 t2.join(500);
             } else {
-                eBPFMonitor.getInstance().log("MAIN", EventType.SUCCESS, "Execução terminada");
+                monitor.log("MAIN", EventType.SUCCESS, "Execução terminada");
             }
         } catch (InterruptedException e) {}
     }
@@ -269,6 +380,7 @@ public class Main {
             System.out.println("\n--- Escolha a Técnica de Sincronização ---");
             System.out.println("1. Semáforo Justo (java.util.concurrent)");
             System.out.println("2. Wait/Notify com Ticket Lock (Primitivas Monitor)");
+            System.out.println("3. Ticket Lock com Fila (park/unpark, acorda só o próximo)");
             System.out.print("Opção: ");
             try {
                 String input = scanner.nextLine();
@@ -276,14 +388,29 @@ public class Main {
             } catch (NumberFormatException e) {}
         }
 
-        System.out.println(">>> Starvation. Modo: " + (seguro ? (tipoDefesa==1?"Semáforo":"Ticket Lock") : "INSEGURO"));
+        executarStarvation(eBPFMonitor.getInstance(), seguro, tipoDefesa, System.out);
+    }
+
+    /**
+     * Corpo do cenário de Starvation, sem interação com o utilizador.
+     *
+     * @param monitor    Monitor que recebe os eventos (e cujo watchdog deteta a starvation).
+     * @param seguro     {@code true} para ativar a política de Justiça.
+     * @param tipoDefesa 1 = Semáforo Justo, 2 = Ticket Lock.
+     * @param out        Destino do relatório.
+     */
+    private static void executarStarvation(eBPFMonitor monitor, boolean seguro, int tipoDefesa, PrintStream out) {
+        String modo = tipoDefesa == 1 ? "Semáforo" : tipoDefesa == 3 ? "Ticket Lock (fila)" : "Ticket Lock";
+        out.println(">>> Starvation. Modo: " + (seguro ? modo : "INSEGURO"));
 
         // Instanciar Recursos (Depende da estratégia escolhida)
         DepartamentoCredito depSem = null;
-        DepartamentoCreditoSync depSync = null;
+        SistemaSenhas depSync = null;
 
         if (seguro && tipoDefesa == 2) {
             depSync = new DepartamentoCreditoSync(); // Usar o novo Ticket Monitor
+        } else if (seguro && tipoDefesa == 3) {
+            depSync = new DepartamentoCreditoFila(); // Ticket Lock que acorda apenas o próximo
         } else {
             depSem = new DepartamentoCredito(seguro); // Usar Semáforo (Fair ou Unfair)
         }
@@ -293,24 +420,24 @@ public class Main {
 
         // Instanciar Threads
         if (seguro) {
-            if (tipoDefesa == 2) {
-                // Nova implementação wait/notify
-                poor = new Thread(new StarvationSynchronized(depSync, 1), "Cliente-Normal");
+            if (tipoDefesa == 2 || tipoDefesa == 3) {
+                // Ticket Lock (wait/notify ou fila com park/unpark)
+                poor = new Thread(new StarvationSynchronized(monitor, depSync, 1), "Cliente-Normal");
                 for (int i = 0; i < 3; i++) {
-                    rich[i] = new Thread(new StarvationSynchronized(depSync, 10), "Cliente-VIP-" + i);
+                    rich[i] = new Thread(new StarvationSynchronized(monitor, depSync, 10), "Cliente-VIP-" + i);
                 }
             } else {
                 // Implementação original Semáforo
-                poor = new Thread(new StarvationSecure(depSem, 1), "Cliente-Normal");
+                poor = new Thread(new StarvationSecure(monitor, depSem, 1), "Cliente-Normal");
                 for (int i = 0; i < 3; i++) {
-                    rich[i] = new Thread(new StarvationSecure(depSem, 10), "Cliente-VIP-" + i);
+                    rich[i] = new Thread(new StarvationSecure(monitor, depSem, 10), "Cliente-VIP-" + i);
                 }
             }
         } else {
             // Modo Inseguro
-            poor = new Thread(new StarvationInsecure(depSem, 1), "Cliente-Normal");
+            poor = new Thread(new StarvationInsecure(monitor, depSem, 1), "Cliente-Normal");
             for (int i = 0; i < 3; i++) {
-                rich[i] = new Thread(new StarvationInsecure(depSem, 10), "Cliente-VIP-" + i);
+                rich[i] = new Thread(new StarvationInsecure(monitor, depSem, 10), "Cliente-VIP-" + i);
             }
         }
 
@@ -321,21 +448,45 @@ public class Main {
             t.start();
         }
 
+        long alertasAntes = monitor.starvationCount();
+
         poor.start();
 
         try {
-            poor.join(5000);
+            // O watchdog do monitor dispara assim que o SLA de espera expira, mesmo com a thread bloqueada;
+            // o Main só espera pelo fim do cliente ou pelo alerta (com uma margem de segurança)
+            boolean detetado = false;
+            long prazo = System.nanoTime() + (monitor.starvationSlaMs() + 1000) * 1_000_000L;
+            while (poor.isAlive() && System.nanoTime() < prazo) {
+                if (monitor.awaitStarvation(alertasAntes, 10)) {
+                    alertasAntes = monitor.starvationCount();
+                    String esfomeada = monitor.lastStarved();
+                    out.println("Alerta: Starvation detetada pelo watchdog (" + esfomeada
+                            + " excedeu o SLA de " + monitor.starvationSlaMs() + "ms).");
+                    // Interrompe a thread indicada pelo alerta; se não for o cliente normal, continua à espera dele
+                    if (poor.getName().equals(esfomeada)) {
+                        detetado = true;
+                        break;
+                    }
+                    for (Thread t : rich) {
+                        if (t.getName().equals(esfomeada)) t.interrupt();
+                    }
+                }
+            }
 
-            if (poor.isAlive()) {
-                eBPFMonitor.getInstance().log("MAIN", EventType.ALERT_STARVATION, "Cliente Normal bloqueado (Timeout)");
-                System.out.println("Alerta: Starvation. Cliente Normal não conseguiu terminar.");
+            if (detetado) {
+                poor.interrupt();
+                poor.join(1000);
+            } else if (poor.isAlive()) {
+                monitor.log("MAIN", EventType.ALERT_STARVATION, "Cliente Normal bloqueado (Timeout)");
+                out.println("Alerta: Starvation. Cliente Normal não conseguiu terminar.");
             } else {
-                eBPFMonitor.getInstance().log("MAIN", EventType.SUCCESS, "Cliente Normal executou com sucesso");
+                monitor.log("MAIN", EventType.SUCCESS, "Cliente Normal executou com sucesso");
             }
         } catch (InterruptedException e) {
             e.printStackTrace();
         } finally {
-            System.out.println("A limpar processos em background...");
+            out.println("A limpar processos em background...");
             for (Thread t : rich) {
                 if (t.isAlive()) t.interrupt();
             }
@@ -355,16 +506,15 @@ public class Main {
      * <li><b>Performance:</b> Calcula o Throughput (transações/segundo).</li>
      * </ol>
      * Ativa o "Modo Silencioso" do Monitor para evitar overhead de I/O na consola.
+     * Com threads virtuais, a mesma carga é comparada lado a lado com threads de plataforma.
      *
      * @param seguro {@code true} para ativar defesas; {@code false} para demonstrar corrupção massiva de dados.
      */
     private static void runStressTest(boolean seguro) {
         Scanner scanner = new Scanner(System.in);
-        eBPFMonitor monitor = eBPFMonitor.getInstance();
-        ContaConjunta conta = new ContaConjunta();
 
         System.out.println("\n>>> STRESS TEST MONITOR <<<");
-        System.out.print("Quantas threads deseja lançar? (Rec: 100-1000): ");
+        System.out.print("Quantas threads (depósitos, no pool) deseja lançar? (Rec: 100-1000, virtuais: 100000-1000000): ");
         int numThreads = 100;
         try {
             String in = scanner.nextLine();
@@ -375,68 +525,1017 @@ public class Main {
 
         int tipoDefesa = 1;
         if (seguro) {
-            System.out.println("Técnica: 1-Semáforo | 2-Synchronized");
+            System.out.println("Técnica: 1-Semáforo | 2-Synchronized | 3-AtomicLong CAS | 4-LongAdder");
             try {
                 String input = scanner.nextLine();
                 if (!input.isEmpty()) tipoDefesa = Integer.parseInt(input);
             } catch (NumberFormatException e) {}
         }
 
-        System.out.println("A iniciar " + numThreads + " threads...");
-        System.out.println("Consola em modo SILENCIOSO para não afetar a performance (Ver logs JSON).");
+        System.out.println("Threads: 1-Plataforma | 2-Virtuais (comparação com plataforma) | 3-Pool de workers");
+        int tipoThreads = 1;
+        try {
+            String input = scanner.nextLine();
+            if (!input.isEmpty()) tipoThreads = Integer.parseInt(input);
+        } catch (NumberFormatException e) {}
 
-        // Ativa modo silencioso
-        monitor.setSilentMode(true);
+        if (tipoThreads == 2) {
+            System.out.print("Latência por depósito em µs (Enter = 100): ");
+            long latenciaMicros = 100;
+            try {
+                String input = scanner.nextLine();
+                if (!input.isEmpty()) latenciaMicros = Long.parseLong(input);
+            } catch (NumberFormatException e) {}
+            executarComparacaoThreads(eBPFMonitor.getInstance(), seguro, numThreads, latenciaMicros * 1000, System.out);
+            return;
+        }
 
-        Thread[] threads = new Thread[numThreads];
-        int valorPorThread = 1; // Cada thread deposita 1€
+        if (tipoThreads == 3) {
+            int processadores = Runtime.getRuntime().availableProcessors();
+            System.out.println("Pool: 1-ThreadPoolExecutor | 2-ForkJoinPool");
+            boolean forkJoin = lerNumero(scanner, 1) == 2;
+            System.out.print("Threads do pool (Enter = " + processadores + "): ");
+            int tamanhoPool = (int) Math.max(1, lerNumero(scanner, processadores));
+            System.out.print("Depósitos por tarefa (Enter = 10): ");
+            int lote = (int) Math.max(1, lerNumero(scanner, 10));
+            executarStressPool(eBPFMonitor.getInstance(), seguro, tipoDefesa, numThreads, forkJoin, tamanhoPool, lote,
+                    System.out);
+            return;
+        }
 
-        long startTime = System.currentTimeMillis();
+        executarStressTest(eBPFMonitor.getInstance(), seguro, tipoDefesa, numThreads, System.out);
+    }
 
-        // Lançamento das Threads
-        for (int i = 0; i < numThreads; i++) {
-            Runnable worker;
-            if (seguro) {
-                if (tipoDefesa == 2) worker = new RaceConditionSynchronized(conta, valorPorThread);
-                else worker = new RaceConditionsSecure(conta, valorPorThread);
-            } else {
-                worker = new RaceConditionInsecure(conta, valorPorThread);
-            }
-            threads[i] = new Thread(worker, "StressWorker-" + i);
-            threads[i].start();
-        }
+    /**
+     * Corpo do Stress Test, sem interação com o utilizador.
+     *
+     * @param monitor    Monitor que recebe os eventos (em modo silencioso durante a carga).
+     * @param seguro     {@code true} para ativar defesas.
+     * @param tipoDefesa 1 = Semáforo, 2 = Synchronized, 3 = AtomicLong CAS, 4 = LongAdder.
+     * @param numThreads Número de threads a lançar.
+     * @param out        Destino do relatório.
+     */
+    private static void executarStressTest(eBPFMonitor monitor, boolean seguro, int tipoDefesa, int numThreads,
+                                           PrintStream out) {
+        ContaConjunta conta = novaConta(seguro, tipoDefesa);
 
-        // Aguardar conclusão (Join)
-        for (Thread t : threads) {
-            try { t.join(); } catch (InterruptedException e) {}
-        }
+        out.println("A iniciar " + numThreads + " threads...");
+        out.println("Consola em modo SILENCIOSO para não afetar a performance (Ver logs JSON).");
 
-        long endTime = System.currentTimeMillis();
-        long duration = endTime - startTime;
+        // Ativa modo silencioso
+        boolean silencioso = monitor.isSilentMode();
+        monitor.setSilentMode(true);
+
+        int valorPorThread = 1; // Cada thread deposita 1€
+
+        long duration = executarCarga(monitor, conta, seguro, tipoDefesa, numThreads, valorPorThread,
+                Thread.ofPlatform().name("StressWorker-", 0), -1, null) / 1_000_000;
 
         // Reativa a consola para mostrar resultados
-        monitor.setSilentMode(false);
+        monitor.setSilentMode(silencioso);
 
-        System.out.println("\n=== RESULTADOS DO STRESS TEST ===");
-        System.out.println("Threads executadas: " + numThreads);
-        System.out.println("Tempo de execução:  " + duration + " ms");
-        System.out.println("Saldo Esperado:     " + (numThreads * valorPorThread));
-        System.out.println("Saldo Real:         " + conta.getSaldo());
+        out.println("\n=== RESULTADOS DO STRESS TEST ===");
+        out.println("Threads executadas: " + numThreads);
+        out.println("Tempo de execução:  " + duration + " ms");
+        out.println("Saldo Esperado:     " + (numThreads * valorPorThread));
+        out.println("Saldo Real:         " + conta.getSaldo());
 
         if (conta.getSaldo() != (numThreads * valorPorThread)) {
-            System.out.println("STATUS: [FALHA CRÍTICA] Corrupção de dados detetada.");
+            out.println("STATUS: [FALHA CRÍTICA] Corrupção de dados detetada.");
             int diferenca = (numThreads * valorPorThread) - conta.getSaldo();
-            System.out.println("Perda financeira: " + diferenca + "€");
+            out.println("Perda financeira: " + diferenca + "€");
         } else {
-            System.out.println("STATUS: [SUCESSO] Integridade mantida.");
+            out.println("STATUS: [SUCESSO] Integridade mantida.");
         }
 
         // Métrica de Performance (Throughput)
         if (duration > 0) {
             double throughput = (double) numThreads / (duration / 1000.0);
-            System.out.printf("Throughput: %.2f transações/segundo\n", throughput);
+            out.printf("Throughput: %.2f transações/segundo\n", throughput);
+        }
+        if (seguro) imprimirSeccaoSerializada(conta, tipoDefesa, out);
+        String cenario = "stress-" + contextoDefesa(seguro, tipoDefesa);
+        monitor.recordThroughput(cenario, numThreads, duration * 1_000_000L);
+
+        // Latências do lock da conta (histogramas do monitor): permite comparar Semáforo vs Synchronized
+        LockLatency latencia = monitor.lockLatency(conta.getId());
+        if (latencia.wait.count() > 0) {
+            out.println("Espera pelo lock: " + latencia.wait.summary());
+            out.println("Posse do lock:    " + latencia.hold.summary());
         }
 
         monitor.log("MAIN", EventType.RESULT, "Stress Test Finalizado. Duration: " + duration + "ms");
     }
-}
\ No newline at end of file
+
+    /**
+     * Stress Test com um <b>pool de workers</b> de tamanho fixo ({@link ThreadPoolExecutor} ou {@link ForkJoinPool}).
+     * <p>
+     * Os depósitos são submetidos em lotes (uma tarefa = {@code lote} depósitos seguidos), e o pool é aquecido antes
+     * de começar a medir: todas as threads já existem quando o relógio arranca, por isso o tempo medido é o da
+     * contenção no lock da conta e não o da criação de threads do sistema operativo. Por tarefa são medidos:
+     * <ul>
+     * <li><b>Fila:</b> da submissão até uma thread do pool a começar.</li>
+     * <li><b>Execução:</b> do início ao fim do lote.</li>
+     * <li><b>Fim-a-fim:</b> da submissão ao fim do lote.</li>
+     * </ul>
+     *
+     * @param numDepositos Total de depósitos (1€ cada).
+     * @param forkJoin     {@code true} para ForkJoinPool, {@code false} para ThreadPoolExecutor.
+     * @param tamanhoPool  Número de threads do pool.
+     * @param lote         Depósitos por tarefa.
+     */
+    private static void executarStressPool(eBPFMonitor monitor, boolean seguro, int tipoDefesa, int numDepositos,
+                                           boolean forkJoin, int tamanhoPool, int lote, PrintStream out) {
+        ContaConjunta conta = novaConta(seguro, tipoDefesa);
+        int numTarefas = (numDepositos + lote - 1) / lote;
+        String tipoPool = forkJoin ? "ForkJoinPool" : "ThreadPoolExecutor";
+
+        out.println("A iniciar " + tipoPool + " com " + tamanhoPool + " threads: " + numTarefas + " tarefas de até "
+                + lote + " depósitos...");
+        out.println("Consola em modo SILENCIOSO para não afetar a performance (Ver logs JSON).");
+        boolean silencioso = monitor.isSilentMode();
+        monitor.setSilentMode(true);
+
+        // Arranque do pool (fora da medição): cada tarefa de aquecimento espera pelas outras, o que obriga o pool
+        // a criar todas as suas threads
+        long inicioArranque = System.nanoTime();
+        ExecutorService pool;
+        if (forkJoin) {
+            pool = new ForkJoinPool(tamanhoPool, p -> {
+                ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                t.setName("PoolWorker-" + t.getPoolIndex());
+                return t;
+            }, null, false);
+        } else {
+            AtomicInteger contador = new AtomicInteger();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(tamanhoPool, tamanhoPool, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), r -> new Thread(r, "PoolWorker-" + contador.getAndIncrement()));
+            executor.prestartAllCoreThreads();
+            pool = executor;
+        }
+        CountDownLatch aquecidas = new CountDownLatch(tamanhoPool);
+        for (int i = 0; i < tamanhoPool; i++) {
+            pool.execute(() -> {
+                aquecidas.countDown();
+                try { aquecidas.await(1, TimeUnit.SECONDS); } catch (InterruptedException e) {}
+            });
+        }
+        try { aquecidas.await(); } catch (InterruptedException e) {}
+        long arranque = System.nanoTime() - inicioArranque;
+
+        // Histogramas de cada thread do pool (a gravação não disputa contadores), juntos com add() no fim
+        List<LatencyHistogram[]> porWorker = Collections.synchronizedList(new ArrayList<>());
+        ThreadLocal<LatencyHistogram[]> medicoes = ThreadLocal.withInitial(() -> {
+            LatencyHistogram[] h = {new LatencyHistogram(), new LatencyHistogram(), new LatencyHistogram()};
+            porWorker.add(h);
+            return h;
+        });
+        LongAdder falhados = new LongAdder();
+        CountDownLatch concluidas = new CountDownLatch(numTarefas);
+
+        long inicio = System.nanoTime();
+        for (int t = 0; t < numTarefas; t++) {
+            int depositos = Math.min(lote, numDepositos - t * lote);
+            long submetida = System.nanoTime();
+            pool.execute(() -> {
+                long comecou = System.nanoTime();
+                Runnable worker = novoDeposito(monitor, conta, seguro, tipoDefesa, 1, -1);
+                try {
+                    for (int d = 0; d < depositos; d++) {
+                        try {
+                            worker.run();
+                        } catch (RuntimeException e) {
+                            falhados.increment(); // ex: thread do pool em quarentena pelo IPS
+                        }
+                    }
+                } finally {
+                    long terminou = System.nanoTime();
+                    LatencyHistogram[] h = medicoes.get(); // fila, execução, fim-a-fim
+                    h[0].record(comecou - submetida);
+                    h[1].record(terminou - comecou);
+                    h[2].record(terminou - submetida);
+                    concluidas.countDown();
+                }
+            });
+        }
+        try { concluidas.await(); } catch (InterruptedException e) {}
+        long duracao = System.nanoTime() - inicio;
+        pool.shutdown();
+
+        LatencyHistogram fila = new LatencyHistogram();
+        LatencyHistogram execucao = new LatencyHistogram();
+        LatencyHistogram fimAFim = new LatencyHistogram();
+        synchronized (porWorker) {
+            for (LatencyHistogram[] h : porWorker) {
+                fila.add(h[0]);
+                execucao.add(h[1]);
+                fimAFim.add(h[2]);
+            }
+        }
+
+        monitor.flush(); // os eventos da carga ainda em fila não devem aparecer na consola
+        monitor.setSilentMode(silencioso);
+
+        out.println("\n=== RESULTADOS DO STRESS TEST (POOL) ===");
+        out.println("Pool:               " + tipoPool + " com " + tamanhoPool + " threads");
+        out.println("Tarefas:            " + numTarefas + " x até " + lote + " depósitos");
+        out.println("Arranque do pool:   " + arranque / 1_000_000 + " ms (fora da medição)");
+        out.println("Tempo de execução:  " + duracao / 1_000_000 + " ms");
+        out.println("Saldo Esperado:     " + numDepositos);
+        out.println("Saldo Real:         " + conta.getSaldo());
+
+        if (conta.getSaldo() != numDepositos) {
+            out.println("STATUS: [FALHA CRÍTICA] Corrupção de dados detetada.");
+            out.println("Perda financeira: " + (numDepositos - conta.getSaldo()) + "€");
+        } else {
+            out.println("STATUS: [SUCESSO] Integridade mantida.");
+        }
+        if (falhados.sum() > 0) out.println("Depósitos interrompidos pelo IPS: " + falhados.sum());
+
+        out.printf("Throughput: %d transações/segundo%n", eventosPorSegundo(numDepositos, duracao));
+        if (seguro) imprimirSeccaoSerializada(conta, tipoDefesa, out);
+        String cenario = "stress-pool-" + contextoDefesa(seguro, tipoDefesa);
+        monitor.recordThroughput(cenario, numDepositos, duracao);
+
+        out.println("Fila da tarefa:     " + fila.summary());
+        out.println("Execução da tarefa: " + execucao.summary());
+        out.println("Fim-a-fim:          " + fimAFim.summary());
+        LockLatency latencia = monitor.lockLatency(conta.getId());
+        if (latencia.wait.count() > 0) {
+            out.println("Espera pelo lock:   " + latencia.wait.summary());
+            out.println("Posse do lock:      " + latencia.hold.summary());
+        }
+
+        monitor.log("MAIN", EventType.RESULT, "Stress Test (" + tipoPool + ") Finalizado. Duration: "
+                + duracao / 1_000_000 + "ms");
+    }
+
+    /** Lê um número da consola; Enter ou valor inválido devolve o valor por omissão. */
+    private static long lerNumero(Scanner scanner, long omissao) {
+        try {
+            String input = scanner.nextLine();
+            if (!input.isEmpty()) return Long.parseLong(input.trim());
+        } catch (NumberFormatException e) {}
+        return omissao;
+    }
+
+    /** Conta do cenário de depósitos: as defesas sem locks usam contas próprias (saldo atómico ou repartido). */
+    private static ContaConjunta novaConta(boolean seguro, int tipoDefesa) {
+        if (seguro && tipoDefesa == 3) return new ContaAtomica();
+        if (seguro && tipoDefesa == 4) return new ContaRepartida();
+        return new ContaConjunta();
+    }
+
+    /**
+     * Worker de um depósito para a técnica escolhida (a conta tem de vir de {@link #novaConta}).
+     *
+     * @param latenciaNanos Latência simulada (-1 = aleatória entre 10 e 99 ms).
+     */
+    private static Runnable novoDeposito(eBPFMonitor monitor, ContaConjunta conta, boolean seguro, int tipoDefesa,
+                                         int valor, long latenciaNanos) {
+        if (!seguro) return new RaceConditionInsecure(monitor, conta, valor, latenciaNanos);
+        return switch (tipoDefesa) {
+            case 2 -> new RaceConditionSynchronized(monitor, conta, valor, latenciaNanos);
+            case 3 -> new RaceConditionAtomic(monitor, (ContaAtomica) conta, valor, latenciaNanos);
+            case 4 -> new RaceConditionLongAdder(monitor, (ContaRepartida) conta, valor, latenciaNanos);
+            default -> new RaceConditionsSecure(monitor, conta, valor, latenciaNanos);
+        };
+    }
+
+    /**
+     * Diz no relatório onde fica o processamento simulado em cada técnica: nos locks e no CAS está dentro da
+     * região serializada (no CAS, entre a leitura e o compareAndSet), no LongAdder fora dela.
+     */
+    private static void imprimirSeccaoSerializada(ContaConjunta conta, int tipoDefesa, PrintStream out) {
+        switch (tipoDefesa) {
+            case 3 -> out.println("CAS: ler saldo -> processar -> compareAndSet, repetido a cada falha ("
+                    + ((ContaAtomica) conta).getFalhasCas() + " CAS falhados, eventos CAS_RETRY).");
+            case 4 -> out.println("LongAdder: soma comutativa, o processamento corre fora de qualquer região"
+                    + " serializada (tempos não comparáveis com os modos com lock).");
+            default -> out.println(nomeDefesa(tipoDefesa) + ": o processamento corre dentro da secção crítica.");
+        }
+    }
+
+    private static String nomeDefesa(int tipoDefesa) {
+        return switch (tipoDefesa) {
+            case 2 -> "Synchronized";
+            case 3 -> "AtomicLong CAS";
+            case 4 -> "LongAdder";
+            default -> "Semáforo";
+        };
+    }
+
+    /** Sufixo dos nomes de cenário/contexto (ex: stress-semaforo, stress-virtual-longadder). */
+    private static String contextoDefesa(boolean seguro, int tipoDefesa) {
+        if (!seguro) return "inseguro";
+        return switch (tipoDefesa) {
+            case 2 -> "synchronized";
+            case 3 -> "atomic";
+            case 4 -> "longadder";
+            default -> "semaforo";
+        };
+    }
+
+    /**
+     * Lança um worker de depósito por thread (criadas pelo builder) e espera que todos terminem.
+     *
+     * @param latenciaNanos Latência na secção crítica (-1 = aleatória entre 10 e 99 ms).
+     * @param fimAFim       Histograma do tempo entre a submissão de cada worker e o fim do seu depósito (ou null).
+     * @return Duração em nanossegundos, do lançamento do primeiro worker ao fim do último.
+     */
+    private static long executarCarga(eBPFMonitor monitor, ContaConjunta conta, boolean seguro, int tipoDefesa,
+                                      int numThreads, int valor, Thread.Builder builder, long latenciaNanos,
+                                      LatencyHistogram fimAFim) {
+        long inicio = System.nanoTime();
+        // close() espera pelo fim de todas as threads (join)
+        try (ExecutorService executor = Executors.newThreadPerTaskExecutor(builder.factory())) {
+            for (int i = 0; i < numThreads; i++) {
+                Runnable deposito = novoDeposito(monitor, conta, seguro, tipoDefesa, valor, latenciaNanos);
+                if (fimAFim == null) {
+                    executor.execute(deposito);
+                    continue;
+                }
+                long submetido = System.nanoTime();
+                executor.execute(() -> {
+                    try {
+                        deposito.run();
+                    } finally {
+                        fimAFim.record(System.nanoTime() - submetido);
+                    }
+                });
+            }
+        }
+        return System.nanoTime() - inicio;
+    }
+
+    /**
+     * Stress Test com <b>threads virtuais</b>, lado a lado com threads de plataforma.
+     * <p>
+     * Para cada técnica (inseguro, ou Semáforo, Synchronized, AtomicLong CAS e LongAdder) corre a mesma carga com
+     * threads de plataforma (limitadas a {@code -Dstress.platform.max}, por omissão 10000) e com uma thread virtual
+     * por depósito.
+     * Nas execuções virtuais os eventos JFR {@code jdk.VirtualThreadPinned} são contados por
+     * {@link VirtualThreadPinning}: no JDK 21 o sleep dentro do {@code synchronized} prende a carrier thread,
+     * enquanto a espera no Semáforo a liberta para outra thread virtual.
+     * <p>
+     * Cada execução tem o seu próprio contexto de monitor ({@code logs/stress-<threads>-<técnica>/}), para que as
+     * estatísticas de centenas de milhares de threads não se misturem entre execuções nem com as do menu.
+     *
+     * @param monitor       Monitor onde fica registado o throughput de cada execução.
+     * @param latenciaNanos Latência fixa na secção crítica de cada depósito.
+     */
+    private static void executarComparacaoThreads(eBPFMonitor monitor, boolean seguro, int numThreads,
+                                                  long latenciaNanos, PrintStream out) {
+        int maxPlataforma = Integer.getInteger("stress.platform.max", 10_000);
+        Duration limiarPinning = Duration.ofNanos(Long.getLong("stress.pinning.thresholdUs", 0L) * 1000);
+        int[] defesas = seguro ? new int[]{1, 2, 3, 4} : new int[]{0};
+        StringBuilder locais = new StringBuilder();
+
+        out.println("A comparar threads de plataforma (máx. " + maxPlataforma + ") com " + numThreads
+                + " threads virtuais, " + (latenciaNanos / 1000) + " µs por depósito...");
+        out.println("Consola em modo SILENCIOSO para não afetar a performance (Ver logs JSON).");
+
+        out.println("\n=== PLATAFORMA vs VIRTUAIS ===");
+        out.printf("%-14s | %-10s | %8s | %10s | %12s | %13s | %8s | %12s | %6s | %s%n", "Técnica", "Threads",
+                "Workers", "Tempo (ms)", "Throughput/s", "Fim-a-fim p99", "Pinned", "Carrier (ms)", "Starv.", "Saldo");
+
+        for (int defesa : defesas) {
+            for (boolean virtuais : new boolean[]{false, true}) {
+                int workers = virtuais ? numThreads : Math.min(numThreads, maxPlataforma);
+                String contexto = "stress-" + (virtuais ? "virtual-" : "plataforma-") + contextoDefesa(defesa > 0, defesa);
+                eBPFMonitor execucao = eBPFMonitor.create(contexto);
+                execucao.setSilentMode(true);
+                // Um buffer local por thread não escala para centenas de milhares de threads virtuais
+                execucao.setThreadLocalBuffers(false);
+                // Com N workers numa só conta a fila passa o SLA por construção: a starvation fica só em alerta,
+                // senão o IPS punha em quarentena os workers em espera e o saldo deixava de ser comparável
+                execucao.setIpsRule(EventType.ALERT_STARVATION, "alert");
+                // Os alertas ficam no JSON e resumidos na tabela: nem consola, nem um alert_<thread>.log por worker
+                execucao.removeSink("console");
+                execucao.removeSink("alerts");
+
+                // Threads terminadas pelo IPS são contadas em vez de imprimir um stack trace cada
+                LongAdder terminadas = new LongAdder();
+                Thread.Builder builder = virtuais
+                        ? Thread.ofVirtual().name("VStressWorker-", 0)
+                        : Thread.ofPlatform().name("StressWorker-", 0);
+                builder.uncaughtExceptionHandler((t, e) -> terminadas.increment());
+
+                VirtualThreadPinning pinning = null;
+                if (virtuais) {
+                    try {
+                        pinning = VirtualThreadPinning.start(limiarPinning);
+                    } catch (RuntimeException e) {
+                        out.println("JFR indisponível, pinning não medido: " + e.getMessage());
+                    }
+                }
+
+                ContaConjunta conta = novaConta(defesa > 0, defesa);
+                LatencyHistogram fimAFim = new LatencyHistogram();
+                long nanos = executarCarga(execucao, conta, defesa > 0, defesa, workers, 1, builder, latenciaNanos,
+                        fimAFim);
+                VirtualThreadPinning.Result pinned = null;
+                if (pinning != null) {
+                    pinned = pinning.stop();
+                    pinning.close();
+                }
+
+                long starvation = execucao.report().total(EventType.ALERT_STARVATION);
+                execucao.shutdown();
+                monitor.recordThroughput(contexto, workers, nanos);
+
+                int diferenca = workers - conta.getSaldo();
+                out.printf("%-14s | %-10s | %8d | %10d | %12d | %10.3f ms | %8s | %12s | %6d | %s%n",
+                        defesa > 0 ? nomeDefesa(defesa) : "Inseguro", virtuais ? "virtuais" : "plataforma", workers,
+                        nanos / 1_000_000,
+                        eventosPorSegundo(workers, nanos), fimAFim.percentile(0.99) / 1_000_000.0,
+                        pinned == null ? "-" : String.valueOf(pinned.count()),
+                        pinned == null ? "-" : String.valueOf(pinned.totalNanos() / 1_000_000),
+                        starvation, diferenca == 0 ? "OK" : "-" + diferenca + "€");
+                if (terminadas.sum() > 0) {
+                    out.println("  (" + terminadas.sum() + " workers terminados pelo IPS)");
+                }
+
+                if (pinned != null && pinned.count() > 0) {
+                    locais.append(String.format("%-14s | %d eventos, máx %.3f ms, em %s%n", nomeDefesa(defesa),
+                            pinned.count(), pinned.maxNanos() / 1_000_000.0, pinned.topFrame()));
+                }
+            }
+        }
+
+        out.println("Fim-a-fim: da submissão do worker ao fim do depósito. Inclui a espera pelo lock mesmo quando o"
+                + " worker fica preso antes de registar WAIT (virtuais pinned em synchronized).");
+        out.println("A latência simulada fica dentro da região serializada no Semáforo, Synchronized e CAS (entre a"
+                + " leitura e o compareAndSet); no LongAdder, que soma sem ler o saldo, fica fora dela.");
+        if (locais.length() > 0) {
+            out.println("\nPinning de carrier threads (jdk.VirtualThreadPinned):");
+            out.print(locais);
+        }
+        monitor.log("MAIN", EventType.RESULT, "Stress Test (plataforma vs virtuais) finalizado: " + numThreads + " workers");
+    }
+
+    /**
+     * Executa a <b>Matriz de Cenários</b>: Race Condition, Deadlock, Starvation e Stress Test em todos os
+     * modos (inseguro, semáforo e synchronized/ticket lock), ao mesmo tempo.
+     * <p>
+     * Cada combinação tem o seu próprio monitor ({@link eBPFMonitor#create(String)}): estatísticas, grafo de
+     * espera, watchdog, IPS e ficheiros em {@code logs/<contexto>/}, sem partilhar locks com os outros cenários.
+     * Os relatórios de cada cenário são mostrados no fim, seguidos do resumo combinado pelo {@link MonitorAggregator}.
+     */
+    private static void runScenarioMatrix() {
+        String[] cenarios = {"race", "deadlock", "starvation", "stress"};
+        String[] modos = {"inseguro", "semaforo", "synchronized"};
+        int threadsStress = Integer.getInteger("matrix.stress.threads", 50);
+
+        System.out.println("\n>>> MATRIZ DE CENÁRIOS <<<");
+        System.out.println("A executar " + (cenarios.length * modos.length) + " cenários em paralelo...");
+
+        MonitorAggregator agregador = new MonitorAggregator();
+        Thread[] execucoes = new Thread[cenarios.length * modos.length];
+        ByteArrayOutputStream[] relatorios = new ByteArrayOutputStream[execucoes.length];
+        MonitorReport[] resumos = new MonitorReport[execucoes.length];
+        long inicio = System.nanoTime();
+
+        for (int c = 0; c < cenarios.length; c++) {
+            for (int m = 0; m < modos.length; m++) {
+                int indice = c * modos.length + m;
+                String cenario = cenarios[c];
+                boolean seguro = m > 0;
+                int tipoDefesa = Math.max(1, m);
+                String contexto = cenario + "-" + modos[m];
+                relatorios[indice] = new ByteArrayOutputStream();
+                PrintStream out = new PrintStream(relatorios[indice], true, StandardCharsets.UTF_8);
+
+                execucoes[indice] = new Thread(() -> {
+                    eBPFMonitor monitor = eBPFMonitor.create(contexto);
+                    monitor.setSilentMode(true);
+                    monitor.log("MAIN", EventType.SYSTEM_START, "Cenário " + contexto);
+                    switch (cenario) {
+                        case "race" -> executarRaceCondition(monitor, seguro, tipoDefesa, out);
+                        case "deadlock" -> executarDeadLock(monitor, seguro, tipoDefesa, out);
+                        case "starvation" -> executarStarvation(monitor, seguro, tipoDefesa, out);
+                        default -> executarStressTest(monitor, seguro, tipoDefesa, threadsStress, out);
+                    }
+                    monitor.log("MAIN", EventType.SYSTEM_END, "Cenário " + contexto + " terminado");
+                    resumos[indice] = monitor.report();
+                    monitor.shutdown();
+                }, "Matriz-" + contexto);
+                execucoes[indice].start();
+            }
+        }
+
+        for (Thread t : execucoes) {
+            try { t.join(); } catch (InterruptedException e) {}
+        }
+        long ms = (System.nanoTime() - inicio) / 1_000_000;
+
+        for (int i = 0; i < execucoes.length; i++) {
+            System.out.println("\n--- " + execucoes[i].getName().substring("Matriz-".length()) + " ---");
+            System.out.print(relatorios[i].toString(StandardCharsets.UTF_8));
+            if (resumos[i] != null) agregador.add(resumos[i]);
+        }
+        agregador.print(System.out);
+        System.out.println("Matriz concluída em " + ms + " ms.");
+        eBPFMonitor.getInstance().log("MAIN", EventType.RESULT, "Matriz de cenários finalizada em " + ms + "ms");
+    }
+
+    /**
+     * Executa o <b>Banco com Milhões de Contas</b>.
+     * <p>
+     * Os saldos de 1M-10M contas ficam fora do heap ({@link BancoOffHeap}) e são protegidos por um número fixo de
+     * locks repartidos. A mesma carga (depósitos, levantamentos e transferências com contas escolhidas por Zipf)
+     * corre para vários números de stripes, mostrando o throughput e a memória de cada configuração, comparada com
+     * o heap que custaria um objeto {@link ContaConjunta} (com o seu Semáforo) por conta.
+     */
+    private static void runBancoOffHeap() {
+        Scanner scanner = new Scanner(System.in);
+        int processadores = Runtime.getRuntime().availableProcessors();
+
+        System.out.println("\n>>> BANCO COM MILHÕES DE CONTAS <<<");
+        System.out.print("Número de contas (Enter = 1000000): ");
+        int numContas = (int) Math.max(2, lerNumero(scanner, 1_000_000));
+        System.out.print("Threads (Enter = " + Math.max(4, 2 * processadores) + "): ");
+        int numThreads = (int) Math.max(1, lerNumero(scanner, Math.max(4, 2 * processadores)));
+        System.out.print("Operações por thread (Enter = 200000): ");
+        int operacoes = (int) Math.max(1, lerNumero(scanner, 200_000));
+        System.out.print("Expoente de Zipf (Enter = 0.99): ");
+        double expoente = 0.99;
+        try {
+            String input = scanner.nextLine();
+            if (!input.isEmpty()) expoente = Double.parseDouble(input.replace(',', '.'));
+        } catch (NumberFormatException e) {}
+
+        int[] stripes = {1, 16, 256, 4096};
+        executarBancoOffHeap(eBPFMonitor.getInstance(), numContas, numThreads, operacoes, expoente, stripes, System.out);
+    }
+
+    /**
+     * Corpo do Banco com Milhões de Contas, sem interação com o utilizador.
+     *
+     * @param stripes Números de stripes a comparar (os saldos são reaproveitados entre execuções).
+     */
+    private static void executarBancoOffHeap(eBPFMonitor monitor, int numContas, int numThreads, int operacoes,
+                                             double expoente, int[] stripes, PrintStream out) {
+        long saldoInicial = 1000;
+        int percentDepositos = 40, percentLevantamentos = 30; // restantes 30% são transferências
+
+        // Referência: quanto heap custaria um objeto por conta (medido numa amostra, com a referência no array)
+        int amostra = Math.min(numContas, 100_000);
+        long antes = bytesAlocados();
+        ContaConjunta[] contas = new ContaConjunta[amostra];
+        for (int i = 0; i < amostra; i++) contas[i] = new ContaConjunta();
+        long bytesPorObjeto = (bytesAlocados() - antes) / contas.length;
+
+        antes = bytesAlocados();
+        BancoOffHeap base = new BancoOffHeap(numContas, 1, saldoInicial);
+        long heapBase = bytesAlocados() - antes;
+
+        ZipfGenerator zipf = new ZipfGenerator(numContas, expoente);
+        boolean silencioso = monitor.isSilentMode();
+        monitor.setSilentMode(true);
+
+        out.println("Contas: " + numContas + " | Threads: " + numThreads + " x " + operacoes + " operações | Zipf s="
+                + expoente + " | " + percentDepositos + "% depósitos, " + percentLevantamentos + "% levantamentos, "
+                + (100 - percentDepositos - percentLevantamentos) + "% transferências");
+        out.printf("Saldos off-heap: %.1f MB (ByteBuffer direto) + %d bytes de heap%n",
+                base.bytesOffHeap() / 1_048_576.0, heapBase);
+        out.printf("Um objeto ContaConjunta (+ Semaphore) por conta: ~%d bytes cada, ~%.1f MB de heap%n",
+                bytesPorObjeto, bytesPorObjeto * (double) numContas / 1_048_576.0);
+
+        out.println("\n=== THROUGHPUT POR NÚMERO DE STRIPES ===");
+        out.printf("%-8s | %10s | %12s | %14s | %10s | %10s | %s%n", "Stripes", "Tempo (ms)", "Operações/s",
+                "Transferências", "Recusadas", "Heap locks", "Saldo total");
+
+        for (int numStripes : stripes) {
+            base.preencher(saldoInicial);
+            antes = bytesAlocados();
+            BancoOffHeap banco = base.comStripes(numStripes);
+            long heapLocks = bytesAlocados() - antes;
+
+            BancoWorkload[] workers = new BancoWorkload[numThreads];
+            Thread[] threads = new Thread[numThreads];
+            CountDownLatch partida = new CountDownLatch(1);
+            for (int i = 0; i < numThreads; i++) {
+                BancoWorkload worker = new BancoWorkload(monitor, banco, zipf, operacoes, percentDepositos,
+                        percentLevantamentos);
+                workers[i] = worker;
+                threads[i] = new Thread(() -> {
+                    try { partida.await(); } catch (InterruptedException e) { return; }
+                    worker.run();
+                }, "Banco-" + i);
+                threads[i].start();
+            }
+
+            // Só medimos a partir do momento em que todas as threads já existem
+            long inicio = System.nanoTime();
+            partida.countDown();
+            for (Thread t : threads) {
+                try { t.join(); } catch (InterruptedException e) {}
+            }
+            long nanos = System.nanoTime() - inicio;
+
+            long esperado = numContas * saldoInicial, transferencias = 0, recusadas = 0;
+            for (BancoWorkload w : workers) {
+                esperado += w.getDepositado() - w.getLevantado();
+                transferencias += w.getTransferencias();
+                recusadas += w.getRecusadas();
+            }
+            long total = banco.saldoTotal();
+            long numOperacoes = (long) numThreads * operacoes;
+            monitor.recordThroughput("banco-offheap-" + numStripes + "-stripes", numOperacoes, nanos);
+
+            out.printf("%-8d | %10d | %12d | %14d | %10d | %10s | %s%n", numStripes, nanos / 1_000_000,
+                    eventosPorSegundo(numOperacoes, nanos), transferencias, recusadas, formatarBytes(heapLocks),
+                    total == esperado ? "OK" : "FALHA (" + (total - esperado) + "€)");
+        }
+
+        monitor.setSilentMode(silencioso);
+        monitor.log("MAIN", EventType.RESULT, "Banco off-heap finalizado: " + numContas + " contas");
+    }
+
+    /** Bytes alocados no heap pela thread atual até agora (0 se a JVM não o suportar). */
+    private static long bytesAlocados() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean mx
+                && mx.isThreadAllocatedMemorySupported()) {
+            return mx.getThreadAllocatedBytes(Thread.currentThread().threadId());
+        }
+        return 0;
+    }
+
+    private static String formatarBytes(long bytes) {
+        return bytes < 10 * 1024 ? bytes + " B" : bytes / 1024 + " KB";
+    }
+
+    /**
+     * Executa o <b>Motor de Transferências</b> entre N carteiras com ids numéricos.
+     * <p>
+     * Milhares de transferências concorrentes entre pares aleatórios, com as duas estratégias do
+     * {@link TransferenciaWorker} (ordem global por id e try-lock com backoff exponencial e jitter), para cada
+     * combinação de número de carteiras e de threads. Poucas carteiras e muitas threads dão a contenção máxima.
+     */
+    private static void runMotorTransferencias() {
+        Scanner scanner = new Scanner(System.in);
+
+        System.out.println("\n>>> MOTOR DE TRANSFERÊNCIAS <<<");
+        System.out.print("Carteiras, separadas por vírgulas (Enter = 2,100,10000): ");
+        int[] carteiras = lerLista(scanner, new int[]{2, 100, 10_000}, 2);
+        System.out.print("Threads, separadas por vírgulas (Enter = 4,64,512): ");
+        int[] threads = lerLista(scanner, new int[]{4, 64, 512}, 1);
+        System.out.print("Transferências por thread (Enter = 500): ");
+        int transferencias = (int) Math.max(1, lerNumero(scanner, 500));
+        System.out.print("Timeout do tryAcquire em µs (Enter = 100): ");
+        long timeoutUs = Math.max(0, lerNumero(scanner, 100));
+
+        executarMotorTransferencias(eBPFMonitor.getInstance(), carteiras, threads, transferencias,
+                TimeUnit.MICROSECONDS.toNanos(timeoutUs), System.out);
+    }
+
+    /** Lê uma lista de inteiros separados por vírgulas; Enter ou valor inválido devolve a lista por omissão. */
+    private static int[] lerLista(Scanner scanner, int[] omissao, int minimo) {
+        try {
+            String input = scanner.nextLine().trim();
+            if (input.isEmpty()) return omissao;
+            String[] partes = input.split("\\s*,\\s*");
+            int[] valores = new int[partes.length];
+            for (int i = 0; i < partes.length; i++) valores[i] = Math.max(minimo, Integer.parseInt(partes[i]));
+            return valores;
+        } catch (NumberFormatException e) {
+            return omissao;
+        }
+    }
+
+    /**
+     * Corpo do Motor de Transferências, sem interação com o utilizador.
+     * <p>
+     * No fim de cada execução verifica a partida dobrada: o dinheiro só muda de carteira, por isso a soma dos saldos
+     * tem de ser igual à inicial e nenhuma carteira pode ficar negativa.
+     *
+     * @param timeoutNanos Timeout de cada {@code tryAcquire} na estratégia com backoff.
+     */
+    private static void executarMotorTransferencias(eBPFMonitor monitor, int[] numCarteiras, int[] numThreads,
+                                                    int transferencias, long timeoutNanos, PrintStream out) {
+        long saldoInicial = 1000;
+        boolean silencioso = monitor.isSilentMode();
+        monitor.setSilentMode(true);
+
+        out.println("Transferências por thread: " + transferencias + " | Timeout do tryAcquire: "
+                + timeoutNanos / 1000 + " µs | Máximo de tentativas: " + TransferenciaWorker.MAX_TENTATIVAS);
+        out.println("\n=== THROUGHPUT, REPETIÇÕES E LATÊNCIA POR ESTRATÉGIA ===");
+        out.printf("%-18s | %9s | %7s | %10s | %10s | %10s | %9s | %9s | %9s | %9s | %10s | %s%n",
+                "Estratégia", "Carteiras", "Threads", "Tempo (ms)", "Transf./s", "Retries/tx", "Abortadas",
+                "Sem saldo", "p50 (µs)", "p99 (µs)", "p99.9 (µs)", "Total");
+
+        for (int carteiras : numCarteiras) {
+            for (int threads : numThreads) {
+                for (TransferenciaWorker.Estrategia estrategia : TransferenciaWorker.Estrategia.values()) {
+                    CarteiraCliente[] wallets = new CarteiraCliente[carteiras];
+                    for (int i = 0; i < carteiras; i++) {
+                        wallets[i] = new CarteiraCliente(i, "Cliente-" + i, saldoInicial);
+                    }
+
+                    TransferenciaWorker[] workers = new TransferenciaWorker[threads];
+                    Thread[] execucoes = new Thread[threads];
+                    CountDownLatch partida = new CountDownLatch(1);
+                    for (int i = 0; i < threads; i++) {
+                        TransferenciaWorker worker = new TransferenciaWorker(monitor, wallets, transferencias,
+                                estrategia, timeoutNanos);
+                        workers[i] = worker;
+                        execucoes[i] = new Thread(() -> {
+                            try { partida.await(); } catch (InterruptedException e) { return; }
+                            worker.run();
+                        }, "Transferencia-" + i);
+                        execucoes[i].start();
+                    }
+
+                    long inicio = System.nanoTime();
+                    partida.countDown();
+                    for (Thread t : execucoes) {
+                        try { t.join(); } catch (InterruptedException e) {}
+                    }
+                    long nanos = System.nanoTime() - inicio;
+
+                    long concluidas = 0, recusadas = 0, falhadas = 0, abortadas = 0;
+                    LatencyHistogram latencias = new LatencyHistogram();
+                    for (TransferenciaWorker w : workers) {
+                        latencias.add(w.getLatencias());
+                        concluidas += w.getConcluidas();
+                        recusadas += w.getRecusadas();
+                        falhadas += w.getTentativasFalhadas();
+                        abortadas += w.getAbortadas();
+                    }
+
+                    long total = 0;
+                    boolean negativa = false;
+                    for (CarteiraCliente c : wallets) {
+                        total += c.getSaldo();
+                        negativa |= c.getSaldo() < 0;
+                    }
+                    long esperado = carteiras * saldoInicial;
+                    String verificacao = total == esperado && !negativa ? "OK"
+                            : "FALHA (" + (total - esperado) + "€" + (negativa ? ", saldo negativo" : "") + ")";
+
+                    long numTransferencias = (long) threads * transferencias;
+                    String nome = estrategia == TransferenciaWorker.Estrategia.ORDEM_ID ? "ordem-id" : "try-lock";
+                    monitor.recordThroughput("transferencias-" + nome + "-" + carteiras + "c-" + threads + "t",
+                            concluidas, nanos);
+
+                    out.printf("%-18s | %9d | %7d | %10d | %10d | %10.3f | %9d | %9d | %9.1f | %9.1f | %10.1f | %s%n",
+                            estrategia.getNome(), carteiras, threads, nanos / 1_000_000,
+                            eventosPorSegundo(concluidas, nanos), falhadas / (double) numTransferencias, abortadas,
+                            recusadas, latencias.percentile(0.50) / 1000.0, latencias.percentile(0.99) / 1000.0,
+                            latencias.percentile(0.999) / 1000.0, verificacao);
+                }
+            }
+        }
+
+        monitor.flush();
+        monitor.setSilentMode(silencioso);
+        monitor.log("MAIN", EventType.RESULT, "Motor de transferências finalizado");
+    }
+
+    /**
+     * Executa o <b>Departamento de Crédito com Balcões</b>.
+     * <p>
+     * Clientes de várias classes (ex: VIP e Normal) pedem balcões em ciclo fechado, com uma carga oferecida muito
+     * acima da capacidade. Compara o escalonador por classes ({@link DepartamentoCreditoBalcoes}: filas pesadas e
+     * envelhecimento) com o Semáforo justo e o Ticket Lock, que ignoram a classe do cliente.
+     */
+    private static void runDepartamentoBalcoes() {
+        Scanner scanner = new Scanner(System.in);
+
+        System.out.println("\n>>> DEPARTAMENTO DE CRÉDITO COM BALCÕES <<<");
+        System.out.print("Número de balcões (Enter = 3): ");
+        int balcoes = (int) Math.max(1, lerNumero(scanner, 3));
+        System.out.print("Classes e pesos (Enter = VIP:3,Normal:1): ");
+        String[] nomes = {"VIP", "Normal"};
+        int[] pesos = {3, 1};
+        try {
+            String input = scanner.nextLine().trim();
+            if (!input.isEmpty()) {
+                String[] classes = input.split("\\s*,\\s*");
+                String[] lidos = new String[classes.length];
+                int[] pesosLidos = new int[classes.length];
+                for (int c = 0; c < classes.length; c++) {
+                    String[] partes = classes[c].split(":");
+                    lidos[c] = partes[0].trim();
+                    pesosLidos[c] = partes.length > 1 ? Math.max(1, Integer.parseInt(partes[1].trim())) : 1;
+                }
+                nomes = lidos;
+                pesos = pesosLidos;
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("Input inválido, a usar VIP:3,Normal:1.");
+        }
+        System.out.print("Clientes por classe (Enter = 8): ");
+        int clientes = (int) Math.max(1, lerNumero(scanner, 8));
+        System.out.print("Duração de um atendimento em ms (Enter = 2): ");
+        long servicoMs = Math.max(1, lerNumero(scanner, 2));
+        System.out.print("Envelhecimento em ms, 0 = sem (Enter = 50): ");
+        long envelhecimentoMs = Math.max(0, lerNumero(scanner, 50));
+        System.out.print("Duração de cada medição em ms (Enter = 3000): ");
+        long duracaoMs = Math.max(100, lerNumero(scanner, 3000));
+
+        executarDepartamentoBalcoes(eBPFMonitor.getInstance(), balcoes, nomes, pesos, clientes,
+                TimeUnit.MILLISECONDS.toNanos(servicoMs), TimeUnit.MILLISECONDS.toNanos(envelhecimentoMs),
+                duracaoMs, System.out);
+    }
+
+    /**
+     * Corpo do Departamento de Crédito com Balcões, sem interação com o utilizador.
+     * <p>
+     * Para cada técnica mostra, por classe, o throughput, a quota dos atendimentos e a espera p50/p99/máx., e no fim
+     * o índice de justiça de Jain ponderado: sobre os atendimentos de cada cliente divididos pelo peso da sua classe,
+     * vale 1 quando cada classe recebe exatamente a quota do seu peso e cai até 1/n quando um cliente fica com tudo.
+     */
+    private static void executarDepartamentoBalcoes(eBPFMonitor monitor, int balcoes, String[] nomes, int[] pesos,
+                                                    int clientesPorClasse, long servicoNanos,
+                                                    long envelhecimentoNanos, long duracaoMs, PrintStream out) {
+        int totalClientes = nomes.length * clientesPorClasse;
+        List<String> tecnicas = new ArrayList<>(List.of("Semáforo(1, true)", "Ticket Lock (fila)"));
+        List<Supplier<BalcaoAtendimento>> fabricas = new ArrayList<>(List.of(
+                () -> BalcaoAtendimento.deSemaforo(new Semaphore(1, true)),
+                () -> BalcaoAtendimento.deSenhas(new DepartamentoCreditoFila(totalClientes))));
+        List<Integer> numBalcoes = new ArrayList<>(List.of(1, 1));
+        List<String> contextos = new ArrayList<>(List.of("semaforo-1", "ticket-fila"));
+        if (balcoes > 1) {
+            tecnicas.add("Semáforo(" + balcoes + ", true)");
+            contextos.add("semaforo-" + balcoes);
+            fabricas.add(() -> BalcaoAtendimento.deSemaforo(new Semaphore(balcoes, true)));
+            numBalcoes.add(balcoes);
+        }
+        tecnicas.add("Filas pesadas + aging");
+        fabricas.add(() -> new DepartamentoCreditoBalcoes(balcoes, pesos, envelhecimentoNanos, TimeUnit.NANOSECONDS));
+        numBalcoes.add(balcoes);
+        contextos.add("filas-pesadas-" + balcoes);
+
+        boolean silencioso = monitor.isSilentMode();
+        monitor.setSilentMode(true);
+
+        StringBuilder classes = new StringBuilder();
+        for (int c = 0; c < nomes.length; c++) classes.append(c > 0 ? ", " : "").append(nomes[c]).append(" (peso ")
+                .append(pesos[c]).append(")");
+        out.println("Classes: " + classes + " | " + clientesPorClasse + " clientes por classe | Atendimento: "
+                + servicoNanos / 1_000_000 + " ms | Envelhecimento: " + envelhecimentoNanos / 1_000_000
+                + " ms | Medição: " + duracaoMs + " ms");
+        out.println("\n=== ATENDIMENTO POR CLASSE ===");
+        out.printf("%-22s | %7s | %-10s | %4s | %10s | %9s | %13s | %13s | %13s%n", "Técnica", "Balcões", "Classe",
+                "Peso", "Atend./s", "Quota (%)", "Espera p50 ms", "Espera p99 ms", "Espera máx ms");
+
+        for (int t = 0; t < tecnicas.size(); t++) {
+            BalcaoAtendimento balcao = fabricas.get(t).get();
+            AtomicBoolean parar = new AtomicBoolean();
+            // Clientes intercalados por classe, para nenhuma classe chegar primeiro à fila
+            ClienteBalcao[] workers = new ClienteBalcao[totalClientes];
+            Thread[] execucoes = new Thread[totalClientes];
+            CountDownLatch partida = new CountDownLatch(1);
+            for (int i = 0; i < totalClientes; i++) {
+                int classe = i % nomes.length;
+                ClienteBalcao worker = new ClienteBalcao(monitor, balcao, classe, servicoNanos, parar);
+                workers[i] = worker;
+                execucoes[i] = new Thread(() -> {
+                    try { partida.await(); } catch (InterruptedException e) { return; }
+                    worker.run();
+                }, "Cliente-" + nomes[classe] + "-" + i / nomes.length);
+                execucoes[i].start();
+            }
+
+            long inicio = System.nanoTime();
+            partida.countDown();
+            try { Thread.sleep(duracaoMs); } catch (InterruptedException e) {}
+            parar.set(true);
+            for (Thread th : execucoes) {
+                try { th.join(); } catch (InterruptedException e) {}
+            }
+            long nanos = System.nanoTime() - inicio;
+
+            long[] porClasse = new long[nomes.length];
+            LatencyHistogram[] esperas = new LatencyHistogram[nomes.length];
+            for (int c = 0; c < nomes.length; c++) esperas[c] = new LatencyHistogram();
+            long total = 0;
+            double soma = 0, somaQuadrados = 0;
+            for (ClienteBalcao w : workers) {
+                porClasse[w.getClasse()] += w.getAtendimentos();
+                esperas[w.getClasse()].add(w.getEspera());
+                total += w.getAtendimentos();
+                double x = w.getAtendimentos() / (double) pesos[w.getClasse()];
+                soma += x;
+                somaQuadrados += x * x;
+            }
+            double jain = somaQuadrados == 0 ? 0 : soma * soma / (totalClientes * somaQuadrados);
+            monitor.recordThroughput("balcoes-" + contextos.get(t), total, nanos);
+
+            for (int c = 0; c < nomes.length; c++) {
+                out.printf("%-22s | %7d | %-10s | %4d | %10d | %9.1f | %13.2f | %13.2f | %13.2f%n",
+                        c == 0 ? tecnicas.get(t) : "", numBalcoes.get(t), nomes[c], pesos[c],
+                        eventosPorSegundo(porClasse[c], nanos), total == 0 ? 0 : 100.0 * porClasse[c] / total,
+                        esperas[c].percentile(0.50) / 1_000_000.0, esperas[c].percentile(0.99) / 1_000_000.0,
+                        esperas[c].max() / 1_000_000.0);
+            }
+            out.printf("%-22s   Total: %d atend./s | Índice de Jain (ponderado pelos pesos): %.3f%n", "",
+                    eventosPorSegundo(total, nanos), jain);
+        }
+
+        monitor.flush();
+        monitor.setSilentMode(silencioso);
+        monitor.log("MAIN", EventType.RESULT, "Departamento de crédito com balcões finalizado");
+    }
+
+    /**
+     * Mede o throughput do próprio monitor, comparando o caminho <b>síncrono</b> original
+     * (um lock global por evento) com o <b>pipeline assíncrono</b>: ring buffer sem locks
+     * e buffers por thread fundidos por nanoTime.
+     * <p>
+     * Cada worker repete várias vezes a sequência de eventos de um depósito seguro (INIT, WAIT,
+     * LOCK_ACQUIRED, WORK, LOCK_RELEASE) sem latência simulada, para que o custo medido seja
+     * apenas o do logging e não o arranque das threads.
+     * São apresentados dois valores:
+     * <ul>
+     * <li><b>Publicação:</b> eventos/s vistos pelas threads de trabalho.</li>
+     * <li><b>Fim-a-fim:</b> eventos/s até o último evento estar escrito no JSON.</li>
+     * </ul>
+     */
+    private static void runMonitorBenchmark() {
+        eBPFMonitor monitor = eBPFMonitor.getInstance();
+        int[] cargas = {100, 1000, 10000};
+        int depositosPorWorker = 20;
+        int eventosPorWorker = depositosPorWorker * 5;
+
+        System.out.println("\n>>> BENCHMARK DO MONITOR <<<");
+        System.out.println("Consola em modo SILENCIOSO durante as medições.");
+        monitor.setSilentMode(true);
+
+        String[] modos = {"monitor-sincrono", "monitor-ringbuffer", "monitor-buffers-locais"};
+        long[][] resultados = new long[cargas.length][modos.length * 2];
+
+        for (int c = 0; c < cargas.length; c++) {
+            for (int modo = 0; modo < modos.length; modo++) {
+                monitor.setAsyncMode(modo > 0);
+                monitor.setThreadLocalBuffers(modo == 2);
+
+                int numThreads = cargas[c];
+                Thread[] threads = new Thread[numThreads];
+                java.util.concurrent.CountDownLatch partida = new java.util.concurrent.CountDownLatch(1);
+
+                for (int i = 0; i < numThreads; i++) {
+                    threads[i] = new Thread(() -> {
+                        String nome = Thread.currentThread().getName();
+                        try { partida.await(); } catch (InterruptedException e) { return; }
+                        for (int d = 0; d < depositosPorWorker; d++) {
+                            monitor.log(nome, EventType.INIT, "Depósito de 1€");
+                            monitor.log(nome, EventType.WAIT, "a aguardar permissão...");
+                            monitor.log(nome, EventType.LOCK_ACQUIRED, "permissão obtida");
+                            monitor.log(nome, EventType.WORK, "Saldo atualizado");
+                            monitor.log(nome, EventType.LOCK_RELEASE, "Saiu da conta");
+                        }
+                    }, "BenchWorker-" + i);
+                    threads[i].start();
+                }
+
+                // Só medimos a partir do momento em que todas as threads já existem
+                long inicio = System.nanoTime();
+                partida.countDown();
+                for (Thread t : threads) {
+                    try { t.join(); } catch (InterruptedException e) {}
+                }
+                long publicado = System.nanoTime();
+                monitor.flush();
+                long escrito = System.nanoTime();
+
+                long eventos = (long) numThreads * eventosPorWorker;
+                monitor.recordThroughput(modos[modo], eventos, escrito - inicio);
+                resultados[c][modo * 2] = eventosPorSegundo(eventos, publicado - inicio);
+                resultados[c][modo * 2 + 1] = eventosPorSegundo(eventos, escrito - inicio);
+            }
+        }
+
+        monitor.setAsyncMode(true);
+        monitor.setThreadLocalBuffers(false);
+        monitor.setSilentMode(false);
+
+        System.out.println("\n=== THROUGHPUT DO MONITOR (eventos/segundo) ===");
+        System.out.printf("%-8s | %-22s | %-22s | %-22s%n", "Workers", "Síncrono (antes)", "Ring Buffer (depois)", "Buffers por Thread");
+        System.out.printf("%-8s | %10s %11s | %10s %11s | %10s %11s%n", "",
+                "publicação", "fim-a-fim", "publicação", "fim-a-fim", "publicação", "fim-a-fim");
+        for (int c = 0; c < cargas.length; c++) {
+            System.out.printf("%-8d | %10d %11d | %10d %11d | %10d %11d%n", cargas[c],
+                    resultados[c][0], resultados[c][1], resultados[c][2], resultados[c][3], resultados[c][4], resultados[c][5]);
+        }
+
+        // Critério: zero bytes alocados por evento, tanto no encoder JSON como no caminho completo
+        // (estatísticas, process() e registo reutilizado entregue aos sinks)
+        double bytesPorEvento = eBPFMonitor.jsonEncoderBytesPerEvent(1_000_000);
+        if (bytesPorEvento >= 0) {
+            System.out.printf("Alocação no encoder JSON: %.3f bytes/evento%n", bytesPorEvento);
+        }
+        double bytesPorLog = eBPFMonitor.processBytesPerEvent(1_000_000);
+        if (bytesPorLog >= 0) {
+            System.out.printf("Alocação no caminho log() -> process() -> sinks: %.3f bytes/evento%n", bytesPorLog);
+        }
+
+        monitor.log("MAIN", EventType.RESULT, "Benchmark do monitor finalizado");
+    }
+
+    private static long eventosPorSegundo(long eventos, long nanos) {
+        return nanos > 0 ? (long) (eventos / (nanos / 1_000_000_000.0)) : 0;
+    }
+}
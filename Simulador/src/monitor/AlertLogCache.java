@@ -0,0 +1,133 @@
+package monitor;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache LRU de ficheiros de alerta abertos ({@code alert_<thread>.log}).
+ * <p>
+ * Em vez de abrir e fechar o ficheiro a cada alerta, cada thread mantém um canal bufferizado aberto.
+ * O número de descritores abertos é limitado; ao exceder o limite, o canal menos usado recentemente
+ * é despejado (flush + close). Um timer faz flush periódico para que os alertas cheguem ao disco
+ * mesmo que a thread não volte a escrever.
+ */
+final class AlertLogCache implements AutoCloseable {
+
+    private final File directory;
+    private final int maxOpenFiles;
+    private final ScheduledExecutorService flusher;
+
+    /** Canais abertos, por ordem de acesso (o primeiro é o candidato a despejo). */
+    private final LinkedHashMap<String, OutputStream> channels;
+
+    /** Nomes de ficheiro já sanitizados (sobrevivem ao despejo do canal). */
+    private final LinkedHashMap<String, String> safeNames;
+
+    /**
+     * @param directory       Pasta onde ficam os ficheiros de alerta.
+     * @param maxOpenFiles    Número máximo de descritores abertos em simultâneo.
+     * @param flushIntervalMs Periodicidade do flush automático.
+     * @param threadName      Nome da thread do flush automático.
+     */
+    AlertLogCache(File directory, int maxOpenFiles, long flushIntervalMs, String threadName) {
+        this.directory = directory;
+        this.maxOpenFiles = Math.max(1, maxOpenFiles);
+
+        this.channels = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, OutputStream> eldest) {
+                if (size() > AlertLogCache.this.maxOpenFiles) {
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.safeNames = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > AlertLogCache.this.maxOpenFiles * 4;
+            }
+        };
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, threadName);
+            t.setDaemon(true);
+            return t;
+        });
+        this.flusher.scheduleAtFixedRate(this::flushAll, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Acrescenta ao ficheiro de alertas da thread uma linha já codificada em UTF-8 (com o fim de linha),
+     * copiada do buffer sem criar uma String.
+     */
+    synchronized void write(String threadName, ByteArrayOutputStream line) throws IOException {
+        OutputStream channel = channels.get(threadName);
+        if (channel == null) {
+            File file = new File(directory, "alert_" + safeName(threadName) + ".log");
+            channel = new BufferedOutputStream(new FileOutputStream(file, true));
+            channels.put(threadName, channel);
+        }
+        line.writeTo(channel);
+    }
+
+    /** Escreve para disco o conteúdo de todos os canais abertos. */
+    synchronized void flushAll() {
+        for (OutputStream channel : channels.values()) {
+            try {
+                channel.flush();
+            } catch (IOException e) {
+                System.err.println("Erro ao escrever log individual: " + e.getMessage());
+            }
+        }
+    }
+
+    /** Número de ficheiros de alerta abertos neste momento. */
+    synchronized int openFiles() {
+        return channels.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        flusher.shutdown();
+        for (OutputStream channel : channels.values()) closeQuietly(channel);
+        channels.clear();
+    }
+
+    /**
+     * Limpa caracteres especiais do nome da thread para criar um ficheiro válido.
+     * Equivalente a {@code replaceAll("[^a-zA-Z0-9.-]", "_")}, mas sem regex e memorizado.
+     */
+    private String safeName(String threadName) {
+        String cached = safeNames.get(threadName);
+        if (cached != null) return cached;
+
+        char[] chars = threadName.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            char c = chars[i];
+            boolean valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '.' || c == '-';
+            if (!valid) chars[i] = '_';
+        }
+        String safe = new String(chars);
+        safeNames.put(threadName, safe);
+        return safe;
+    }
+
+    private static void closeQuietly(OutputStream channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Erro ao fechar log individual: " + e.getMessage());
+        }
+    }
+}
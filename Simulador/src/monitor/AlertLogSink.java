@@ -0,0 +1,52 @@
+package monitor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+
+/**
+ * Segregação de logs: eventos HIGH e CRITICAL também vão para o ficheiro {@code alert_<thread>.log}.
+ * Os canais ficam abertos numa {@link AlertLogCache}; o flush para disco é feito pelo timer da cache.
+ */
+final class AlertLogSink implements EventSink {
+
+    private final AlertLogCache cache;
+
+    // Encoder próprio para gerar a linha de cada alerta, copiada em bytes para o ficheiro da thread
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream(512);
+    private final JsonEventEncoder encoder = new JsonEventEncoder(Channels.newChannel(line), 4096);
+
+    AlertLogSink(File directory, int maxOpenFiles, long flushIntervalMs, String flusherThreadName) {
+        this.cache = new AlertLogCache(directory, maxOpenFiles, flushIntervalMs, flusherThreadName);
+    }
+
+    @Override
+    public String name() {
+        return "alerts";
+    }
+
+    @Override
+    public boolean accepts(SinkEvent event) {
+        return event.severity() != Severity.INFO && !event.synthetic();
+    }
+
+    @Override
+    public void write(SinkEvent event) throws IOException {
+        line.reset();
+        encoder.encode(event.timestampMillis(), event.severity(), event.eventType(), event.threadName(),
+                event.message(), event.blocked());
+        encoder.flush();
+        cache.write(event.threadName(), line);
+    }
+
+    /** Envia para disco os ficheiros de alerta abertos (usado no print()). */
+    void flushAll() {
+        cache.flushAll();
+    }
+
+    @Override
+    public void close() {
+        cache.close();
+    }
+}
@@ -0,0 +1,43 @@
+package monitor;
+
+/**
+ * Sinal de alerta que outras threads (ex: o {@code Main}) podem esperar, em vez de adivinharem
+ * o resultado com um {@code join(timeout)}.
+ * <p>
+ * Guarda quantos alertas já ocorreram e a descrição do último; quem espera indica quantos já
+ * conhecia, por isso nenhum alerta se perde entre a leitura do contador e a espera.
+ */
+final class AlertSignal {
+
+    private long count;
+    private String last;
+
+    synchronized void signal(String description) {
+        last = description;
+        count++;
+        notifyAll();
+    }
+
+    synchronized long count() {
+        return count;
+    }
+
+    synchronized String last() {
+        return last;
+    }
+
+    /**
+     * @param seen      Valor de {@link #count()} conhecido por quem espera.
+     * @param timeoutMs Tempo máximo de espera.
+     * @return true se ocorreu um novo alerta dentro do prazo.
+     */
+    synchronized boolean await(long seen, long timeoutMs) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutMs * 1_000_000L;
+        while (count <= seen) {
+            long remainingMs = (deadline - System.nanoTime()) / 1_000_000L;
+            if (remainingMs <= 0) return false;
+            wait(remainingMs);
+        }
+        return true;
+    }
+}
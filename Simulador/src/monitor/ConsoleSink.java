@@ -0,0 +1,31 @@
+package monitor;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Consola ({@code thread -> mensagem}). No modo silencioso só passam os eventos críticos.
+ * Por omissão usa {@link OverflowPolicy#DROP_INFO}: um terminal lento nunca atrasa o log JSON nem o IPS.
+ */
+final class ConsoleSink implements EventSink {
+
+    private final BooleanSupplier silent;
+
+    ConsoleSink(BooleanSupplier silent) {
+        this.silent = silent;
+    }
+
+    @Override
+    public String name() {
+        return "console";
+    }
+
+    @Override
+    public boolean accepts(SinkEvent event) {
+        return !event.synthetic() && (event.blocked() || !silent.getAsBoolean());
+    }
+
+    @Override
+    public void write(SinkEvent event) {
+        System.out.println(event.threadName() + " -> " + event.message());
+    }
+}
@@ -0,0 +1,148 @@
+package monitor;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Detetor de deadlocks baseado num grafo de espera (wait-for graph) incremental.
+ * <p>
+ * O grafo é mantido a partir dos eventos do monitor:
+ * <ul>
+ * <li><b>WAIT(r):</b> aresta thread → r (a thread está à espera do recurso).</li>
+ * <li><b>LOCK_ACQUIRED(r):</b> remove a espera e regista r → thread (dono).</li>
+ * <li><b>LOCK_RELEASE(r):</b> remove o dono.</li>
+ * </ul>
+ * Como cada thread espera no máximo por um recurso e cada recurso tem no máximo um dono,
+ * a deteção de ciclos na inserção de uma aresta é apenas seguir a cadeia
+ * {@code recurso → dono → recurso de espera do dono → ...}: custo proporcional ao tamanho
+ * da cadeia, independente do número total de carteiras e threads.
+ * <p>
+ * Não é thread-safe: é usado apenas pelo contexto de processamento do monitor.
+ */
+final class DeadlockDetector {
+
+    /** Vértice de uma thread no grafo. */
+    private static final class ThreadNode {
+        final long threadId;
+        final String threadName;
+        String waitingFor;
+        int held;
+
+        ThreadNode(long threadId, String threadName) {
+            this.threadId = threadId;
+            this.threadName = threadName;
+        }
+    }
+
+    /** Ciclo encontrado: threads e recursos pela ordem em que formam a espera circular. */
+    static final class Cycle {
+        final List<String> threads = new ArrayList<>();
+        final List<String> resources = new ArrayList<>();
+        final List<Long> threadIds = new ArrayList<>();
+
+        String describe() {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < threads.size(); i++) {
+                sb.append(threads.get(i)).append(" -> [").append(resources.get(i)).append("] -> ");
+            }
+            return sb.append(threads.get(0)).toString();
+        }
+    }
+
+    private final Map<Long, ThreadNode> threads = new HashMap<>();
+    private final Map<String, ThreadNode> owners = new HashMap<>();
+
+    /**
+     * Regista que a thread ficou à espera do recurso e verifica se isso fecha um ciclo.
+     *
+     * @return o ciclo detetado, ou null.
+     */
+    Cycle onWait(long threadId, String threadName, String resource) {
+        ThreadNode node = node(threadId, threadName);
+        node.waitingFor = resource;
+
+        // Segue a cadeia de donos; se voltarmos à própria thread existe espera circular
+        String current = resource;
+        int limit = owners.size() + 1;
+        for (int steps = 0; steps < limit && current != null; steps++) {
+            ThreadNode owner = owners.get(current);
+            if (owner == null) return null;
+            if (owner == node) return buildCycle(node);
+            current = owner.waitingFor;
+        }
+        return null;
+    }
+
+    void onAcquired(long threadId, String threadName, String resource) {
+        ThreadNode node = node(threadId, threadName);
+        node.waitingFor = null;
+        node.held++;
+        owners.put(resource, node);
+    }
+
+    void onRelease(long threadId, String resource) {
+        ThreadNode node = threads.get(threadId);
+        if (node == null) return;
+        // Só o dono atual pode libertar (o LOCK_RELEASE pode chegar depois do LOCK_ACQUIRED de outra thread)
+        if (owners.get(resource) == node) owners.remove(resource);
+        if (node.held > 0) node.held--;
+        if (node.held == 0 && node.waitingFor == null) threads.remove(threadId);
+    }
+
+    /** A thread deixou de esperar sem adquirir o recurso (interrupção). */
+    void onAbort(long threadId) {
+        ThreadNode node = threads.get(threadId);
+        if (node == null) return;
+        node.waitingFor = null;
+        if (node.held == 0) threads.remove(threadId);
+    }
+
+    /** Número de recursos com dono no grafo (para diagnóstico). */
+    int ownedResources() {
+        return owners.size();
+    }
+
+    private ThreadNode node(long threadId, String threadName) {
+        ThreadNode node = threads.get(threadId);
+        if (node == null) {
+            node = new ThreadNode(threadId, threadName);
+            threads.put(threadId, node);
+        }
+        return node;
+    }
+
+    private Cycle buildCycle(ThreadNode start) {
+        Cycle cycle = new Cycle();
+        ThreadNode current = start;
+        do {
+            cycle.threads.add(current.threadName);
+            cycle.threadIds.add(current.threadId);
+            cycle.resources.add(current.waitingFor);
+            current = owners.get(current.waitingFor);
+        } while (current != null && current != start);
+        return cycle;
+    }
+
+    /**
+     * Verificação cruzada com a JVM ({@link ThreadMXBean#findDeadlockedThreads()}).
+     * <p>
+     * A JVM só vê monitores ({@code synchronized}) e locks do tipo {@code ReentrantLock};
+     * deadlocks com {@code Semaphore} não têm dono e só são visíveis através do grafo do monitor.
+     *
+     * @return quantas das threads do ciclo a JVM também reporta em deadlock.
+     */
+    static int confirmedByJvm(Cycle cycle) {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        long[] deadlocked = bean.findDeadlockedThreads();
+        if (deadlocked == null) return 0;
+        int confirmed = 0;
+        for (long id : deadlocked) {
+            if (cycle.threadIds.contains(id)) confirmed++;
+        }
+        return confirmed;
+    }
+}
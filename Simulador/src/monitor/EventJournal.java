@@ -0,0 +1,210 @@
+package monitor;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Journal binário de eventos em ficheiros mapeados em memória ({@link FileChannel#map}).
+ * <p>
+ * Cada segmento é composto por dois ficheiros:
+ * <ul>
+ * <li><b>segment-NNNNNN.rec:</b> cabeçalho + registos de tamanho fixo ({@link #RECORD_SIZE} bytes).</li>
+ * <li><b>segment-NNNNNN.str:</b> bytes UTF-8 do nome da thread e da mensagem, referenciados pelos registos.</li>
+ * </ul>
+ * Layout de um registo (little-endian):
+ * <pre>
+ *  0 int   marca de commit (0 = vazio, COMMIT = registo, ROLL = segmento terminado)
+ *  4 int   ordinal do EventType
+ *  8 long  timestamp (epoch ms)
+ * 16 long  System.nanoTime()
+ * 24 long  id da thread
+ * 32 byte  severidade (ordinal de {@link Severity})
+ * 33 byte  ação (0 ALLOW, 1 BLOCK)
+ * 36 int   comprimento do nome da thread (bytes)
+ * 40 long  offset no ficheiro .str
+ * 48 int   comprimento da mensagem (bytes)
+ * 52 int   peso de amostragem (0 em journals antigos = 1)
+ * </pre>
+ * A marca de commit é escrita por último com semântica <i>release</i>, por isso um leitor noutra JVM
+ * ({@link JournalTail}) nunca vê um registo incompleto. Quando um dos ficheiros enche, é escrita uma
+ * marca ROLL e a escrita continua no segmento seguinte; o {@link #close()} também termina o segmento com ROLL,
+ * porque a execução seguinte começa num segmento novo.
+ * <p>
+ * Não é thread-safe: é usado apenas a partir do contexto de processamento do monitor (escritor único).
+ */
+public final class EventJournal implements AutoCloseable {
+
+    public static final int RECORD_SIZE = 64;
+    public static final int HEADER_SIZE = 64;
+    static final long MAGIC = 0x4C4E524A46504265L; // "eBPFJRNL" em little-endian
+    static final int COMMIT = 0x5245434F;
+    static final int ROLL = 0x4C4C4F52;
+
+    /** Escritas ordenadas sobre o buffer mapeado (necessário para a marca de commit). */
+    static final VarHandle INT_VIEW = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final File directory;
+    private final int recordsPerSegment;
+    private final int stringBytesPerSegment;
+
+    private int segmentIndex;
+    private MappedByteBuffer records;
+    private MappedByteBuffer strings;
+    private int recordCount;
+
+    /**
+     * @param directory             Pasta dos segmentos (criada se não existir).
+     * @param recordsPerSegment     Número de registos por segmento.
+     * @param stringBytesPerSegment Capacidade do ficheiro de strings de cada segmento.
+     */
+    public EventJournal(File directory, int recordsPerSegment, int stringBytesPerSegment) throws IOException {
+        this.directory = directory;
+        this.recordsPerSegment = recordsPerSegment;
+        this.stringBytesPerSegment = stringBytesPerSegment;
+        if (!directory.exists()) directory.mkdirs();
+
+        // Nunca reescrevemos segmentos de execuções anteriores: começamos no seguinte ao último
+        this.segmentIndex = lastSegmentIndex(directory) + 1;
+        openSegment();
+    }
+
+    /**
+     * Acrescenta um evento ao journal.
+     *
+     * @param severity Ordinal de {@link Severity}.
+     * @param action   0 ALLOW, 1 BLOCK.
+     */
+    public void append(long timestampMillis, long nanoTime, long threadId, String threadName,
+                       EventType eventType, int severity, int action, String message) throws IOException {
+        append(timestampMillis, nanoTime, threadId, threadName, eventType, severity, action, message, 1);
+    }
+
+    /**
+     * @param sampledWeight Número de eventos que este registo representa (amostragem).
+     */
+    public void append(long timestampMillis, long nanoTime, long threadId, String threadName,
+                       EventType eventType, int severity, int action, String message, int sampledWeight) throws IOException {
+        byte[] nameBytes = threadName.getBytes(StandardCharsets.UTF_8);
+        byte[] msgBytes = message.getBytes(StandardCharsets.UTF_8);
+
+        // Uma mensagem maior do que um segmento inteiro nunca caberia: é truncada
+        int maxMsg = stringBytesPerSegment - nameBytes.length;
+        if (msgBytes.length > maxMsg) {
+            msgBytes = java.util.Arrays.copyOf(msgBytes, Math.max(0, maxMsg));
+        }
+
+        if (recordCount == recordsPerSegment || strings.remaining() < nameBytes.length + msgBytes.length) {
+            roll();
+        }
+
+        long stringOffset = strings.position();
+        strings.put(nameBytes).put(msgBytes);
+
+        int base = HEADER_SIZE + recordCount * RECORD_SIZE;
+        records.putInt(base + 4, eventType.ordinal());
+        records.putLong(base + 8, timestampMillis);
+        records.putLong(base + 16, nanoTime);
+        records.putLong(base + 24, threadId);
+        records.put(base + 32, (byte) severity);
+        records.put(base + 33, (byte) action);
+        records.putInt(base + 36, nameBytes.length);
+        records.putLong(base + 40, stringOffset);
+        records.putInt(base + 48, msgBytes.length);
+        records.putInt(base + 52, sampledWeight);
+        INT_VIEW.setRelease(records, base, COMMIT);
+        recordCount++;
+    }
+
+    /** Força a escrita das páginas sujas para disco. */
+    public void force() {
+        if (records == null) return; // já fechado
+        records.force();
+        strings.force();
+    }
+
+    /**
+     * Termina o segmento atual com uma marca ROLL, para que um leitor passe ao segmento seguinte
+     * (a próxima execução escreve sempre num segmento novo).
+     */
+    @Override
+    public void close() {
+        if (records == null) return;
+        int base = HEADER_SIZE + recordCount * RECORD_SIZE;
+        INT_VIEW.setRelease(records, base, ROLL);
+        force();
+        records = null;
+        strings = null;
+    }
+
+    private void roll() throws IOException {
+        force();
+        // O ficheiro tem sempre um slot extra, por isso a marca ROLL cabe mesmo com o segmento cheio
+        int base = HEADER_SIZE + recordCount * RECORD_SIZE;
+        INT_VIEW.setRelease(records, base, ROLL);
+        segmentIndex++;
+        openSegment();
+    }
+
+    private void openSegment() throws IOException {
+        long recordFileSize = HEADER_SIZE + (long) (recordsPerSegment + 1) * RECORD_SIZE;
+        records = map(recordFile(directory, segmentIndex), recordFileSize);
+        strings = map(stringFile(directory, segmentIndex), stringBytesPerSegment);
+        recordCount = 0;
+
+        records.putLong(0, MAGIC);
+        records.putInt(8, segmentIndex);
+        records.putInt(12, recordsPerSegment);
+        records.putInt(16, RECORD_SIZE);
+        records.putInt(20, stringBytesPerSegment);
+    }
+
+    private static MappedByteBuffer map(File file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        }
+    }
+
+    // --- Nomes dos segmentos (partilhados com o JournalTail e o JournalConverter) ---
+
+    static File recordFile(File directory, int index) {
+        return new File(directory, String.format("segment-%06d.rec", index));
+    }
+
+    static File stringFile(File directory, int index) {
+        return new File(directory, String.format("segment-%06d.str", index));
+    }
+
+    static int firstSegmentIndex(File directory) {
+        return scanSegments(directory, true);
+    }
+
+    static int lastSegmentIndex(File directory) {
+        return scanSegments(directory, false);
+    }
+
+    private static int scanSegments(File directory, boolean first) {
+        int result = -1;
+        File[] files = directory.listFiles((dir, name) -> name.startsWith("segment-") && name.endsWith(".rec"));
+        if (files == null) return result;
+        for (File f : files) {
+            String name = f.getName();
+            try {
+                int index = Integer.parseInt(name.substring(8, name.length() - 4));
+                if (result == -1 || (first ? index < result : index > result)) result = index;
+            } catch (NumberFormatException ignored) {
+                // ficheiro estranho na pasta, ignorar
+            }
+        }
+        return result;
+    }
+}
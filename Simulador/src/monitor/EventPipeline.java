@@ -0,0 +1,35 @@
+package monitor;
+
+/**
+ * Caminho entre as threads de trabalho e o contexto de processamento do monitor.
+ * <p>
+ * Implementações:
+ * <ul>
+ * <li>{@link EventRingBuffer}: um anel partilhado, multi-produtor (um CAS por evento).</li>
+ * <li>{@link ThreadLocalEventBuffers}: um buffer por thread, sem sincronização entre produtores,
+ * fundidos por nanoTime numa thread própria.</li>
+ * </ul>
+ * Em ambos os casos o handler corre sempre numa única thread consumidora.
+ */
+interface EventPipeline {
+
+    /** Callback invocado pela thread consumidora para cada evento publicado. */
+    interface EventHandler {
+        void onEvent(MonitorEvent event, boolean endOfBatch);
+    }
+
+    /** Publica um evento. É o único custo pago pela thread de trabalho. */
+    void publish(String threadName, long threadId, ThreadStats stats, EventType eventType, String resource, String message);
+
+    /** Publica uma tarefa de controlo para correr na thread consumidora, depois dos eventos já publicados. */
+    void publishTask(Runnable task);
+
+    /** Bloqueia até que todos os eventos publicados antes desta chamada tenham sido processados. */
+    void drain();
+
+    /** Número de eventos publicados que ainda aguardam processamento. */
+    long backlog();
+
+    /** Processa o que falta e termina a thread consumidora. */
+    void shutdown();
+}
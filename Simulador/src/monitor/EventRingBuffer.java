@@ -0,0 +1,162 @@
+package monitor;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ring buffer pré-alocado, multi-produtor / consumidor único (estilo Disruptor).
+ * <p>
+ * Protocolo:
+ * <ol>
+ * <li><b>Claim:</b> cada produtor reserva uma sequência com um {@code incrementAndGet} no cursor (sem locks).</li>
+ * <li><b>Escrita:</b> preenche o slot {@code seq & mask}, que é exclusivo dele até publicar.</li>
+ * <li><b>Publish:</b> marca o slot com o número da volta ({@code seq >>> shift}) através de um {@code lazySet}.</li>
+ * <li><b>Consumo:</b> a thread consumidora avança enquanto o slot seguinte estiver marcado com a volta esperada.</li>
+ * </ol>
+ * Se o anel estiver cheio o produtor espera (back-pressure) até o consumidor libertar a volta anterior.
+ */
+final class EventRingBuffer implements EventPipeline {
+
+    private final MonitorEvent[] slots;
+    private final int mask;
+    private final int indexShift;
+
+    /** Volta em que cada slot foi publicado (-1 = nunca). */
+    private final AtomicIntegerArray available;
+
+    /** Última sequência reservada pelos produtores. */
+    private final AtomicLong cursor = new AtomicLong(-1);
+
+    /** Última sequência processada pelo consumidor (gating dos produtores). */
+    private final AtomicLong consumed = new AtomicLong(-1);
+
+    private final EventHandler handler;
+    private final Thread consumer;
+    private volatile boolean running = true;
+
+    /**
+     * @param capacity Número de slots (é arredondado para a potência de 2 seguinte).
+     * @param handler  Lógica executada na thread consumidora.
+     * @param name     Nome da thread consumidora.
+     */
+    EventRingBuffer(int capacity, EventHandler handler, String name) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new MonitorEvent[size];
+        for (int i = 0; i < size; i++) slots[i] = new MonitorEvent();
+        this.mask = size - 1;
+        this.indexShift = Integer.numberOfTrailingZeros(size);
+        this.available = new AtomicIntegerArray(size);
+        for (int i = 0; i < size; i++) available.set(i, -1);
+        this.handler = handler;
+
+        this.consumer = new Thread(this::consumeLoop, name);
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    /**
+     * Reserva e publica um evento. É o único custo pago pela thread de trabalho.
+     */
+    @Override
+    public void publish(String threadName, long threadId, ThreadStats stats, EventType eventType, String resource, String message) {
+        long seq = claim();
+        int index = (int) seq & mask;
+        MonitorEvent slot = slots[index];
+        slot.set(threadName, threadId, eventType, message, System.currentTimeMillis(), System.nanoTime());
+        slot.stats = stats;
+        slot.resource = resource;
+        available.lazySet(index, (int) (seq >>> indexShift));
+    }
+
+    /**
+     * Publica uma tarefa de controlo para correr na thread consumidora, na ordem dos eventos
+     * (ex: escrever o estado que só o contexto de processamento pode ler).
+     */
+    @Override
+    public void publishTask(Runnable task) {
+        long seq = claim();
+        int index = (int) seq & mask;
+        slots[index].task = task;
+        available.lazySet(index, (int) (seq >>> indexShift));
+    }
+
+    private long claim() {
+        long seq = cursor.incrementAndGet();
+
+        // Back-pressure: não podemos reescrever um slot que o consumidor ainda não leu
+        long wrapPoint = seq - slots.length;
+        while (wrapPoint > consumed.get()) {
+            LockSupport.parkNanos(1_000);
+        }
+        return seq;
+    }
+
+    /**
+     * Bloqueia até que todos os eventos publicados antes desta chamada tenham sido processados.
+     */
+    @Override
+    public void drain() {
+        if (Thread.currentThread() == consumer) return; // evita auto-espera quando chamado pelo handler
+        long target = cursor.get();
+        while (consumed.get() < target && consumer.isAlive()) {
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    /** Número de eventos publicados que ainda aguardam processamento. */
+    @Override
+    public long backlog() {
+        return cursor.get() - consumed.get();
+    }
+
+    /** Processa o que falta e termina a thread consumidora. */
+    @Override
+    public void shutdown() {
+        drain();
+        running = false;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean isAvailable(long seq) {
+        return available.get((int) seq & mask) == (int) (seq >>> indexShift);
+    }
+
+    private void consumeLoop() {
+        long next = consumed.get() + 1;
+        int idle = 0;
+
+        while (running || isAvailable(next)) {
+            if (!isAvailable(next)) {
+                // Estratégia de espera: spin curto, depois yield, depois park (sem unpark pelos produtores)
+                if (++idle < 100) Thread.onSpinWait();
+                else if (idle < 200) Thread.yield();
+                else LockSupport.parkNanos(50_000);
+                continue;
+            }
+            idle = 0;
+
+            // Processa o lote disponível e só depois liberta os slots aos produtores
+            long batchEnd = next;
+            while (isAvailable(batchEnd + 1)) batchEnd++;
+
+            for (long seq = next; seq <= batchEnd; seq++) {
+                MonitorEvent event = slots[(int) seq & mask];
+                try {
+                    handler.onEvent(event, seq == batchEnd);
+                } catch (RuntimeException e) {
+                    System.err.println("Erro no consumidor do monitor: " + e.getMessage());
+                } finally {
+                    event.clear();
+                }
+            }
+            consumed.lazySet(batchEnd);
+            next = batchEnd + 1;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package monitor;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Amostragem dos eventos INFO antes de qualquer formatação (consola, JSON, journal).
+ * <p>
+ * Duas regras, combinadas:
+ * <ul>
+ * <li><b>Por EventType:</b> 1 em N (determinístico) ou probabilística
+ * ({@code -Debpf.sample.WAIT=10} ou {@code -Debpf.sample.WAIT=0.1}).</li>
+ * <li><b>Por thread:</b> token bucket com taxa e rajada máximas
+ * ({@code -Debpf.rate.perThread=500 -Debpf.rate.burst=50}).</li>
+ * </ul>
+ * Eventos HIGH e CRITICAL são sempre mantidos. Os eventos descartados são acumulados por tipo e somados ao
+ * peso do próximo evento emitido desse tipo, de qualquer thread ({@code sampled_weight}), por isso a soma
+ * dos pesos reconstrói as contagens reais; os descartes ainda pendentes são escritos no resumo do monitor,
+ * num único registo por tipo.
+ * <p>
+ * Só é usado no contexto de processamento; a análise (starvation, deadlocks, IPS) continua a ver todos os eventos.
+ */
+final class EventSampler {
+
+    /** Regras imutáveis, trocadas em bloco pelos setters do monitor. */
+    private static final class Rules {
+        final int[] oneInN = new int[EventType.values().length];
+        final double[] probability = new double[EventType.values().length];
+        double ratePerSecond;
+        double burst;
+        boolean enabled;
+
+        Rules copy() {
+            Rules r = new Rules();
+            System.arraycopy(oneInN, 0, r.oneInN, 0, oneInN.length);
+            System.arraycopy(probability, 0, r.probability, 0, probability.length);
+            r.ratePerSecond = ratePerSecond;
+            r.burst = burst;
+            return r;
+        }
+
+        Rules refresh() {
+            boolean any = ratePerSecond > 0;
+            for (int i = 0; i < oneInN.length; i++) any |= oneInN[i] > 1 || probability[i] < 1.0;
+            enabled = any;
+            return this;
+        }
+    }
+
+    private volatile Rules rules;
+    private final long[] counters = new long[EventType.values().length];
+    /** Eventos descartados por tipo, ainda por somar a um peso. */
+    private final int[] carry = new int[EventType.values().length];
+    private final SplittableRandom random = new SplittableRandom();
+
+    EventSampler() {
+        Rules r = new Rules();
+        for (EventType type : EventType.values()) {
+            r.oneInN[type.ordinal()] = 1;
+            r.probability[type.ordinal()] = 1.0;
+            parseRate(r, type, System.getProperty("ebpf.sample." + type));
+        }
+        r.ratePerSecond = Double.parseDouble(System.getProperty("ebpf.rate.perThread", "0"));
+        r.burst = Double.parseDouble(System.getProperty("ebpf.rate.burst", String.valueOf(Math.max(1, r.ratePerSecond))));
+        this.rules = r.refresh();
+    }
+
+    private static void parseRate(Rules r, EventType type, String value) {
+        if (value == null || value.isEmpty()) return;
+        try {
+            if (value.contains(".")) {
+                r.probability[type.ordinal()] = Math.min(1.0, Math.max(0.0, Double.parseDouble(value)));
+            } else {
+                r.oneInN[type.ordinal()] = Math.max(1, Integer.parseInt(value.trim()));
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("Amostragem inválida para " + type + ": " + value);
+        }
+    }
+
+    synchronized void setOneInN(EventType type, int n) {
+        Rules r = rules.copy();
+        r.oneInN[type.ordinal()] = Math.max(1, n);
+        r.probability[type.ordinal()] = 1.0;
+        rules = r.refresh();
+    }
+
+    synchronized void setProbability(EventType type, double p) {
+        Rules r = rules.copy();
+        r.oneInN[type.ordinal()] = 1;
+        r.probability[type.ordinal()] = Math.min(1.0, Math.max(0.0, p));
+        rules = r.refresh();
+    }
+
+    synchronized void setThreadRate(double perSecond, double burst) {
+        Rules r = rules.copy();
+        r.ratePerSecond = Math.max(0, perSecond);
+        r.burst = Math.max(1, burst);
+        rules = r.refresh();
+    }
+
+    /**
+     * Decide se o evento é emitido.
+     *
+     * @return peso do evento emitido (>= 1), ou 0 se for descartado.
+     */
+    int sample(ThreadStats thread, EventType type, Severity severity, long nanoTime) {
+        Rules r = rules;
+        if (!r.enabled) return 1;
+
+        int ordinal = type.ordinal();
+        if (severity == Severity.INFO && !(keepByType(r, ordinal) && keepByRate(r, thread, nanoTime))) {
+            carry[ordinal]++;
+            return 0;
+        }
+        if (carry[ordinal] == 0) return 1;
+        int weight = 1 + carry[ordinal];
+        carry[ordinal] = 0;
+        return weight;
+    }
+
+    /**
+     * Retira os descartes pendentes de um tipo (para o registo de fecho).
+     *
+     * @return número de eventos descartados ainda não somados a nenhum peso.
+     */
+    int takePending(EventType type) {
+        int pending = carry[type.ordinal()];
+        carry[type.ordinal()] = 0;
+        return pending;
+    }
+
+    private boolean keepByType(Rules r, int ordinal) {
+        int n = r.oneInN[ordinal];
+        if (n > 1) return counters[ordinal]++ % n == 0;
+        double p = r.probability[ordinal];
+        return p >= 1.0 || random.nextDouble() < p;
+    }
+
+    private static boolean keepByRate(Rules r, ThreadStats thread, long nanoTime) {
+        if (r.ratePerSecond <= 0) return true;
+        if (thread.lastRefillNanos == 0) {
+            thread.tokens = r.burst;
+        } else {
+            double refill = (nanoTime - thread.lastRefillNanos) * r.ratePerSecond / 1_000_000_000.0;
+            thread.tokens = Math.min(r.burst, thread.tokens + Math.max(0, refill));
+        }
+        thread.lastRefillNanos = nanoTime;
+        if (thread.tokens < 1.0) return false;
+        thread.tokens -= 1.0;
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        Rules r = rules;
+        StringBuilder sb = new StringBuilder();
+        for (EventType type : EventType.values()) {
+            int i = type.ordinal();
+            if (r.oneInN[i] > 1) sb.append(' ').append(type).append("=1/").append(r.oneInN[i]);
+            else if (r.probability[i] < 1.0) sb.append(' ').append(type).append('=').append(String.format(Locale.ROOT, "%.3f", r.probability[i]));
+        }
+        if (r.ratePerSecond > 0) sb.append(" thread<=").append((long) r.ratePerSecond).append("/s");
+        return sb.length() == 0 ? "desligada" : sb.substring(1);
+    }
+}
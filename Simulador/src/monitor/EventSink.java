@@ -0,0 +1,32 @@
+package monitor;
+
+import java.io.IOException;
+
+/**
+ * Saída do monitor (consola, log JSON, alertas por thread, journal binário...).
+ * <p>
+ * Cada sink registado com {@link eBPFMonitor#addSink} recebe a sua própria fila limitada e thread de escrita,
+ * por isso um sink lento (ex: o terminal) só atrasa a si próprio, de acordo com a sua {@link OverflowPolicy}.
+ * {@link #write} e {@link #flush} são sempre chamados por uma única thread de cada vez.
+ */
+public interface EventSink {
+
+    /** Nome curto usado nas métricas e nas propriedades {@code -Debpf.sink.<nome>.policy|capacity}. */
+    String name();
+
+    /**
+     * Filtro avaliado no contexto de processamento, antes de enfileirar (evita ocupar a fila com
+     * eventos que o sink ia ignorar).
+     */
+    default boolean accepts(SinkEvent event) {
+        return true;
+    }
+
+    /** O registo é reutilizado depois de {@code write()} retornar: copiar o que for preciso guardar. */
+    void write(SinkEvent event) throws IOException;
+
+    /** Chamado no fim de cada lote escrito. */
+    default void flush() throws IOException { }
+
+    default void close() throws IOException { }
+}
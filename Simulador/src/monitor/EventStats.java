@@ -0,0 +1,144 @@
+package monitor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Estatísticas do monitor indexadas pelo id numérico da thread.
+ * <p>
+ * Substitui os mapas {@code String -> Integer/Long}:
+ * <ul>
+ * <li><b>Totais por EventType:</b> {@link LongAdder} (contadores com stripes, sem contenção).</li>
+ * <li><b>Por thread:</b> tabela de endereçamento aberto {@code long -> ThreadStats}; a inserção é feita
+ * com CAS sobre a chave, por isso qualquer thread de trabalho pode atualizar sem o lock do monitor.</li>
+ * </ul>
+ * Quando a tabela atinge 75% de ocupação as threads novas são agregadas numa entrada partilhada, que só acumula
+ * contadores: o estado de processamento dessas threads fica à parte no monitor, por id.
+ * Cada instância é uma "geração": para recomeçar, o monitor troca a instância em vez de limpar contadores.
+ */
+final class EventStats {
+
+    private static final EventType[] TYPES = EventType.values();
+
+    private final LongAdder[] totals = new LongAdder[TYPES.length];
+
+    /** Chaves: id da thread + 1 (0 = slot livre). */
+    private final AtomicLongArray keys;
+    private final AtomicReferenceArray<ThreadStats> values;
+    private final int mask;
+    private final int maxEntries;
+    private final AtomicInteger size = new AtomicInteger();
+    private final ThreadStats overflow = new ThreadStats(-1, "(outras threads)");
+
+    /** Latências de locks por recurso e por classe de thread (ex: VIP vs Normal). */
+    private final ConcurrentHashMap<String, LockLatency> byResource = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LockLatency> byClass = new ConcurrentHashMap<>();
+
+    /** Eventos INFO não escritos por causa da amostragem (contados na análise). */
+    final LongAdder sampledOut = new LongAdder();
+
+    /**
+     * @param capacity Número de slots da tabela por thread (arredondado para potência de 2).
+     */
+    EventStats(int capacity) {
+        int slots = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.keys = new AtomicLongArray(slots);
+        this.values = new AtomicReferenceArray<>(slots);
+        this.mask = slots - 1;
+        this.maxEntries = slots / 4 * 3;
+        for (int i = 0; i < totals.length; i++) totals[i] = new LongAdder();
+    }
+
+    /**
+     * Contabiliza um evento e devolve as estatísticas da thread (para a análise posterior).
+     */
+    ThreadStats record(long threadId, String threadName, EventType type) {
+        ThreadStats stats = lookup(threadId, threadName);
+        stats.counts.incrementAndGet(type.ordinal());
+        totals[type.ordinal()].increment();
+        return stats;
+    }
+
+    private ThreadStats lookup(long threadId, String threadName) {
+        long key = threadId + 1;
+        int index = mix(key) & mask;
+
+        for (int probes = 0; probes <= mask; probes++) {
+            long current = keys.get(index);
+            if (current == key) {
+                return awaitValue(index);
+            }
+            if (current == 0) {
+                if (size.get() >= maxEntries) return overflow;
+                if (keys.compareAndSet(index, 0, key)) {
+                    size.incrementAndGet();
+                    ThreadStats created = new ThreadStats(threadId, threadName);
+                    values.set(index, created);
+                    return created;
+                }
+                if (keys.get(index) == key) return awaitValue(index);
+            }
+            index = (index + 1) & mask; // sondagem linear
+        }
+        return overflow;
+    }
+
+    /** O slot já foi reclamado por outro CAS; espera que o valor seja publicado. */
+    private ThreadStats awaitValue(int index) {
+        ThreadStats stats;
+        while ((stats = values.get(index)) == null) Thread.onSpinWait();
+        return stats;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    LockLatency resourceLatency(String resource) {
+        return byResource.computeIfAbsent(resource, r -> new LockLatency());
+    }
+
+    LockLatency classLatency(String threadClass) {
+        return byClass.computeIfAbsent(threadClass, c -> new LockLatency());
+    }
+
+    // --- Leitura (resumo) ---
+
+    Map<String, LockLatency> latencyByResource() {
+        return new TreeMap<>(byResource);
+    }
+
+    Map<String, LockLatency> latencyByClass() {
+        return new TreeMap<>(byClass);
+    }
+
+    long total(EventType type) {
+        return totals[type.ordinal()].sum();
+    }
+
+    /** Lista das threads com pelo menos um evento registado, incluindo a entrada de overflow. */
+    List<ThreadStats> threads() {
+        List<ThreadStats> result = new ArrayList<>();
+        for (int i = 0; i <= mask; i++) {
+            ThreadStats stats = values.get(i);
+            if (stats != null) result.add(stats);
+        }
+        if (overflowUsed()) result.add(overflow);
+        return result;
+    }
+
+    private boolean overflowUsed() {
+        for (int i = 0; i < TYPES.length; i++) {
+            if (overflow.counts.get(i) != 0) return true;
+        }
+        return false;
+    }
+}
@@ -23,5 +23,9 @@ public enum EventType {
     //segurança
     ALERT_STARVATION,
     DEADLOCK_DETECTED,
-    IPS_BLOCK
+    IPS_BLOCK,
+
+    //contas sem locks: um compare-and-set falhou porque outra thread alterou o valor (contenção)
+    //(no fim da enumeração para não mudar os ordinais gravados nos journals)
+    CAS_RETRY
 }
\ No newline at end of file
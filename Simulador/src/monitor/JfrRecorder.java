@@ -0,0 +1,235 @@
+package monitor;
+
+import jdk.jfr.Category;
+import jdk.jfr.Configuration;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.StackTrace;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.ArrayList;
+
+/**
+ * Backend de instrumentação baseado no JDK Flight Recorder.
+ * <p>
+ * Cada {@code log()} gera um evento JFR <b>na própria thread que o reportou</b>, por isso os eventos
+ * do monitor ficam alinhados na mesma gravação com safepoints, GC e {@code jdk.ThreadPark}:
+ * <ul>
+ * <li><b>ebpf.MonitorEvent:</b> evento instantâneo para qualquer {@link EventType}.</li>
+ * <li><b>ebpf.LockWait / ebpf.LockHold:</b> eventos com duração (WAIT → LOCK_ACQUIRED e
+ * LOCK_ACQUIRED → LOCK_RELEASE), com o estado da thread num {@link ThreadLocal}.</li>
+ * <li><b>ebpf.IpsBlock:</b> atuação do IPS (gerado pelo enforcer, com o id da thread agressora).</li>
+ * <li><b>ebpf.Scenario:</b> duração de um cenário (SYSTEM_START → SYSTEM_END).</li>
+ * </ul>
+ * Selecionado com {@code -Debpf.backend=jfr} (em vez do JSON) ou {@code both}. Se não houver nenhuma
+ * gravação ativa (ex: {@code -XX:StartFlightRecording}), é iniciada uma com a configuração "default".
+ * Essa gravação é do processo, partilhada pelo monitor global e pelos contextos: começa com o primeiro
+ * recorder (no ficheiro dele, ex: {@code logs/eBPFmonitor.jfr}) e só é escrita quando o último é fechado,
+ * ou no fim da JVM.
+ */
+final class JfrRecorder implements AutoCloseable {
+
+    @Name("ebpf.MonitorEvent")
+    @Label("Evento do Monitor")
+    @Category({"eBPF Monitor"})
+    @StackTrace(false)
+    static final class MonitorEventRecord extends Event {
+        @Label("Tipo") String eventType;
+        @Label("Severidade") String severity;
+        @Label("Thread (lógica)") String threadName;
+        @Label("Recurso") String resource;
+        @Label("Mensagem") String message;
+    }
+
+    @Name("ebpf.LockWait")
+    @Label("Espera por Lock")
+    @Description("WAIT até LOCK_ACQUIRED")
+    @Category({"eBPF Monitor", "Locks"})
+    @StackTrace(false)
+    static final class LockWait extends Event {
+        @Label("Thread (lógica)") String threadName;
+        @Label("Recurso") String resource;
+    }
+
+    @Name("ebpf.LockHold")
+    @Label("Posse de Lock")
+    @Description("LOCK_ACQUIRED até LOCK_RELEASE")
+    @Category({"eBPF Monitor", "Locks"})
+    @StackTrace(false)
+    static final class LockHold extends Event {
+        @Label("Thread (lógica)") String threadName;
+        @Label("Recurso") String resource;
+    }
+
+    @Name("ebpf.IpsBlock")
+    @Label("Atuação do IPS")
+    @Category({"eBPF Monitor", "IPS"})
+    @StackTrace(false)
+    static final class IpsBlock extends Event {
+        @Label("Thread agressora") String offender;
+        @Label("Id da thread agressora") long offenderThreadId;
+        @Label("Ação") String action;
+        @Label("Causa") String cause;
+    }
+
+    @Name("ebpf.Scenario")
+    @Label("Cenário")
+    @Category({"eBPF Monitor"})
+    @StackTrace(false)
+    static final class Scenario extends Event {
+        @Label("Descrição") String description;
+    }
+
+    /** Eventos com duração ainda abertos na thread atual. */
+    private static final class ThreadState {
+        LockWait wait;
+        final ArrayList<LockHold> holds = new ArrayList<>(2);
+        Scenario scenario;
+    }
+
+    /** Gravação própria do processo e número de recorders abertos que a usam. */
+    private static final Object RECORDING_LOCK = new Object();
+    private static Recording recording;
+    private static int users;
+
+    private final ThreadLocal<ThreadState> state = ThreadLocal.withInitial(ThreadState::new);
+    private boolean closed;
+
+    /**
+     * @param output Ficheiro da gravação própria (só usado se não houver nenhuma gravação ativa).
+     */
+    JfrRecorder(Path output) {
+        FlightRecorder.register(MonitorEventRecord.class);
+        FlightRecorder.register(LockWait.class);
+        FlightRecorder.register(LockHold.class);
+        FlightRecorder.register(IpsBlock.class);
+        FlightRecorder.register(Scenario.class);
+        synchronized (RECORDING_LOCK) {
+            if (users++ == 0) recording = startRecordingIfNeeded(output);
+        }
+    }
+
+    private static Recording startRecordingIfNeeded(Path output) {
+        for (Recording r : FlightRecorder.getFlightRecorder().getRecordings()) {
+            if (r.getState() == RecordingState.RUNNING) return null; // ex: -XX:StartFlightRecording
+        }
+        try {
+            Recording r = new Recording(Configuration.getConfiguration("default"));
+            r.setName("eBPF Monitor");
+            r.setDestination(output);
+            r.setDumpOnExit(true); // o monitor global pode não chegar a ser fechado
+            r.start();
+            System.out.println("[eBPF] Gravação JFR em " + output);
+            return r;
+        } catch (IOException | ParseException e) {
+            System.err.println("Falha ao iniciar a gravação JFR: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Regista um evento na thread chamadora e abre/fecha os eventos com duração.
+     */
+    void onLog(String threadName, EventType type, Severity severity, String resource, String message) {
+        MonitorEventRecord record = new MonitorEventRecord();
+        if (record.isEnabled()) {
+            record.eventType = type.name();
+            record.severity = severity.name();
+            record.threadName = threadName;
+            record.resource = resource;
+            record.message = message;
+            record.commit();
+        }
+
+        switch (type) {
+            case WAIT -> {
+                LockWait wait = new LockWait();
+                wait.threadName = threadName;
+                wait.resource = resource;
+                wait.begin();
+                state.get().wait = wait;
+            }
+            case LOCK_ACQUIRED -> {
+                ThreadState s = state.get();
+                LockWait wait = s.wait;
+                if (wait != null) {
+                    s.wait = null;
+                    wait.end();
+                    if (wait.shouldCommit()) wait.commit();
+                }
+                LockHold hold = new LockHold();
+                hold.threadName = threadName;
+                hold.resource = resource != null ? resource : wait != null ? wait.resource : null;
+                hold.begin();
+                s.holds.add(hold);
+            }
+            case LOCK_RELEASE -> {
+                LockHold hold = removeHold(state.get().holds, resource);
+                if (hold != null) {
+                    hold.end();
+                    if (hold.shouldCommit()) hold.commit();
+                }
+            }
+            case INTERRUPT -> state.get().wait = null; // desistiu da espera: não há aquisição para fechar
+            case SYSTEM_START -> {
+                Scenario scenario = new Scenario();
+                scenario.description = message;
+                scenario.begin();
+                state.get().scenario = scenario;
+            }
+            case SYSTEM_END -> {
+                ThreadState s = state.get();
+                if (s.scenario != null) {
+                    s.scenario.end();
+                    if (s.scenario.shouldCommit()) s.scenario.commit();
+                    s.scenario = null;
+                }
+            }
+            default -> { }
+        }
+    }
+
+    /** O lock libertado (ou o mais recente, se o recurso não for indicado). */
+    private static LockHold removeHold(ArrayList<LockHold> holds, String resource) {
+        for (int i = holds.size() - 1; i >= 0; i--) {
+            if (resource == null || resource.equals(holds.get(i).resource)) return holds.remove(i);
+        }
+        return null;
+    }
+
+    /**
+     * Regista uma atuação do IPS (chamado pelo enforcer, não pela thread agressora).
+     */
+    void onEnforced(ThreadRegistry.Entry offender, PolicyEngine.Action action, EventType cause) {
+        IpsBlock block = new IpsBlock();
+        if (!block.isEnabled()) return;
+        block.offender = offender.threadName;
+        block.offenderThreadId = offender.threadId;
+        block.action = action.name();
+        block.cause = cause.name();
+        block.commit();
+    }
+
+    /** Liberta a gravação própria; o último recorder a fechar termina-a (escrita no ficheiro de destino). */
+    @Override
+    public void close() {
+        synchronized (RECORDING_LOCK) {
+            if (closed) return;
+            closed = true;
+            if (--users > 0 || recording == null) return;
+            try {
+                recording.stop();
+            } finally {
+                recording.close();
+                recording = null;
+            }
+        }
+    }
+}
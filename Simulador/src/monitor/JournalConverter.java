@@ -0,0 +1,56 @@
+package monitor;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+
+/**
+ * Converte o journal binário para o formato JSON do {@code eBPFlogs.json}, apenas quando é preciso.
+ * <p>
+ * Uso:
+ * <pre>
+ * java -cp out monitor.JournalConverter [pasta] [ficheiro-saida.json]
+ * </pre>
+ * Sem ficheiro de saída, o JSON é escrito no stdout.
+ */
+public final class JournalConverter {
+
+    private JournalConverter() {}
+
+    /**
+     * Codifica um registo exatamente como o monitor o escreve no log JSON.
+     */
+    static void write(JsonEventEncoder encoder, JournalTail.Record r) {
+        try {
+            encoder.encode(r.timestampMillis, r.severity, r.eventType, r.threadName, r.message, r.blocked, r.sampledWeight);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static void flush(JsonEventEncoder encoder) {
+        try {
+            encoder.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        File dir = new File(args.length > 0 ? args[0] : "logs/journal");
+        OutputStream out = args.length > 1 ? new FileOutputStream(args[1]) : System.out;
+        JsonEventEncoder encoder = new JsonEventEncoder(Channels.newChannel(out), 256 * 1024);
+
+        try (JournalTail tail = new JournalTail(dir, true)) {
+            long count = tail.readAvailable(r -> write(encoder, r));
+            encoder.flush();
+            System.err.println("Convertidos " + count + " eventos de " + dir.getPath());
+        } finally {
+            out.flush();
+            if (out != System.out) out.close();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package monitor;
+
+import java.io.IOException;
+
+/**
+ * Journal binário: registos de tamanho fixo em segmentos mapeados em memória ({@link EventJournal}).
+ */
+final class JournalSink implements EventSink {
+
+    private final EventJournal journal;
+
+    JournalSink(EventJournal journal) {
+        this.journal = journal;
+    }
+
+    @Override
+    public String name() {
+        return "journal";
+    }
+
+    @Override
+    public void write(SinkEvent event) throws IOException {
+        journal.append(event.timestampMillis(), event.nanoTime(), event.threadId(), event.threadName(),
+                event.eventType(), event.severity().ordinal(), event.blocked() ? 1 : 0, event.message(), event.weight());
+    }
+
+    @Override
+    public void close() {
+        journal.close();
+    }
+}
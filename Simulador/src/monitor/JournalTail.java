@@ -0,0 +1,205 @@
+package monitor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Leitor do {@link EventJournal} que pode seguir a escrita em tempo real a partir de outra JVM.
+ * <p>
+ * Os segmentos são mapeados só para leitura; como partilham a page cache com o escritor,
+ * um registo fica visível assim que a sua marca de commit é publicada, sem passar por disco.
+ * <p>
+ * Uso (processo separado):
+ * <pre>
+ * java -cp out monitor.JournalTail [pasta] [--inicio]
+ * </pre>
+ */
+public final class JournalTail implements AutoCloseable {
+
+    /** Registo descodificado. O mesmo objeto é reutilizado entre chamadas ao handler. */
+    public static final class Record {
+        public long timestampMillis;
+        public long nanoTime;
+        public long threadId;
+        public String threadName;
+        public EventType eventType;
+        public Severity severity;
+        public boolean blocked;
+        public String message;
+        /** Número de eventos que o registo representa (1 sem amostragem). */
+        public int sampledWeight;
+    }
+
+    /** Callback invocado por cada registo lido. */
+    public interface RecordHandler {
+        void onRecord(Record record);
+    }
+
+    private static final EventType[] TYPES = EventType.values();
+    private static final Severity[] SEVERITIES = Severity.values();
+
+    private final File directory;
+    private final Record record = new Record();
+
+    private int segmentIndex;
+    private MappedByteBuffer records;
+    private MappedByteBuffer strings;
+    private int position;
+
+    /**
+     * @param directory Pasta dos segmentos.
+     * @param fromStart true para ler desde o segmento mais antigo; false para seguir apenas o mais recente.
+     */
+    public JournalTail(File directory, boolean fromStart) {
+        this.directory = directory;
+        this.segmentIndex = fromStart ? EventJournal.firstSegmentIndex(directory) : EventJournal.lastSegmentIndex(directory);
+    }
+
+    /**
+     * Lê todos os registos já publicados e regressa.
+     *
+     * @return número de registos entregues ao handler.
+     */
+    public long readAvailable(RecordHandler handler) throws IOException {
+        long count = 0;
+        while (true) {
+            int state = step(handler);
+            if (state == EventJournal.COMMIT) count++;
+            else if (state != EventJournal.ROLL) return count;
+        }
+    }
+
+    /**
+     * Segue o journal indefinidamente (até a thread ser interrompida), com espera ativa curta
+     * seguida de park para manter a latência baixa sem consumir um core inteiro.
+     */
+    public void follow(RecordHandler handler) throws IOException {
+        int idle = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            int state = step(handler);
+            if (state == EventJournal.COMMIT || state == EventJournal.ROLL) {
+                idle = 0;
+            } else if (++idle < 1000) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(100_000);
+            }
+        }
+    }
+
+    /**
+     * Tenta avançar um registo.
+     *
+     * @return COMMIT se entregou um registo, ROLL se mudou de segmento, 0 se ainda não há dados.
+     */
+    private int step(RecordHandler handler) throws IOException {
+        if (records == null && !openSegment()) return 0;
+
+        int base = EventJournal.HEADER_SIZE + position * EventJournal.RECORD_SIZE;
+        int marker = (int) EventJournal.INT_VIEW.getAcquire(records, base);
+
+        if (marker == EventJournal.ROLL) {
+            segmentIndex++;
+            records = null;
+            strings = null;
+            return EventJournal.ROLL;
+        }
+        if (marker != EventJournal.COMMIT) {
+            // Sem marca ROLL (ex: a JVM que escrevia terminou sem close()), o segmento só está acabado se o
+            // escritor já abriu o seguinte; voltamos a ler a marca para não saltar um registo publicado entretanto
+            if (EventJournal.recordFile(directory, segmentIndex + 1).exists()
+                    && (int) EventJournal.INT_VIEW.getAcquire(records, base) == 0) {
+                segmentIndex++;
+                records = null;
+                strings = null;
+                return EventJournal.ROLL;
+            }
+            return 0;
+        }
+
+        int typeOrdinal = records.getInt(base + 4);
+        record.timestampMillis = records.getLong(base + 8);
+        record.nanoTime = records.getLong(base + 16);
+        record.threadId = records.getLong(base + 24);
+        record.eventType = typeOrdinal < TYPES.length ? TYPES[typeOrdinal] : null;
+        record.severity = SEVERITIES[records.get(base + 32)];
+        record.blocked = records.get(base + 33) == 1;
+        int nameLength = records.getInt(base + 36);
+        int stringOffset = (int) records.getLong(base + 40);
+        int msgLength = records.getInt(base + 48);
+        int weight = records.getInt(base + 52);
+        record.sampledWeight = weight > 0 ? weight : 1;
+        record.threadName = readString(stringOffset, nameLength);
+        record.message = readString(stringOffset + nameLength, msgLength);
+
+        position++;
+        handler.onRecord(record);
+        return EventJournal.COMMIT;
+    }
+
+    private String readString(int offset, int length) {
+        byte[] bytes = new byte[length];
+        strings.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private boolean openSegment() throws IOException {
+        if (segmentIndex < 0) {
+            // Ainda não existia journal quando o leitor arrancou
+            segmentIndex = EventJournal.firstSegmentIndex(directory);
+            if (segmentIndex < 0) return false;
+        }
+        File recFile = EventJournal.recordFile(directory, segmentIndex);
+        File strFile = EventJournal.stringFile(directory, segmentIndex);
+        if (!recFile.exists() || !strFile.exists() || recFile.length() < EventJournal.HEADER_SIZE) return false;
+
+        records = map(recFile);
+        strings = map(strFile);
+        if (records.getLong(0) != EventJournal.MAGIC) {
+            // Cabeçalho ainda não escrito pelo EventJournal: tentamos de novo mais tarde
+            records = null;
+            strings = null;
+            return false;
+        }
+        position = 0;
+        return true;
+    }
+
+    private static MappedByteBuffer map(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        }
+    }
+
+    @Override
+    public void close() {
+        records = null;
+        strings = null;
+    }
+
+    /**
+     * Segue o journal e imprime cada evento no formato JSON do monitor.
+     */
+    public static void main(String[] args) throws IOException {
+        File dir = new File(args.length > 0 && !args[0].startsWith("--") ? args[0] : "logs/journal");
+        boolean fromStart = args.length > 0 && args[args.length - 1].equals("--inicio");
+
+        System.err.println("A seguir o journal em " + dir.getAbsolutePath() + " (Ctrl+C para sair)");
+        JsonEventEncoder encoder = new JsonEventEncoder(Channels.newChannel(System.out), 64 * 1024);
+        try (JournalTail tail = new JournalTail(dir, fromStart)) {
+            tail.follow(r -> {
+                JournalConverter.write(encoder, r);
+                JournalConverter.flush(encoder); // cada evento aparece de imediato
+            });
+        }
+    }
+}
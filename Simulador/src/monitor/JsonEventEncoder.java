@@ -0,0 +1,279 @@
+package monitor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneOffsetTransition;
+
+/**
+ * Codificador JSON sem alocações para o log do monitor.
+ * <p>
+ * Produz exatamente o mesmo formato que o {@code String.format} original, mas:
+ * <ul>
+ * <li>Os nomes de EventType, severidade e ação são arrays UTF-8 pré-calculados.</li>
+ * <li>O timestamp é reconstruído apenas quando muda o segundo (dígitos escritos à mão).</li>
+ * <li>O {@code msg} e o {@code thread} passam por escaping JSON (aspas, barras e caracteres de controlo).</li>
+ * <li>Tudo é escrito diretamente num {@link ByteBuffer} reutilizável, despejado no canal quando enche.</li>
+ * </ul>
+ * Não é thread-safe: cada instância pertence a uma única thread de escrita.
+ */
+final class JsonEventEncoder {
+
+    private static final byte[] PART_TIMESTAMP = ascii("{\"timestamp\": \"");
+    private static final byte[] PART_SEVERITY = ascii("\", \"severity\": \"");
+    private static final byte[] PART_EVENT = ascii("\", \"event\": \"");
+    private static final byte[] PART_THREAD = ascii("\", \"thread\": \"");
+    private static final byte[] PART_MSG = ascii("\", \"msg\": \"");
+    private static final byte[] PART_ACTION = ascii("\", \"action\": \"");
+    private static final byte[] PART_END = ascii("\"}" + System.lineSeparator());
+    private static final byte[] PART_WEIGHT = ascii("\", \"sampled_weight\": ");
+    private static final byte[] PART_END_NUMBER = ascii("}" + System.lineSeparator());
+
+    private static final byte[][] EVENT_NAMES = new byte[EventType.values().length][];
+    private static final byte[][] SEVERITY_NAMES = new byte[Severity.values().length][];
+    private static final byte[] ACTION_ALLOW = ascii("ALLOW");
+    private static final byte[] ACTION_BLOCK = ascii("BLOCK");
+    private static final byte[] HEX = ascii("0123456789abcdef");
+
+    static {
+        for (EventType t : EventType.values()) EVENT_NAMES[t.ordinal()] = ascii(t.name());
+        for (Severity s : Severity.values()) SEVERITY_NAMES[s.ordinal()] = ascii(s.name());
+    }
+
+    private final ByteBuffer buffer;
+    private final WritableByteChannel channel;
+    private final ZoneId zone;
+
+    // Cache do timestamp "yyyy-MM-dd HH:mm:ss" (19 bytes)
+    private final byte[] timestamp = new byte[19];
+    private final byte[] digits = new byte[10];
+    private long cachedSecond = Long.MIN_VALUE;
+
+    // Janela em que a data e o offset do fuso são constantes (até à meia-noite ou à próxima mudança de hora)
+    private long windowStart = Long.MAX_VALUE;
+    private long windowEnd = Long.MIN_VALUE;
+    private int offsetSeconds;
+
+    /**
+     * @param channel  Destino dos bytes (ficheiro de log).
+     * @param capacity Tamanho do buffer reutilizável.
+     */
+    JsonEventEncoder(WritableByteChannel channel, int capacity) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(capacity);
+        this.zone = ZoneId.systemDefault();
+    }
+
+    /**
+     * Acrescenta uma linha JSON ao buffer.
+     */
+    void encode(long timestampMillis, Severity severity, EventType eventType,
+                String threadName, String message, boolean blocked) throws IOException {
+        encode(timestampMillis, severity, eventType, threadName, message, blocked, 1);
+    }
+
+    /**
+     * Acrescenta uma linha JSON ao buffer. Com amostragem, {@code sampledWeight} é o número de eventos
+     * que esta linha representa; só é escrito (campo {@code sampled_weight}) quando for diferente de 1.
+     */
+    void encode(long timestampMillis, Severity severity, EventType eventType,
+                String threadName, String message, boolean blocked, int sampledWeight) throws IOException {
+        updateTimestamp(Math.floorDiv(timestampMillis, 1000));
+
+        put(PART_TIMESTAMP);
+        put(timestamp);
+        put(PART_SEVERITY);
+        put(SEVERITY_NAMES[severity.ordinal()]);
+        put(PART_EVENT);
+        put(EVENT_NAMES[eventType.ordinal()]);
+        put(PART_THREAD);
+        putEscaped(threadName);
+        put(PART_MSG);
+        putEscaped(message);
+        put(PART_ACTION);
+        put(blocked ? ACTION_BLOCK : ACTION_ALLOW);
+        if (sampledWeight == 1) {
+            put(PART_END);
+        } else {
+            put(PART_WEIGHT);
+            putInt(sampledWeight);
+            put(PART_END_NUMBER);
+        }
+    }
+
+    /** Bytes codificados que ainda não foram escritos no canal. */
+    int buffered() {
+        return buffer.position();
+    }
+
+    /** Escreve no canal tudo o que está no buffer. */
+    void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    // --- Escrita no buffer ---
+
+    private void put(byte[] bytes) throws IOException {
+        if (buffer.remaining() < bytes.length) flush();
+        buffer.put(bytes);
+    }
+
+    /** Inteiro não negativo em decimal, sem Strings intermédias. */
+    private void putInt(int value) throws IOException {
+        int pos = digits.length;
+        do {
+            digits[--pos] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        if (buffer.remaining() < digits.length - pos) flush();
+        buffer.put(digits, pos, digits.length - pos);
+    }
+
+    private void putByte(int b) throws IOException {
+        if (!buffer.hasRemaining()) flush();
+        buffer.put((byte) b);
+    }
+
+    /**
+     * Escreve a String em UTF-8 com escaping JSON, carácter a carácter (sem criar arrays intermédios).
+     */
+    private void putEscaped(String s) throws IOException {
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            // Garante espaço para o pior caso de um carácter (\\u00XX ou 4 bytes UTF-8)
+            if (buffer.remaining() < 6) flush();
+            char c = s.charAt(i);
+
+            if (c == '"' || c == '\\') {
+                buffer.put((byte) '\\').put((byte) c);
+            } else if (c < 0x20) {
+                buffer.put((byte) '\\');
+                switch (c) {
+                    case '\n': buffer.put((byte) 'n'); break;
+                    case '\r': buffer.put((byte) 'r'); break;
+                    case '\t': buffer.put((byte) 't'); break;
+                    case '\b': buffer.put((byte) 'b'); break;
+                    case '\f': buffer.put((byte) 'f'); break;
+                    default:
+                        buffer.put((byte) 'u').put((byte) '0').put((byte) '0')
+                                .put(HEX[c >> 4]).put(HEX[c & 0xF]);
+                }
+            } else if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)))
+                        .put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                buffer.put((byte) (0xF0 | (cp >> 18)))
+                        .put((byte) (0x80 | ((cp >> 12) & 0x3F)))
+                        .put((byte) (0x80 | ((cp >> 6) & 0x3F)))
+                        .put((byte) (0x80 | (cp & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                buffer.put((byte) '?'); // surrogate isolado, igual ao comportamento do encoder do JDK
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)))
+                        .put((byte) (0x80 | ((c >> 6) & 0x3F)))
+                        .put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    // --- Timestamp ---
+
+    private void updateTimestamp(long epochSecond) {
+        if (epochSecond == cachedSecond) return;
+        cachedSecond = epochSecond;
+
+        if (epochSecond < windowStart || epochSecond >= windowEnd) {
+            recomputeWindow(epochSecond); // só acontece uma vez por dia (ou numa mudança de hora)
+        }
+
+        int secondOfDay = (int) Math.floorMod(epochSecond + offsetSeconds, 86400L);
+        writeTwoDigits(11, secondOfDay / 3600);
+        writeTwoDigits(14, (secondOfDay / 60) % 60);
+        writeTwoDigits(17, secondOfDay % 60);
+    }
+
+    private void recomputeWindow(long epochSecond) {
+        Instant instant = Instant.ofEpochSecond(epochSecond);
+        ZonedDateTime local = instant.atZone(zone);
+        LocalDate date = local.toLocalDate();
+
+        offsetSeconds = local.getOffset().getTotalSeconds();
+        windowStart = epochSecond - local.toLocalTime().toSecondOfDay();
+        windowEnd = date.plusDays(1).atStartOfDay(zone).toEpochSecond();
+        ZoneOffsetTransition next = zone.getRules().nextTransition(instant);
+        if (next != null) windowEnd = Math.min(windowEnd, next.toEpochSecond());
+        ZoneOffsetTransition previous = zone.getRules().previousTransition(instant.plusSeconds(1));
+        if (previous != null) windowStart = Math.max(windowStart, previous.toEpochSecond());
+
+        int year = date.getYear();
+        timestamp[0] = (byte) ('0' + year / 1000 % 10);
+        timestamp[1] = (byte) ('0' + year / 100 % 10);
+        timestamp[2] = (byte) ('0' + year / 10 % 10);
+        timestamp[3] = (byte) ('0' + year % 10);
+        timestamp[4] = '-';
+        writeTwoDigits(5, date.getMonthValue());
+        timestamp[7] = '-';
+        writeTwoDigits(8, date.getDayOfMonth());
+        timestamp[10] = ' ';
+        timestamp[13] = ':';
+        timestamp[16] = ':';
+    }
+
+    private void writeTwoDigits(int pos, int value) {
+        timestamp[pos] = (byte) ('0' + value / 10);
+        timestamp[pos + 1] = (byte) ('0' + value % 10);
+    }
+
+    /**
+     * Mede quantos bytes a thread atual aloca, em média, por evento codificado
+     * ({@code ThreadMXBean.getThreadAllocatedBytes}). O objetivo é 0.
+     *
+     * @param events Número de eventos medidos (após aquecimento).
+     * @return bytes alocados por evento, ou -1 se a JVM não suportar a medição.
+     */
+    static double allocatedBytesPerEvent(int events) throws IOException {
+        java.lang.management.ThreadMXBean bean = java.lang.management.ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean mx) || !mx.isThreadAllocatedMemorySupported()) return -1;
+
+        JsonEventEncoder encoder = new JsonEventEncoder(discardChannel(), 64 * 1024);
+        EventType[] types = EventType.values();
+        String thread = "StressWorker-42";
+        String message = "Saldo atualizado: 1500€ \"teste\"";
+
+        // Aquecimento: JIT e cache do timestamp
+        for (int i = 0; i < 200_000; i++) {
+            encoder.encode(System.currentTimeMillis(), Severity.INFO, types[i % types.length], thread, message, false);
+        }
+
+        long id = Thread.currentThread().threadId();
+        long before = mx.getThreadAllocatedBytes(id);
+        for (int i = 0; i < events; i++) {
+            encoder.encode(System.currentTimeMillis(), Severity.INFO, types[i % types.length], thread, message, false);
+        }
+        long after = mx.getThreadAllocatedBytes(id);
+        return (double) (after - before) / events;
+    }
+
+    /** Canal que aceita e descarta todos os bytes (medições sem custo de I/O). */
+    static WritableByteChannel discardChannel() {
+        return new WritableByteChannel() {
+            public int write(ByteBuffer src) { int n = src.remaining(); src.position(src.limit()); return n; }
+            public boolean isOpen() { return true; }
+            public void close() {}
+        };
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,54 @@
+package monitor;
+
+import java.io.IOException;
+
+/**
+ * Log geral em JSON (SIEM), com rotação por tamanho e idade.
+ * Pode ser desligado em tempo de execução (journal binário em modo "only").
+ */
+final class JsonLogSink implements EventSink {
+
+    private final RotatingLogFile file;
+    private final JsonEventEncoder encoder;
+    private volatile boolean enabled = true;
+
+    JsonLogSink(RotatingLogFile file) {
+        this.file = file;
+        this.encoder = new JsonEventEncoder(file, 256 * 1024);
+    }
+
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public String name() {
+        return "json";
+    }
+
+    @Override
+    public boolean accepts(SinkEvent event) {
+        return enabled;
+    }
+
+    @Override
+    public void write(SinkEvent event) throws IOException {
+        // Codificado diretamente em bytes, sem Strings intermédias
+        encoder.encode(event.timestampMillis(), event.severity(), event.eventType(), event.threadName(),
+                event.message(), event.blocked(), event.weight());
+        if (file.needsRotation(encoder.buffered())) flush();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        encoder.flush();
+        // Buffer vazio = fronteira de linha: é o único ponto onde o ficheiro pode rodar
+        file.maybeRotate();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        file.close();
+    }
+}
@@ -0,0 +1,131 @@
+package monitor;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma log-linear (estilo HDR) de latências em nanossegundos.
+ * <p>
+ * Cada potência de 2 é dividida em {@code 2^SUB_BITS} sub-buckets, o que dá um erro relativo
+ * inferior a 1/64 (~1.6%) em qualquer escala, de nanossegundos a horas, com um array fixo.
+ * A gravação é lock-free (um {@code incrementAndGet} num {@link AtomicLongArray}).
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 6;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = (63 - SUB_BITS + 1) * SUB_COUNT + SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder totalCount = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /** Regista um valor (valores negativos são tratados como 0). */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(value));
+        totalCount.increment();
+        // Só um novo máximo escreve: a leitura evita um CAS partilhado em cada gravação
+        if (value > max.get()) max.accumulateAndGet(value, Math::max);
+    }
+
+    /** Junta as contagens de outro histograma a este (usado na agregação). */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = other.counts.get(i);
+            if (c != 0) counts.addAndGet(i, c);
+        }
+        totalCount.add(other.totalCount.sum());
+        max.accumulateAndGet(other.max.get(), Math::max);
+    }
+
+    public long count() {
+        return totalCount.sum();
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * Valor abaixo do qual está a fração {@code p} das amostras.
+     *
+     * @param p Percentil entre 0 e 1 (ex: 0.999 para p99.9).
+     * @return Limite superior do bucket correspondente (em ns), ou 0 se não houver amostras.
+     */
+    public long percentile(double p) {
+        long total = count();
+        if (total == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(p * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) return Math.min(highestValueOf(i), max());
+        }
+        return max();
+    }
+
+    /**
+     * Contagens acumuladas até cada limite, para exportar em buckets fixos (ex: Prometheus).
+     * Um bucket interno conta para um limite quando o seu valor máximo não o excede.
+     *
+     * @param upperBoundsNanos Limites por ordem crescente, em ns.
+     * @return Array com uma posição por limite e, na última, o total (bucket +Inf), lidos na mesma passagem.
+     */
+    public long[] cumulativeCounts(long[] upperBoundsNanos) {
+        long[] result = new long[upperBoundsNanos.length + 1];
+        int bound = 0;
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = counts.get(i);
+            if (c == 0) continue;
+            long high = highestValueOf(i);
+            while (bound < upperBoundsNanos.length && high > upperBoundsNanos[bound]) result[bound++] = seen;
+            seen += c;
+        }
+        while (bound < upperBoundsNanos.length) result[bound++] = seen;
+        result[upperBoundsNanos.length] = seen;
+        return result;
+    }
+
+    /** Soma aproximada dos valores (ponto médio de cada bucket, mesmo erro relativo dos percentis). */
+    public long approximateSum() {
+        long sum = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = counts.get(i);
+            if (c == 0) continue;
+            long low = i == 0 ? 0 : highestValueOf(i - 1) + 1;
+            sum += c * (low + (highestValueOf(i) - low) / 2);
+        }
+        return sum;
+    }
+
+    /**
+     * Linha de resumo em milissegundos: p50, p90, p99, p99.9 e máximo.
+     */
+    public String summary() {
+        return String.format("n=%d p50=%.3f p90=%.3f p99=%.3f p99.9=%.3f max=%.3f ms",
+                count(), ms(percentile(0.50)), ms(percentile(0.90)), ms(percentile(0.99)),
+                ms(percentile(0.999)), ms(max()));
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_COUNT) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);      // >= SUB_BITS
+        int shift = exponent - SUB_BITS;
+        int mantissa = (int) (value >>> shift);                     // [SUB_COUNT, 2*SUB_COUNT)
+        return (shift + 1) * SUB_COUNT + (mantissa - SUB_COUNT);
+    }
+
+    static long highestValueOf(int index) {
+        if (index < SUB_COUNT) return index;
+        int shift = index / SUB_COUNT - 1;
+        long mantissa = index % SUB_COUNT + SUB_COUNT;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,16 @@
+package monitor;
+
+/**
+ * Par de histogramas de um recurso (ou classe de threads):
+ * espera WAIT → LOCK_ACQUIRED e posse LOCK_ACQUIRED → LOCK_RELEASE.
+ */
+public final class LockLatency {
+    public final LatencyHistogram wait = new LatencyHistogram();
+    public final LatencyHistogram hold = new LatencyHistogram();
+
+    /** Junta as amostras de outro par (usado na agregação). */
+    public void add(LockLatency other) {
+        wait.add(other.wait);
+        hold.add(other.hold);
+    }
+}
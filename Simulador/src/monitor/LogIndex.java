@@ -0,0 +1,567 @@
+package monitor;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Índice offline para os logs JSON do monitor ({@code eBPFlogs.json} e {@code alert_*.log}).
+ * <p>
+ * O log é lido com {@link FileChannel#map} e dividido em blocos de linhas completas (~64 KB).
+ * O índice ({@code <log>.idx}) guarda, por bloco:
+ * <ul>
+ * <li><b>Intervalo temporal:</b> timestamp mínimo e máximo (índice de offsets por tempo).</li>
+ * <li><b>Bitmaps:</b> EventTypes e severidades presentes no bloco.</li>
+ * </ul>
+ * e uma lista de blocos por thread (postings). Uma consulta só lê os blocos que podem conter resultados.
+ * <p>
+ * A atualização é incremental: só o último bloco (possivelmente incompleto) e os bytes acrescentados
+ * desde a última indexação são lidos. Se o log tiver sido rodado ou truncado, o índice é refeito.
+ */
+public final class LogIndex {
+
+    private static final int MAGIC = 0x4C494458; // "LIDX"
+    private static final int VERSION = 1;
+    private static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+    private static final long MAP_WINDOW = 256L << 20;
+    private static final int CHUNK_SIZE = 1 << 20;
+    private static final int FINGERPRINT_BYTES = 256;
+
+    private static final Map<String, Integer> EVENT_ORDINALS = new HashMap<>();
+    private static final Map<String, Integer> SEVERITY_ORDINALS = new HashMap<>();
+    static {
+        for (EventType t : EventType.values()) EVENT_ORDINALS.put(t.name(), t.ordinal());
+        for (Severity s : Severity.values()) SEVERITY_ORDINALS.put(s.name(), s.ordinal());
+    }
+
+    /** Bloco de linhas completas do log. */
+    static final class Block {
+        long offset;
+        int length;
+        int lines;
+        long minTime = Long.MAX_VALUE;
+        long maxTime = Long.MIN_VALUE;
+        int eventMask;
+        int severityMask;
+    }
+
+    /** Critérios de uma consulta (null / 0 = sem filtro). */
+    public static final class Query {
+        public String thread;
+        public int eventMask;
+        public int severityMask;
+        /** Limites inclusivos no formato numérico yyyyMMddHHmmss (ver {@link #parseTime}). */
+        public long from = Long.MIN_VALUE;
+        public long to = Long.MAX_VALUE;
+    }
+
+    /** Callback por linha encontrada (bytes UTF-8 da linha, sem o fim de linha). */
+    public interface LineHandler {
+        void onLine(byte[] buffer, int offset, int length);
+    }
+
+    /** Resultado de uma consulta: o que foi lido para chegar às linhas. */
+    public static final class Stats {
+        public long matches;
+        public int blocksRead;
+        public int blocksTotal;
+        public long bytesRead;
+    }
+
+    private final File log;
+    private final File indexFile;
+    private final int blockSize;
+
+    private long indexedBytes;
+    private long fingerprint;
+    private final List<Block> blocks = new ArrayList<>();
+    /** Thread -> blocos onde aparece (ordenados, sem repetições). */
+    private final LinkedHashMap<String, IntList> postings = new LinkedHashMap<>();
+
+    private LogIndex(File log, int blockSize) {
+        this.log = log;
+        this.indexFile = new File(log.getPath() + ".idx");
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Abre o índice do log, atualizando-o com os dados acrescentados desde a última vez.
+     */
+    public static LogIndex open(File log) throws IOException {
+        LogIndex index = new LogIndex(log, DEFAULT_BLOCK_SIZE);
+        if (index.indexFile.exists()) index.load();
+        if (index.update()) index.save();
+        return index;
+    }
+
+    public int blockCount() {
+        return blocks.size();
+    }
+
+    public long indexedBytes() {
+        return indexedBytes;
+    }
+
+    public int threadCount() {
+        return postings.size();
+    }
+
+    // --- Construção incremental ---
+
+    /**
+     * Indexa os bytes novos do log.
+     *
+     * @return true se o índice mudou.
+     */
+    private boolean update() throws IOException {
+        long length = log.length();
+        long currentFingerprint = fingerprint(log);
+
+        if (length < indexedBytes || currentFingerprint != fingerprint) {
+            // Log rodado ou truncado: recomeçar do zero
+            blocks.clear();
+            postings.clear();
+            indexedBytes = 0;
+        }
+        fingerprint = currentFingerprint;
+        if (length == indexedBytes) return false;
+
+        // O último bloco pode ter ficado incompleto: é retirado e volta a ser indexado com os dados novos
+        long start = indexedBytes;
+        if (!blocks.isEmpty() && blocks.get(blocks.size() - 1).length < blockSize) {
+            Block last = blocks.remove(blocks.size() - 1);
+            start = last.offset;
+            int removed = blocks.size();
+            for (IntList list : postings.values()) list.removeFrom(removed);
+            postings.values().removeIf(IntList::isEmpty);
+        }
+
+        try (FileChannel channel = FileChannel.open(log.toPath(), StandardOpenOption.READ)) {
+            scan(channel, start, length);
+        }
+        return true;
+    }
+
+    /**
+     * Percorre o log em janelas mapeadas, linha a linha, e fecha blocos de ~blockSize bytes.
+     * Cada janela é copiada em pedaços para um array, para que o parsing não pague o acesso indexado ao buffer.
+     */
+    private void scan(FileChannel channel, long start, long end) throws IOException {
+        LineParser parser = new LineParser();
+        byte[] chunk = new byte[CHUNK_SIZE];
+        Block block = null;
+        long position = start;
+
+        while (position < end) {
+            long windowSize = Math.min(MAP_WINDOW, end - position);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+            int consumed = 0;
+
+            while (consumed < windowSize) {
+                int n = (int) Math.min(chunk.length, windowSize - consumed);
+                window.get(consumed, chunk, 0, n);
+                int lineStart = 0;
+                for (int i = 0; i < n; i++) {
+                    if (chunk[i] != '\n') continue;
+                    if (block == null) {
+                        block = new Block();
+                        block.offset = position + consumed + lineStart;
+                    }
+                    if (parser.parse(chunk, lineStart, i)) addLine(block, parser);
+                    block.lines++;
+                    block.length = (int) (position + consumed + i + 1 - block.offset);
+                    lineStart = i + 1;
+
+                    if (block.length >= blockSize) {
+                        closeBlock(block);
+                        block = null;
+                    }
+                }
+                if (lineStart == 0) {
+                    if (n == chunk.length) {
+                        chunk = new byte[chunk.length * 2]; // linha maior que o pedaço
+                        continue;
+                    }
+                    break; // linha incompleta no fim (ainda a ser escrita): fica para a próxima atualização
+                }
+                consumed += lineStart;
+            }
+            if (consumed == 0) break;
+            position += consumed;
+            if (consumed < windowSize && position + (windowSize - consumed) >= end) break;
+        }
+        if (block != null) closeBlock(block);
+        indexedBytes = blocks.isEmpty() ? 0 : blocks.get(blocks.size() - 1).offset + blocks.get(blocks.size() - 1).length;
+    }
+
+    private final LinkedHashSet<String> blockThreads = new LinkedHashSet<>();
+
+    private void addLine(Block block, LineParser line) {
+        block.minTime = Math.min(block.minTime, line.time);
+        block.maxTime = Math.max(block.maxTime, line.time);
+        if (line.event >= 0) block.eventMask |= 1 << line.event;
+        if (line.severity >= 0) block.severityMask |= 1 << line.severity;
+        if (line.thread != null) blockThreads.add(line.thread);
+    }
+
+    private void closeBlock(Block block) {
+        int id = blocks.size();
+        blocks.add(block);
+        for (String thread : blockThreads) postings.computeIfAbsent(thread, t -> new IntList()).add(id);
+        blockThreads.clear();
+    }
+
+    // --- Consulta ---
+
+    /**
+     * Procura as linhas que satisfazem a consulta, lendo apenas os blocos candidatos.
+     */
+    public Stats search(Query query, LineHandler handler) throws IOException {
+        Stats stats = new Stats();
+        stats.blocksTotal = blocks.size();
+
+        IntList candidates;
+        if (query.thread != null) {
+            candidates = postings.get(query.thread);
+            if (candidates == null) return stats;
+        } else {
+            candidates = null;
+        }
+
+        LineParser parser = new LineParser();
+        byte[] data = new byte[blockSize * 2];
+        try (FileChannel channel = FileChannel.open(log.toPath(), StandardOpenOption.READ)) {
+            int count = candidates != null ? candidates.size : blocks.size();
+            for (int c = 0; c < count; c++) {
+                Block block = blocks.get(candidates != null ? candidates.values[c] : c);
+                if (block.maxTime < query.from || block.minTime > query.to) continue;
+                if (query.eventMask != 0 && (block.eventMask & query.eventMask) == 0) continue;
+                if (query.severityMask != 0 && (block.severityMask & query.severityMask) == 0) continue;
+
+                if (data.length < block.length) data = new byte[block.length];
+                channel.map(FileChannel.MapMode.READ_ONLY, block.offset, block.length).get(0, data, 0, block.length);
+                stats.blocksRead++;
+                stats.bytesRead += block.length;
+
+                int lineStart = 0;
+                for (int i = 0; i < block.length; i++) {
+                    if (data[i] != '\n') continue;
+                    if (parser.parse(data, lineStart, i) && parser.matches(query)) {
+                        int end = i > lineStart && data[i - 1] == '\r' ? i - 1 : i;
+                        handler.onLine(data, lineStart, end - lineStart);
+                        stats.matches++;
+                    }
+                    lineStart = i + 1;
+                }
+            }
+        }
+        return stats;
+    }
+
+    // --- Persistência ---
+
+    private void save() throws IOException {
+        File tmp = new File(indexFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(blockSize);
+            out.writeLong(indexedBytes);
+            out.writeLong(fingerprint);
+
+            out.writeInt(blocks.size());
+            for (Block b : blocks) {
+                out.writeLong(b.offset);
+                out.writeInt(b.length);
+                out.writeInt(b.lines);
+                out.writeLong(b.minTime);
+                out.writeLong(b.maxTime);
+                out.writeInt(b.eventMask);
+                out.writeByte(b.severityMask);
+            }
+
+            out.writeInt(postings.size());
+            for (Map.Entry<String, IntList> e : postings.entrySet()) {
+                byte[] name = e.getKey().getBytes(StandardCharsets.UTF_8);
+                out.writeShort(name.length);
+                out.write(name);
+                IntList list = e.getValue();
+                out.writeInt(list.size);
+                int previous = 0;
+                for (int i = 0; i < list.size; i++) {
+                    writeVarInt(out, list.values[i] - previous); // deltas pequenos -> 1 byte na maioria
+                    previous = list.values[i];
+                }
+            }
+        }
+        Files.move(tmp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void load() throws IOException {
+        // O índice é lido de uma vez e descodificado em memória (milhares de blocos, sem I/O por campo)
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(indexFile.toPath()));
+        try {
+            if (in.getInt() != MAGIC || in.getInt() != VERSION || in.getInt() != blockSize) return;
+            long bytes = in.getLong();
+            long print = in.getLong();
+
+            int blockCount = in.getInt();
+            List<Block> loaded = new ArrayList<>(blockCount);
+            for (int i = 0; i < blockCount; i++) {
+                Block b = new Block();
+                b.offset = in.getLong();
+                b.length = in.getInt();
+                b.lines = in.getInt();
+                b.minTime = in.getLong();
+                b.maxTime = in.getLong();
+                b.eventMask = in.getInt();
+                b.severityMask = in.get();
+                loaded.add(b);
+            }
+
+            int threadCount = in.getInt();
+            for (int t = 0; t < threadCount; t++) {
+                byte[] name = new byte[in.getShort() & 0xFFFF];
+                in.get(name);
+                int size = in.getInt();
+                IntList list = new IntList();
+                int value = 0;
+                for (int i = 0; i < size; i++) {
+                    value += readVarInt(in);
+                    list.add(value);
+                }
+                postings.put(new String(name, StandardCharsets.UTF_8), list);
+            }
+            blocks.addAll(loaded);
+            indexedBytes = bytes;
+            fingerprint = print;
+        } catch (BufferUnderflowException e) {
+            // Índice corrompido: é reconstruído
+            blocks.clear();
+            postings.clear();
+            indexedBytes = 0;
+        }
+    }
+
+    /** CRC dos primeiros bytes do log, para detetar que o ficheiro foi rodado/substituído. */
+    private static long fingerprint(File log) throws IOException {
+        if (log.length() == 0) return 0;
+        byte[] head = new byte[(int) Math.min(FINGERPRINT_BYTES, log.length())];
+        try (FileInputStream in = new FileInputStream(log)) {
+            int n = in.readNBytes(head, 0, head.length);
+            CRC32 crc = new CRC32();
+            crc.update(head, 0, n);
+            return crc.getValue() ^ ((long) n << 32);
+        }
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.get() & 0xFF;
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+    }
+
+    /**
+     * Converte "yyyy-MM-dd HH:mm:ss" (ou só a data) para o valor numérico yyyyMMddHHmmss usado no índice.
+     *
+     * @param upper true para completar uma data parcial com o fim do dia.
+     */
+    public static long parseTime(String text, boolean upper) {
+        StringBuilder digits = new StringBuilder(14);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') digits.append(c);
+        }
+        String pad = upper ? "99999999999999" : "00000000000000";
+        if (digits.length() > 14) digits.setLength(14);
+        digits.append(pad, digits.length(), 14);
+        return Long.parseLong(digits.toString());
+    }
+
+    public static int eventMask(String csv) {
+        return mask(csv, EVENT_ORDINALS, "EventType");
+    }
+
+    public static int severityMask(String csv) {
+        return mask(csv, SEVERITY_ORDINALS, "Severidade");
+    }
+
+    private static int mask(String csv, Map<String, Integer> ordinals, String label) {
+        int mask = 0;
+        for (String part : csv.split(",")) {
+            Integer ordinal = ordinals.get(part.trim().toUpperCase(Locale.ROOT));
+            if (ordinal == null) throw new IllegalArgumentException(label + " desconhecido: " + part);
+            mask |= 1 << ordinal;
+        }
+        return mask;
+    }
+
+    /**
+     * Lê os campos indexados de uma linha JSON do monitor, sem descodificar a mensagem.
+     * As chaves aparecem sempre pela mesma ordem (ver {@link JsonEventEncoder}).
+     */
+    private static final class LineParser {
+        private static final byte[] KEY_TIMESTAMP = ascii("\"timestamp\": \"");
+        private static final byte[] KEY_SEVERITY = ascii("\"severity\": \"");
+        private static final byte[] KEY_EVENT = ascii("\"event\": \"");
+        private static final byte[] KEY_THREAD = ascii("\"thread\": \"");
+
+        long time;
+        int severity;
+        int event;
+        String thread;
+
+        private byte[] scratch = new byte[256];
+        private final Map<String, String> threadNames = new HashMap<>();
+
+        boolean parse(byte[] buf, int start, int end) {
+            int p = find(buf, start, end, KEY_TIMESTAMP);
+            if (p < 0 || p + 19 > end) return false;
+            time = 0;
+            for (int i = 0; i < 19; i++) {
+                byte b = buf[p + i];
+                if (b >= '0' && b <= '9') time = time * 10 + (b - '0');
+            }
+
+            p = find(buf, p, end, KEY_SEVERITY);
+            if (p < 0) return false;
+            int q = closingQuote(buf, p, end);
+            Integer sev = SEVERITY_ORDINALS.get(ascii(buf, p, q));
+            severity = sev != null ? sev : -1;
+
+            p = find(buf, q, end, KEY_EVENT);
+            if (p < 0) return false;
+            q = closingQuote(buf, p, end);
+            Integer ev = EVENT_ORDINALS.get(ascii(buf, p, q));
+            event = ev != null ? ev : -1;
+
+            p = find(buf, q, end, KEY_THREAD);
+            if (p < 0) return false;
+            thread = unescape(buf, p, end);
+            return true;
+        }
+
+        boolean matches(Query q) {
+            if (time < q.from || time > q.to) return false;
+            if (q.eventMask != 0 && (event < 0 || (q.eventMask & (1 << event)) == 0)) return false;
+            if (q.severityMask != 0 && (severity < 0 || (q.severityMask & (1 << severity)) == 0)) return false;
+            return q.thread == null || q.thread.equals(thread);
+        }
+
+        /** Posição a seguir à chave, ou -1. */
+        private static int find(byte[] buf, int from, int end, byte[] key) {
+            outer:
+            for (int i = from; i + key.length <= end; i++) {
+                for (int k = 0; k < key.length; k++) {
+                    if (buf[i + k] != key[k]) continue outer;
+                }
+                return i + key.length;
+            }
+            return -1;
+        }
+
+        private static int closingQuote(byte[] buf, int from, int end) {
+            int i = from;
+            while (i < end && buf[i] != '"') i++;
+            return i;
+        }
+
+        private static String ascii(byte[] buf, int from, int to) {
+            return new String(buf, from, to - from, StandardCharsets.US_ASCII);
+        }
+
+        /** Nome da thread com o escaping JSON desfeito (\" \\ \\uXXXX). Os nomes repetidos são partilhados. */
+        private String unescape(byte[] buf, int from, int end) {
+            int n = 0;
+            for (int i = from; i < end; i++) {
+                byte b = buf[i];
+                if (b == '"') break;
+                if (b == '\\' && i + 1 < end) {
+                    byte e = buf[++i];
+                    if (e == 'u' && i + 4 < end) {
+                        int cp = Integer.parseInt(new String(new byte[]{buf[i + 1], buf[i + 2], buf[i + 3], buf[i + 4]},
+                                StandardCharsets.US_ASCII), 16);
+                        i += 4;
+                        byte[] utf8 = String.valueOf((char) cp).getBytes(StandardCharsets.UTF_8);
+                        for (byte u : utf8) n = put(n, u);
+                        continue;
+                    }
+                    b = switch (e) {
+                        case 'n' -> '\n';
+                        case 't' -> '\t';
+                        case 'r' -> '\r';
+                        case 'b' -> '\b';
+                        case 'f' -> '\f';
+                        default -> e;
+                    };
+                }
+                n = put(n, b);
+            }
+            String name = new String(scratch, 0, n, StandardCharsets.UTF_8);
+            String shared = threadNames.putIfAbsent(name, name);
+            return shared != null ? shared : name;
+        }
+
+        private int put(int n, byte b) {
+            if (n == scratch.length) scratch = Arrays.copyOf(scratch, n * 2);
+            scratch[n] = b;
+            return n + 1;
+        }
+
+        private static byte[] ascii(String s) {
+            return s.getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    /** Lista de inteiros sem boxing. */
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size > 0 && values[size - 1] == value) return;
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        /** Remove os valores >= {@code from} (a lista está ordenada). */
+        void removeFrom(int from) {
+            while (size > 0 && values[size - 1] >= from) size--;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+    }
+}
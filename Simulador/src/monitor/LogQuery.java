@@ -0,0 +1,115 @@
+package monitor;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Consulta os logs JSON do monitor através do índice {@link LogIndex} (criado/atualizado automaticamente).
+ * <p>
+ * Uso:
+ * <pre>
+ * java -cp out monitor.LogQuery [--log logs/eBPFlogs.json]... [--thread NOME] [--event WAIT,LOCK_ACQUIRED]
+ *                               [--severity HIGH,CRITICAL] [--from "2026-10-17 01:00:00"] [--to "2026-10-17 02:00"]
+ *                               [--count] [--limit N]
+ * </pre>
+ * As linhas encontradas são escritas no stdout; as estatísticas (blocos lidos, tempo) no stderr.
+ */
+public final class LogQuery {
+
+    private LogQuery() {}
+
+    /** Interrompe a pesquisa quando o limite de linhas é atingido. */
+    private static final class LimitReached extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        LimitReached() {
+            super(null, null, false, false);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<File> logs = new ArrayList<>();
+        LogIndex.Query query = new LogIndex.Query();
+        boolean countOnly = false;
+        long limit = Long.MAX_VALUE;
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--count" -> countOnly = true;
+                case "--log", "--thread", "--event", "--severity", "--from", "--to", "--limit" -> {
+                    if (i + 1 >= args.length) usage("Falta o valor de " + arg);
+                    String value = args[++i];
+                    switch (arg) {
+                        case "--log" -> logs.add(new File(value));
+                        case "--thread" -> query.thread = value;
+                        case "--event" -> query.eventMask = LogIndex.eventMask(value);
+                        case "--severity" -> query.severityMask = LogIndex.severityMask(value);
+                        case "--from" -> query.from = LogIndex.parseTime(value, false);
+                        case "--to" -> query.to = LogIndex.parseTime(value, true);
+                        default -> limit = Long.parseLong(value);
+                    }
+                }
+                default -> usage("Opção desconhecida: " + arg);
+            }
+        }
+        if (logs.isEmpty()) logs.add(new File("logs/eBPFlogs.json"));
+
+        OutputStream out = new BufferedOutputStream(System.out, 64 * 1024);
+        long[] printed = {0};
+        final boolean count = countOnly;
+        final long max = limit;
+        LogIndex.LineHandler printer = (line, offset, length) -> {
+            if (printed[0] == max) throw new LimitReached();
+            printed[0]++;
+            if (count) return;
+            try {
+                out.write(line, offset, length);
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+
+        for (File log : logs) {
+            if (!log.isFile()) {
+                System.err.println("Log não encontrado: " + log.getPath());
+                continue;
+            }
+            long before = printed[0];
+            long start = System.nanoTime();
+            LogIndex index = LogIndex.open(log);
+            long indexed = System.nanoTime();
+
+            LogIndex.Stats stats;
+            try {
+                stats = index.search(query, printer);
+            } catch (LimitReached e) {
+                stats = null;
+            }
+            long done = System.nanoTime();
+
+            long matches = printed[0] - before;
+            System.err.printf("%s: %d linhas | índice %.1f ms (%d blocos, %d threads) | pesquisa %.1f ms%s%n",
+                    log.getPath(), matches,
+                    (indexed - start) / 1e6, index.blockCount(), index.threadCount(),
+                    (done - indexed) / 1e6,
+                    stats != null ? String.format(" (%d/%d blocos, %d KB lidos)", stats.blocksRead, stats.blocksTotal, stats.bytesRead / 1024) : " (limite atingido)");
+            if (stats == null) break;
+        }
+        out.flush();
+        if (countOnly) System.out.println(printed[0]);
+    }
+
+    private static void usage(String error) {
+        System.err.println(error);
+        System.err.println("Uso: LogQuery [--log ficheiro]... [--thread NOME] [--event TIPOS] [--severity NÍVEIS] "
+                + "[--from \"yyyy-MM-dd HH:mm:ss\"] [--to ...] [--count] [--limit N]");
+        System.exit(2);
+    }
+}
@@ -0,0 +1,78 @@
+package monitor;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Endpoint HTTP embebido ({@code GET /metrics}) com as métricas do monitor no formato do Prometheus.
+ * <p>
+ * Escuta apenas em localhost e responde numa única thread de baixa prioridade; o scrape lê
+ * contadores lock-free, por isso nunca toma o lock do monitor nem atrasa as threads de trabalho.
+ * Ativado com {@code -Debpf.metrics.port=9464}.
+ */
+final class MetricsServer implements AutoCloseable {
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * @param port       Porta local (0 = escolhida pelo sistema).
+     * @param writer     Escreve o corpo da resposta (chamado em cada scrape).
+     * @param threadName Nome da thread que responde aos pedidos.
+     */
+    MetricsServer(int port, Consumer<StringBuilder> writer, String threadName) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, threadName);
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        server.createContext("/metrics", exchange -> respond(exchange, writer));
+        server.setExecutor(executor);
+        server.start();
+        // Primeira renderização em vazio: carrega as classes (JMX, histogramas) antes do primeiro scrape
+        executor.execute(() -> writer.accept(new StringBuilder()));
+    }
+
+    private static void respond(HttpExchange exchange, Consumer<StringBuilder> writer) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod()) && !"HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            StringBuilder body = new StringBuilder(16 * 1024);
+            writer.accept(body);
+            byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            boolean head = "HEAD".equals(exchange.getRequestMethod());
+            exchange.sendResponseHeaders(200, head ? -1 : bytes.length);
+            if (!head) {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(bytes);
+                }
+            }
+        }
+    }
+
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,41 @@
+package monitor;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+
+/**
+ * Combina os resumos de vários contextos do monitor (ex: cenários executados em paralelo).
+ * Os resumos podem ser adicionados de várias threads.
+ */
+public final class MonitorAggregator {
+
+    private final ArrayList<MonitorReport> reports = new ArrayList<>();
+
+    public synchronized void add(MonitorReport report) {
+        reports.add(report);
+    }
+
+    /** Resumo combinado de todos os contextos adicionados. */
+    public synchronized MonitorReport combined() {
+        return MonitorReport.merge("TOTAL: " + reports.size() + " contextos", reports);
+    }
+
+    /**
+     * Uma linha por contexto com os indicadores principais, seguida do resumo combinado.
+     */
+    public synchronized void print(PrintStream out) {
+        out.println();
+        out.printf("%-28s | %8s | %8s | %10s | %5s | %18s%n",
+                "Contexto", "Eventos", "Deadlock", "Starvation", "IPS", "Espera p99 (ms)");
+        for (MonitorReport r : reports) {
+            long events = 0;
+            for (EventType type : EventType.values()) events += r.total(type);
+            LatencyHistogram wait = new LatencyHistogram();
+            r.latencyByResource().values().forEach(l -> wait.add(l.wait));
+            out.printf("%-28s | %8d | %8d | %10d | %5d | %18.3f%n", r.context(), events,
+                    r.total(EventType.DEADLOCK_DETECTED), r.total(EventType.ALERT_STARVATION), r.ipsEnforced(),
+                    wait.percentile(0.99) / 1e6);
+        }
+        combined().print(out);
+    }
+}
@@ -0,0 +1,43 @@
+package monitor;
+
+/**
+ * Slot reutilizável do pipeline de eventos do monitor.
+ * <p>
+ * Os objetos são reutilizados pelo pipeline ({@link EventRingBuffer}, {@link ThreadLocalEventBuffers})
+ * e reescritos a cada volta do buffer, por isso nunca devem ser guardados fora do handler que os recebe.
+ */
+final class MonitorEvent {
+    String threadName;
+    long threadId;
+    EventType eventType;
+    String resource;
+    String message;
+
+    /** Estatísticas da thread que publicou (resolvidas pelo produtor, sem locks). */
+    ThreadStats stats;
+
+    /** Relógio de parede (para o JSON) e relógio monotónico (para medir latências). */
+    long timestampMillis;
+    long nanoTime;
+
+    /** Tarefa de controlo em vez de um evento (ver {@link EventPipeline#publishTask}). */
+    Runnable task;
+
+    void set(String threadName, long threadId, EventType eventType, String message, long timestampMillis, long nanoTime) {
+        this.threadName = threadName;
+        this.threadId = threadId;
+        this.eventType = eventType;
+        this.message = message;
+        this.timestampMillis = timestampMillis;
+        this.nanoTime = nanoTime;
+    }
+
+    /** Larga as referências para não reter Strings de eventos já processados. */
+    void clear() {
+        threadName = null;
+        resource = null;
+        message = null;
+        stats = null;
+        task = null;
+    }
+}
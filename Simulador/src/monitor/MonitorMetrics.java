@@ -0,0 +1,177 @@
+package monitor;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores cumulativos do monitor para exportação no formato de texto do Prometheus.
+ * <p>
+ * Ao contrário de {@link EventStats}, que é trocado a cada {@code print()}, estes valores nunca
+ * recomeçam (os contadores do Prometheus têm de ser monotónicos). São atualizados no contexto de
+ * processamento com {@link LongAdder} e histogramas lock-free, e lidos pelo scrape sem o lock do monitor.
+ */
+final class MonitorMetrics {
+
+    /** Limites dos buckets exportados, em segundos (os histogramas internos têm resolução muito maior). */
+    private static final double[] BUCKETS_SECONDS = {
+            0.000_001, 0.000_01, 0.000_1, 0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1, 5, 10, 60
+    };
+    private static final long[] BUCKETS_NANOS = new long[BUCKETS_SECONDS.length];
+    static {
+        for (int i = 0; i < BUCKETS_SECONDS.length; i++) BUCKETS_NANOS[i] = Math.round(BUCKETS_SECONDS[i] * 1e9);
+    }
+
+    /** Resultado acumulado de um cenário de carga (stress test, benchmark). */
+    private static final class Throughput {
+        final LongAdder operations = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        volatile double lastPerSecond;
+    }
+
+    private final LongAdder[] events = new LongAdder[EventType.values().length];
+    private final LongAdder[] bySeverity = new LongAdder[Severity.values().length];
+    private final LongAdder sampledOut = new LongAdder();
+    private final LongAdder[] ipsActions = new LongAdder[PolicyEngine.Action.values().length];
+    private final ConcurrentHashMap<String, LockLatency> locks = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Throughput> throughput = new ConcurrentHashMap<>();
+
+    MonitorMetrics() {
+        for (int i = 0; i < events.length; i++) events[i] = new LongAdder();
+        for (int i = 0; i < bySeverity.length; i++) bySeverity[i] = new LongAdder();
+        for (int i = 0; i < ipsActions.length; i++) ipsActions[i] = new LongAdder();
+    }
+
+    void event(EventType type, Severity severity) {
+        events[type.ordinal()].increment();
+        bySeverity[severity.ordinal()].increment();
+    }
+
+    void sampledOut() {
+        sampledOut.increment();
+    }
+
+    LockLatency lock(String resource) {
+        return locks.computeIfAbsent(resource, r -> new LockLatency());
+    }
+
+    void enforced(PolicyEngine.Action action) {
+        ipsActions[action.ordinal()].increment();
+    }
+
+    void throughput(String scenario, long operations, long elapsedNanos) {
+        Throughput t = throughput.computeIfAbsent(scenario, s -> new Throughput());
+        t.operations.add(operations);
+        t.nanos.add(elapsedNanos);
+        if (elapsedNanos > 0) t.lastPerSecond = operations / (elapsedNanos / 1e9);
+    }
+
+    /**
+     * Escreve todas as métricas no formato de texto do Prometheus (versão 0.0.4).
+     */
+    void writeTo(StringBuilder out, ThreadRegistry registry, long ringBacklog, List<SinkChannel> sinks) {
+        header(out, "ebpf_events_total", "counter", "Eventos processados pelo monitor, por EventType.");
+        for (EventType type : EventType.values()) {
+            sample(out, "ebpf_events_total", "event", type.name(), events[type.ordinal()].sum());
+        }
+        header(out, "ebpf_events_by_severity_total", "counter", "Eventos processados, por severidade.");
+        for (Severity severity : Severity.values()) {
+            sample(out, "ebpf_events_by_severity_total", "severity", severity.name(), bySeverity[severity.ordinal()].sum());
+        }
+        header(out, "ebpf_events_sampled_out_total", "counter", "Eventos INFO não escritos por causa da amostragem.");
+        sample(out, "ebpf_events_sampled_out_total", null, null, sampledOut.sum());
+
+        Map<String, LockLatency> byResource = new TreeMap<>(locks);
+        header(out, "ebpf_lock_wait_seconds", "histogram", "Espera WAIT -> LOCK_ACQUIRED, por recurso.");
+        for (Map.Entry<String, LockLatency> e : byResource.entrySet()) histogram(out, "ebpf_lock_wait_seconds", e.getKey(), e.getValue().wait);
+        header(out, "ebpf_lock_hold_seconds", "histogram", "Posse LOCK_ACQUIRED -> LOCK_RELEASE, por recurso.");
+        for (Map.Entry<String, LockLatency> e : byResource.entrySet()) histogram(out, "ebpf_lock_hold_seconds", e.getKey(), e.getValue().hold);
+
+        header(out, "ebpf_ips_enforcements_total", "counter", "Atuações do IPS sobre threads agressoras, por ação.");
+        for (PolicyEngine.Action action : PolicyEngine.Action.values()) {
+            if (action.compareTo(PolicyEngine.Action.INTERRUPT) < 0) continue;
+            sample(out, "ebpf_ips_enforcements_total", "action", action.name(), ipsActions[action.ordinal()].sum());
+        }
+        header(out, "ebpf_ips_blocks_total", "counter", "Eventos IPS_BLOCK registados.");
+        sample(out, "ebpf_ips_blocks_total", null, null, events[EventType.IPS_BLOCK.ordinal()].sum());
+
+        header(out, "ebpf_threads_active", "gauge", "Threads monitorizadas ainda vivas.");
+        sample(out, "ebpf_threads_active", null, null, registry.countAlive());
+        header(out, "ebpf_threads_quarantined", "gauge", "Threads vivas em quarentena pelo IPS.");
+        sample(out, "ebpf_threads_quarantined", null, null, registry.countQuarantined());
+        header(out, "ebpf_jvm_threads_live", "gauge", "Threads vivas na JVM.");
+        sample(out, "ebpf_jvm_threads_live", null, null, ManagementFactory.getThreadMXBean().getThreadCount());
+        header(out, "ebpf_ring_backlog", "gauge", "Eventos publicados que aguardam processamento.");
+        sample(out, "ebpf_ring_backlog", null, null, ringBacklog);
+
+        header(out, "ebpf_sink_queue_depth", "gauge", "Eventos em fila em cada sink.");
+        for (SinkChannel sink : sinks) sample(out, "ebpf_sink_queue_depth", "sink", sink.name(), sink.queueDepth());
+        header(out, "ebpf_sink_written_total", "counter", "Registos escritos por cada sink.");
+        for (SinkChannel sink : sinks) sample(out, "ebpf_sink_written_total", "sink", sink.name(), sink.written());
+        header(out, "ebpf_sink_dropped_total", "counter", "Eventos descartados pela política de cada sink (fila cheia).");
+        for (SinkChannel sink : sinks) sample(out, "ebpf_sink_dropped_total", "sink", sink.name(), sink.dropped());
+        header(out, "ebpf_sink_coalesced_total", "counter", "Eventos INFO agregados no peso de outro registo (fila cheia).");
+        for (SinkChannel sink : sinks) sample(out, "ebpf_sink_coalesced_total", "sink", sink.name(), sink.coalesced());
+        header(out, "ebpf_sink_lag_seconds", "gauge", "Atraso do último lote escrito (evento -> flush do sink).");
+        for (SinkChannel sink : sinks) sample(out, "ebpf_sink_lag_seconds", "sink", sink.name(), sink.lastLagNanos() / 1e9);
+
+        Map<String, Throughput> scenarios = new TreeMap<>(throughput);
+        header(out, "ebpf_stress_operations_total", "counter", "Operações concluídas nos testes de carga, por cenário.");
+        for (Map.Entry<String, Throughput> e : scenarios.entrySet()) {
+            sample(out, "ebpf_stress_operations_total", "scenario", e.getKey(), e.getValue().operations.sum());
+        }
+        header(out, "ebpf_stress_duration_seconds_total", "counter", "Tempo acumulado dos testes de carga, por cenário.");
+        for (Map.Entry<String, Throughput> e : scenarios.entrySet()) {
+            sample(out, "ebpf_stress_duration_seconds_total", "scenario", e.getKey(), e.getValue().nanos.sum() / 1e9);
+        }
+        header(out, "ebpf_stress_throughput_ops_per_second", "gauge", "Throughput da última execução, por cenário.");
+        for (Map.Entry<String, Throughput> e : scenarios.entrySet()) {
+            sample(out, "ebpf_stress_throughput_ops_per_second", "scenario", e.getKey(), e.getValue().lastPerSecond);
+        }
+    }
+
+    private static void histogram(StringBuilder out, String name, String resource, LatencyHistogram histogram) {
+        long[] cumulative = histogram.cumulativeCounts(BUCKETS_NANOS);
+        String label = "resource=\"" + escape(resource) + "\"";
+        for (int i = 0; i < BUCKETS_SECONDS.length; i++) {
+            out.append(name).append("_bucket{").append(label).append(",le=\"").append(format(BUCKETS_SECONDS[i]))
+                    .append("\"} ").append(cumulative[i]).append('\n');
+        }
+        long count = cumulative[BUCKETS_SECONDS.length];
+        out.append(name).append("_bucket{").append(label).append(",le=\"+Inf\"} ").append(count).append('\n');
+        out.append(name).append("_sum{").append(label).append("} ").append(format(histogram.approximateSum() / 1e9)).append('\n');
+        out.append(name).append("_count{").append(label).append("} ").append(count).append('\n');
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String label, String value, long number) {
+        sampleName(out, name, label, value).append(number).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String label, String value, double number) {
+        sampleName(out, name, label, value).append(format(number)).append('\n');
+    }
+
+    private static StringBuilder sampleName(StringBuilder out, String name, String label, String value) {
+        out.append(name);
+        if (label != null) out.append('{').append(label).append("=\"").append(escape(value)).append("\"}");
+        return out.append(' ');
+    }
+
+    private static String format(double value) {
+        return Double.toString(value);
+    }
+
+    /** Escaping dos valores de labels: \, " e fim de linha. */
+    private static String escape(String value) {
+        if (value.indexOf('\\') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) return value;
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,151 @@
+package monitor;
+
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Resumo de uma geração de estatísticas de um monitor (o que {@link eBPFMonitor#print()} imprime).
+ * <p>
+ * Obtido com {@link eBPFMonitor#report()}; os resumos de vários contextos são combinados pelo
+ * {@link MonitorAggregator}.
+ */
+public final class MonitorReport {
+
+    private final String context;
+    private final LinkedHashMap<String, Long> accesses;
+    private final long[] totals;
+    private final long sampledOut;
+    private final String sampling;
+    private final Map<String, LockLatency> byResource;
+    private final Map<String, LockLatency> byClass;
+    private final long ipsEnforced;
+    private final long ipsProtected;
+    private final long ipsDropped;
+    private final LatencyHistogram ipsLatency;
+    private final List<String> sinks;
+
+    MonitorReport(String context, LinkedHashMap<String, Long> accesses, long[] totals, long sampledOut, String sampling,
+                  Map<String, LockLatency> byResource, Map<String, LockLatency> byClass,
+                  long ipsEnforced, long ipsProtected, long ipsDropped, LatencyHistogram ipsLatency, List<String> sinks) {
+        this.context = context;
+        this.accesses = accesses;
+        this.totals = totals;
+        this.sampledOut = sampledOut;
+        this.sampling = sampling;
+        this.byResource = byResource;
+        this.byClass = byClass;
+        this.ipsEnforced = ipsEnforced;
+        this.ipsProtected = ipsProtected;
+        this.ipsDropped = ipsDropped;
+        this.ipsLatency = ipsLatency;
+        this.sinks = sinks;
+    }
+
+    /**
+     * Junta vários resumos: contagens somadas e histogramas fundidos por recurso e por classe.
+     * As threads ficam identificadas como {@code contexto/thread}; o estado dos sinks fica só nos resumos de cada contexto.
+     */
+    static MonitorReport merge(String label, List<MonitorReport> reports) {
+        LinkedHashMap<String, Long> accesses = new LinkedHashMap<>();
+        long[] totals = new long[EventType.values().length];
+        long sampledOut = 0;
+        Map<String, LockLatency> byResource = new TreeMap<>();
+        Map<String, LockLatency> byClass = new TreeMap<>();
+        long enforced = 0, protectedThreads = 0, dropped = 0;
+        LatencyHistogram ipsLatency = new LatencyHistogram();
+
+        for (MonitorReport r : reports) {
+            String prefix = r.context != null ? r.context + "/" : "";
+            r.accesses.forEach((thread, n) -> accesses.merge(prefix + thread, n, Long::sum));
+            for (int i = 0; i < totals.length; i++) totals[i] += r.totals[i];
+            sampledOut += r.sampledOut;
+            r.byResource.forEach((name, l) -> byResource.computeIfAbsent(name, k -> new LockLatency()).add(l));
+            r.byClass.forEach((name, l) -> byClass.computeIfAbsent(name, k -> new LockLatency()).add(l));
+            enforced += r.ipsEnforced;
+            protectedThreads += r.ipsProtected;
+            dropped += r.ipsDropped;
+            ipsLatency.add(r.ipsLatency);
+        }
+        String sampling = reports.isEmpty() ? "" : reports.get(0).sampling;
+        return new MonitorReport(label, accesses, totals, sampledOut, sampling, byResource, byClass,
+                enforced, protectedThreads, dropped, ipsLatency, List.of());
+    }
+
+    /** Nome do contexto (null para o monitor global). */
+    public String context() {
+        return context;
+    }
+
+    /** Total de eventos do tipo nesta geração. */
+    public long total(EventType type) {
+        return totals[type.ordinal()];
+    }
+
+    /** Eventos não escritos por causa da amostragem. */
+    public long sampledOut() {
+        return sampledOut;
+    }
+
+    /** Acessos por thread, pela ordem de criação das threads. */
+    public Map<String, Long> accesses() {
+        return Collections.unmodifiableMap(accesses);
+    }
+
+    public Map<String, LockLatency> latencyByResource() {
+        return Collections.unmodifiableMap(byResource);
+    }
+
+    public Map<String, LockLatency> latencyByClass() {
+        return Collections.unmodifiableMap(byClass);
+    }
+
+    /** Threads interrompidas ou postas em quarentena pelo IPS. */
+    public long ipsEnforced() {
+        return ipsEnforced;
+    }
+
+    public LatencyHistogram ipsLatency() {
+        return ipsLatency;
+    }
+
+    /**
+     * Imprime o resumo no formato do {@code print()} do monitor.
+     */
+    public void print(PrintStream out) {
+        out.println(context == null ? "\n=== Resumo de Execução ===" : "\n=== Resumo de Execução [" + context + "] ===");
+        accesses.forEach((thread, n) -> {
+            if (n > 0) out.println("THREAD: " + thread + " | ACESSOS: " + n);
+        });
+        if (accesses.values().stream().noneMatch(n -> n > 0)) out.println("Sem dados registados.");
+
+        StringBuilder line = new StringBuilder("EVENTOS:");
+        for (EventType type : EventType.values()) {
+            long total = totals[type.ordinal()];
+            if (total > 0) line.append(' ').append(type).append('=').append(total);
+        }
+        if (line.length() > "EVENTOS:".length()) out.println(line);
+        if (sampledOut > 0) {
+            out.println("AMOSTRAGEM: " + sampling + " | NÃO ESCRITOS: " + sampledOut
+                    + " (somados ao sampled_weight dos seguintes)");
+        }
+        printLatencies(out, "RECURSO", byResource);
+        printLatencies(out, "CLASSE", byClass);
+        if (ipsEnforced != 0 || ipsProtected != 0 || ipsDropped != 0) {
+            out.println("IPS: ATUAÇÕES=" + ipsEnforced + " PROTEGIDAS=" + ipsProtected
+                    + " DESCARTADAS=" + ipsDropped + " | LATÊNCIA: " + ipsLatency.summary());
+        }
+        for (String sink : sinks) out.println(sink);
+        out.println("==========================\n");
+    }
+
+    private static void printLatencies(PrintStream out, String label, Map<String, LockLatency> latencies) {
+        latencies.forEach((name, latency) -> {
+            if (latency.wait.count() > 0) out.println(label + ": " + name + " | ESPERA: " + latency.wait.summary());
+            if (latency.hold.count() > 0) out.println(label + ": " + name + " | POSSE:  " + latency.hold.summary());
+        });
+    }
+}
@@ -0,0 +1,15 @@
+package monitor;
+
+/**
+ * O que um sink faz quando a sua fila está cheia.
+ */
+public enum OverflowPolicy {
+    /** Espera por espaço (nada se perde; o atraso propaga-se ao contexto de processamento). */
+    BLOCK,
+    /** Descarta o evento INFO mais antigo da fila para dar lugar ao novo; HIGH e CRITICAL nunca saem da fila. */
+    DROP_OLDEST,
+    /** Descarta eventos INFO; HIGH e CRITICAL esperam por espaço. */
+    DROP_INFO,
+    /** Eventos INFO são agregados por thread e tipo no peso do próximo registo; HIGH e CRITICAL esperam. */
+    COALESCE
+}
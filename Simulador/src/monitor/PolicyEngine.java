@@ -0,0 +1,171 @@
+package monitor;
+
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Motor de políticas do IPS.
+ * <p>
+ * As regras são compiladas uma vez a partir da tabela de severidades (uma ação por {@link EventType}),
+ * por isso a avaliação é um acesso a um array. A atuação (interromper / pôr em quarentena a thread
+ * agressora) é feita por uma thread dedicada, nunca na thread que reportou o evento:
+ * <ul>
+ * <li><b>ALLOW:</b> nada a fazer.</li>
+ * <li><b>ALERT:</b> apenas registo (alertas HIGH).</li>
+ * <li><b>INTERRUPT:</b> {@code Thread.interrupt()} na thread agressora.</li>
+ * <li><b>QUARANTINE:</b> interrompe e marca a thread; o próximo {@code log()} dela lança
+ * {@link SecurityViolationException} na própria thread.</li>
+ * </ul>
+ * Regras configuráveis com {@code -Debpf.ips.critical=quarantine|interrupt|alert} e, por tipo,
+ * {@code -Debpf.ips.rule.<TIPO>=...}.
+ */
+final class PolicyEngine implements AutoCloseable {
+
+    enum Action { ALLOW, ALERT, INTERRUPT, QUARANTINE }
+
+    /** Callback invocado pelo enforcer depois de atuar sobre uma thread. */
+    interface EnforcementListener {
+        void onEnforced(ThreadRegistry.Entry offender, Action action, EventType cause);
+    }
+
+    /** Métricas de uma geração (trocadas no resumo, como as estatísticas do monitor). */
+    static final class Metrics {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder enforced = new LongAdder();
+        final LongAdder protectedThreads = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+
+        boolean isEmpty() {
+            return enforced.sum() == 0 && protectedThreads.sum() == 0 && dropped.sum() == 0;
+        }
+    }
+
+    /** Pedido de atuação, criado apenas quando uma regra o exige (caminho raro). */
+    private record Enforcement(long threadId, String threadName, EventType cause, Action action, long eventNanos) { }
+
+    private final Action[] rules;
+    private final ThreadRegistry registry;
+    private final EnforcementListener listener;
+    private final BlockingQueue<Enforcement> queue = new ArrayBlockingQueue<>(4096);
+    private final Thread enforcer;
+    private volatile boolean running = true;
+    private volatile Metrics metrics = new Metrics();
+
+    PolicyEngine(Severity[] severityByType, ThreadRegistry registry, EnforcementListener listener, String threadName) {
+        this.rules = compile(severityByType);
+        this.registry = registry;
+        this.listener = listener;
+
+        this.enforcer = new Thread(this::enforceLoop, threadName);
+        this.enforcer.setDaemon(true);
+        this.enforcer.start();
+    }
+
+    /**
+     * Tabela de ações por tipo: CRITICAL -> ação crítica, HIGH -> ALERT, INFO -> ALLOW.
+     * O IPS_BLOCK descreve uma atuação já feita, por isso nunca gera outra.
+     */
+    private static Action[] compile(Severity[] severityByType) {
+        Action critical = parse(System.getProperty("ebpf.ips.critical"), Action.QUARANTINE);
+        Action[] table = new Action[severityByType.length];
+        for (EventType type : EventType.values()) {
+            Action action = switch (severityByType[type.ordinal()]) {
+                case CRITICAL -> type == EventType.IPS_BLOCK ? Action.ALERT : critical;
+                case HIGH -> Action.ALERT;
+                case INFO -> Action.ALLOW;
+            };
+            table[type.ordinal()] = parse(System.getProperty("ebpf.ips.rule." + type), action);
+        }
+        return table;
+    }
+
+    private static Action parse(String value, Action fallback) {
+        if (value == null || value.isEmpty()) return fallback;
+        try {
+            return Action.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Regra IPS inválida: " + value);
+            return fallback;
+        }
+    }
+
+    Action actionFor(EventType type) {
+        return rules[type.ordinal()];
+    }
+
+    /** Substitui a regra de um tipo (valor inválido mantém a regra atual). */
+    void setRule(EventType type, String action) {
+        rules[type.ordinal()] = parse(action, rules[type.ordinal()]);
+    }
+
+    /**
+     * Avalia um evento no contexto de processamento. Só enfileira quando a regra exige atuação.
+     */
+    void evaluate(long threadId, String threadName, EventType type, long eventNanos) {
+        Action action = rules[type.ordinal()];
+        if (action.compareTo(Action.INTERRUPT) < 0) return;
+        if (!queue.offer(new Enforcement(threadId, threadName, type, action, eventNanos))) {
+            metrics.dropped.increment();
+        }
+    }
+
+    /** Troca a geração de métricas e devolve a anterior. */
+    Metrics swapMetrics() {
+        Metrics old = metrics;
+        metrics = new Metrics();
+        return old;
+    }
+
+    Metrics metrics() {
+        return metrics;
+    }
+
+    private void enforceLoop() {
+        while (running) {
+            Enforcement e;
+            try {
+                e = queue.poll(1, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                return;
+            }
+            if (e == null) {
+                registry.prune(); // aproveita os períodos sem trabalho
+                continue;
+            }
+            enforce(e);
+        }
+    }
+
+    private void enforce(Enforcement e) {
+        ThreadRegistry.Entry entry = registry.get(e.threadId());
+        Thread thread = entry != null ? entry.thread.get() : null;
+        if (thread == null || !thread.isAlive()) return;
+
+        Metrics current = metrics;
+        if (isProtected(thread, entry.threadName)) {
+            current.protectedThreads.increment();
+            return;
+        }
+        if (entry.quarantined) return; // já isolada por um alerta anterior
+
+        if (e.action() == Action.QUARANTINE) entry.quarantined = true;
+        thread.interrupt();
+        current.latency.record(System.nanoTime() - e.eventNanos());
+        current.enforced.increment();
+        listener.onEnforced(entry, e.action(), e.cause());
+    }
+
+    /** A thread principal e as threads internas do monitor nunca são alvo do IPS. */
+    private static boolean isProtected(Thread thread, String logicalName) {
+        return "MAIN".equals(logicalName) || thread.getName().equals("main") || thread.getName().startsWith("eBPF-");
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        enforcer.interrupt();
+    }
+}
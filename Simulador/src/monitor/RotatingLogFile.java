@@ -0,0 +1,215 @@
+package monitor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Ficheiro de log com rotação por tamanho e por idade ({@code eBPFlogs.json}).
+ * <p>
+ * Ao rodar, o ficheiro ativo é renomeado para um segmento numerado ({@code eBPFlogs-000001.json}),
+ * é aberto um canal novo com o nome original e a referência é trocada atomicamente. O canal antigo
+ * é entregue a uma thread de baixa prioridade, que o fecha, comprime em GZIP e aplica a retenção
+ * (tamanho total máximo dos segmentos). Nenhum lock é mantido durante a mudança de nome e a
+ * compressão nunca corre na thread que escreve os eventos.
+ * <p>
+ * {@link #maybeRotate()} só deve ser chamado entre linhas completas (depois do flush do encoder).
+ */
+final class RotatingLogFile implements WritableByteChannel {
+
+    private final Path directory;
+    private final String baseName;
+    private final Path active;
+    private final long maxBytes;
+    private final long maxAgeMillis;
+    private final long retainBytes;
+    private final boolean compress;
+
+    private final AtomicReference<FileChannel> current = new AtomicReference<>();
+    private final ExecutorService compressor;
+    private volatile long openedAt;
+    private long activeBytes; // contado nas escritas, evita um fstat por lote
+    private int nextIndex;
+
+    /**
+     * @param directory    Pasta dos logs.
+     * @param baseName     Nome sem extensão (ex: "eBPFlogs").
+     * @param maxBytes     Tamanho a partir do qual o ficheiro roda (0 = sem limite).
+     * @param maxAgeMillis Idade a partir da qual o ficheiro roda (0 = sem limite).
+     * @param retainBytes  Tamanho total máximo dos segmentos antigos (0 = sem limite).
+     * @param compress     true para comprimir os segmentos em GZIP.
+     * @param threadName   Nome da thread de compressão.
+     */
+    RotatingLogFile(Path directory, String baseName, long maxBytes, long maxAgeMillis,
+                    long retainBytes, boolean compress, String threadName) throws IOException {
+        this.directory = directory;
+        this.baseName = baseName;
+        this.active = directory.resolve(baseName + ".json");
+        this.maxBytes = maxBytes;
+        this.maxAgeMillis = maxAgeMillis;
+        this.retainBytes = retainBytes;
+        this.compress = compress;
+        this.nextIndex = lastSegmentIndex() + 1;
+
+        this.compressor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, threadName);
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+
+        current.set(open());
+        // Um ficheiro de execuções anteriores que já excede os limites roda logo no arranque
+        if (activeBytes > 0 && (exceedsSize() || isOlderThanMaxAge(Files.getLastModifiedTime(active).toMillis()))) {
+            rotate();
+        }
+    }
+
+    private FileChannel open() throws IOException {
+        openedAt = System.currentTimeMillis();
+        FileChannel channel = FileChannel.open(active, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        activeBytes = channel.size();
+        return channel;
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        int n = current.get().write(src);
+        activeBytes += n;
+        return n;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return current.get().isOpen();
+    }
+
+    /**
+     * Roda o ficheiro se tiver excedido o tamanho ou a idade configurados.
+     */
+    void maybeRotate() {
+        try {
+            if (exceedsSize() || isOlderThanMaxAge(openedAt)) rotate();
+        } catch (IOException e) {
+            System.err.println("Erro na rotação do log: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Indica se, somando os bytes ainda no buffer do encoder, o ficheiro já passou o limite de tamanho
+     * (permite rodar a meio de um lote grande sem esperar pelo fim do lote).
+     */
+    boolean needsRotation(long pendingBytes) {
+        return maxBytes > 0 && activeBytes + pendingBytes >= maxBytes;
+    }
+
+    private boolean exceedsSize() {
+        return maxBytes > 0 && activeBytes >= maxBytes;
+    }
+
+    private boolean isOlderThanMaxAge(long since) {
+        return maxAgeMillis > 0 && System.currentTimeMillis() - since >= maxAgeMillis;
+    }
+
+    private void rotate() throws IOException {
+        Path segment = directory.resolve(String.format("%s-%06d.json", baseName, nextIndex++));
+        // 1. Mudança de nome: o canal aberto continua válido (aponta para o mesmo ficheiro)
+        Files.move(active, segment, StandardCopyOption.ATOMIC_MOVE);
+        // 2. Canal novo com o nome original e troca atómica da referência
+        FileChannel previous = current.getAndSet(open());
+        // 3. Fecho, compressão e retenção em background
+        compressor.execute(() -> retire(previous, segment));
+    }
+
+    private void retire(FileChannel channel, Path segment) {
+        try {
+            channel.close();
+            if (compress) {
+                Path gz = segment.resolveSibling(segment.getFileName() + ".gz");
+                try (InputStream in = Files.newInputStream(segment);
+                     OutputStream out = new GZIPOutputStream(Files.newOutputStream(gz), 64 * 1024)) {
+                    in.transferTo(out);
+                }
+                Files.delete(segment);
+            }
+            enforceRetention(segmentIndex(segment));
+        } catch (IOException e) {
+            System.err.println("Erro ao comprimir segmento de log " + segment.getFileName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Apaga os segmentos mais antigos até o total caber no limite de retenção.
+     * Os segmentos posteriores a {@code upTo} ainda estão na fila de compressão e não contam.
+     */
+    private void enforceRetention(int upTo) throws IOException {
+        if (retainBytes <= 0) return;
+        List<Path> segments = segments();
+        segments.removeIf(p -> segmentIndex(p) > upTo);
+        long total = 0;
+        for (Path p : segments) total += Files.size(p);
+        for (int i = 0; i < segments.size() && total > retainBytes; i++) {
+            total -= Files.size(segments.get(i));
+            Files.deleteIfExists(segments.get(i));
+        }
+    }
+
+    /** Segmentos rodados (comprimidos ou não), do mais antigo para o mais recente. */
+    private List<Path> segments() throws IOException {
+        List<Path> result = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(p -> segmentIndex(p) >= 0).forEach(result::add);
+        }
+        result.sort((a, b) -> Integer.compare(segmentIndex(a), segmentIndex(b)));
+        return result;
+    }
+
+    private int lastSegmentIndex() throws IOException {
+        int last = 0;
+        for (Path p : segments()) last = Math.max(last, segmentIndex(p));
+        return last;
+    }
+
+    /** "eBPFlogs-000012.json(.gz)" -> 12; -1 se não for um segmento. */
+    private int segmentIndex(Path path) {
+        String name = path.getFileName().toString();
+        String prefix = baseName + "-";
+        if (!name.startsWith(prefix)) return -1;
+        int end = name.indexOf(".json", prefix.length());
+        if (end < 0) return -1;
+        try {
+            return Integer.parseInt(name.substring(prefix.length(), end));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Fecha o ficheiro ativo e espera que as compressões pendentes terminem.
+     */
+    @Override
+    public void close() throws IOException {
+        current.get().close();
+        compressor.shutdown();
+        try {
+            compressor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
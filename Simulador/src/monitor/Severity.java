@@ -0,0 +1,8 @@
+package monitor;
+
+/**
+ * Níveis de severidade atribuídos aos eventos (campo "severity" do JSON).
+ */
+public enum Severity {
+    INFO, HIGH, CRITICAL
+}
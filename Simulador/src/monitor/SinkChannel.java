@@ -0,0 +1,336 @@
+package monitor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Fila limitada e thread de escrita de um {@link EventSink}.
+ * <p>
+ * O contexto de processamento só enfileira (ou aplica a {@link OverflowPolicy} quando a fila está cheia);
+ * a escrita, em lotes com um {@code flush()} no fim de cada lote, corre numa thread própria ({@code eBPF-Sink-<nome>}).
+ * Por sink são mantidos:
+ * <ul>
+ * <li><b>Profundidade da fila</b> e <b>atraso</b> (nanoTime do evento até ser escrito), num histograma
+ * trocado a cada {@code print()}.</li>
+ * <li><b>Descartados</b> (DROP_OLDEST, DROP_INFO, sempre eventos INFO) e <b>agregados</b> (COALESCE), cumulativos.</li>
+ * </ul>
+ * O registo recebido do contexto de processamento é reutilizado por ele; o canal copia-o para um registo da sua
+ * reserva ({@code free}), devolvido depois de escrito ou descartado, pelo que em regime estável nada é alocado.
+ * No modo síncrono do monitor a fila é ignorada e o evento é escrito e enviado para disco na thread chamadora.
+ */
+final class SinkChannel implements AutoCloseable {
+
+    /** Pesos INFO retidos pela política COALESCE, por thread (índice = ordinal do EventType). */
+    private static final class Carry {
+        final String threadName;
+        final int[] weights = new int[EventType.values().length];
+
+        Carry(String threadName) {
+            this.threadName = threadName;
+        }
+    }
+
+    private static final int MAX_BATCH = 1024;
+
+    private final EventSink sink;
+    private final OverflowPolicy policy;
+    private final ArrayBlockingQueue<SinkEvent> queue;
+    /** Registos livres: os que estão na fila, mais um lote na thread de escrita, mais o que está a ser publicado. */
+    private final ArrayBlockingQueue<SinkEvent> free;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    /** Exclusão entre a thread de escrita e as escritas diretas do modo síncrono. */
+    private final Object writeLock = new Object();
+
+    /** Enfileirados / concluídos (escritos ou descartados da fila), para o drain(). */
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private volatile LatencyHistogram lag = new LatencyHistogram();
+    private volatile long lastLagNanos;
+
+    private final HashMap<Long, Carry> carries = new HashMap<>();
+
+    SinkChannel(EventSink sink, OverflowPolicy policy, int capacity, String threadName) {
+        this.sink = sink;
+        this.policy = policy;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.free = new ArrayBlockingQueue<>(Math.max(1, capacity) + MAX_BATCH + 1);
+        this.writer = new Thread(this::writeLoop, threadName);
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    String name() {
+        return sink.name();
+    }
+
+    EventSink sink() {
+        return sink;
+    }
+
+    OverflowPolicy policy() {
+        return policy;
+    }
+
+    /**
+     * Enfileira o evento (contexto de processamento). Com a fila cheia aplica a política do sink;
+     * eventos HIGH e CRITICAL nunca são descartados nem agregados.
+     * O evento é copiado; o chamador pode reutilizá-lo logo a seguir.
+     */
+    void publish(SinkEvent source) {
+        if (!sink.accepts(source)) return;
+        SinkEvent event = obtain();
+        event.copyFrom(source);
+        if (policy == OverflowPolicy.COALESCE) {
+            publishCoalescing(event);
+            return;
+        }
+        if (queue.offer(event)) {
+            enqueued.incrementAndGet();
+            return;
+        }
+        switch (policy) {
+            case DROP_OLDEST -> {
+                // Só os INFO dão lugar; sem nenhum INFO na fila, um INFO novo é descartado e os outros esperam
+                while (!queue.offer(event)) {
+                    if (evictOldestInfo()) continue;
+                    if (event.severity() == Severity.INFO) {
+                        dropped.increment();
+                        recycle(event);
+                    } else {
+                        put(event);
+                    }
+                    return;
+                }
+                enqueued.incrementAndGet();
+            }
+            case DROP_INFO -> {
+                if (event.severity() == Severity.INFO) {
+                    dropped.increment();
+                    recycle(event);
+                } else {
+                    put(event);
+                }
+            }
+            default -> put(event);
+        }
+    }
+
+    /**
+     * Retira da fila o evento INFO mais antigo (percorre a fila desde a cabeça).
+     * @return false se a fila não tiver nenhum evento INFO.
+     */
+    private boolean evictOldestInfo() {
+        for (SinkEvent queued : queue) {
+            if (queued.severity() == Severity.INFO && queue.remove(queued)) {
+                completed.incrementAndGet();
+                dropped.increment();
+                recycle(queued);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void publishCoalescing(SinkEvent event) {
+        synchronized (carries) {
+            Carry carry = carries.get(event.threadId());
+            int pending = carry != null ? carry.weights[event.eventType().ordinal()] : 0;
+            int weight = event.weight();
+            event.setWeight(weight + pending);
+            if (queue.offer(event)) {
+                enqueued.incrementAndGet();
+                if (pending > 0) carry.weights[event.eventType().ordinal()] = 0;
+            } else if (event.severity() == Severity.INFO) {
+                if (carry == null) carries.put(event.threadId(), carry = new Carry(event.threadName()));
+                carry.weights[event.eventType().ordinal()] += weight;
+                coalesced.increment();
+                recycle(event);
+            } else {
+                event.setWeight(weight);
+                put(event);
+            }
+        }
+    }
+
+    /**
+     * Enfileira os pesos ainda retidos pela política COALESCE como registos de fecho (esperando por espaço).
+     */
+    void flushCarries() {
+        if (policy != OverflowPolicy.COALESCE) return;
+        long millis = System.currentTimeMillis();
+        long nanos = System.nanoTime();
+        synchronized (carries) {
+            carries.forEach((threadId, carry) -> {
+                for (EventType type : EventType.values()) {
+                    int pending = carry.weights[type.ordinal()];
+                    if (pending == 0) continue;
+                    carry.weights[type.ordinal()] = 0;
+                    SinkEvent event = obtain();
+                    event.set(millis, nanos, threadId, carry.threadName, type, Severity.INFO, null,
+                            "(agregação) eventos não escritos", false, pending, true);
+                    put(event);
+                }
+            });
+            carries.clear();
+        }
+    }
+
+    /** Espera por espaço na fila (política BLOCK e eventos que não podem ser descartados). */
+    private void put(SinkEvent event) {
+        boolean interrupted = false;
+        try {
+            while (!queue.offer(event, 10, TimeUnit.MILLISECONDS)) {
+                if (!writer.isAlive()) {
+                    recycle(event);
+                    return;
+                }
+            }
+            enqueued.incrementAndGet();
+        } catch (InterruptedException e) {
+            interrupted = true;
+            put(event); // o IPS pode interromper a thread chamadora; o evento não se perde por isso
+        } finally {
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Escrita imediata na thread chamadora, com flush (modo síncrono do monitor).
+     */
+    void writeDirect(SinkEvent event) {
+        if (!sink.accepts(event)) return;
+        synchronized (writeLock) {
+            try {
+                sink.write(event);
+                sink.flush();
+            } catch (IOException e) {
+                System.err.println("Erro no sink " + sink.name() + ": " + e.getMessage());
+            }
+        }
+        written.increment();
+    }
+
+    /**
+     * Espera que a thread de escrita conclua tudo o que já foi enfileirado.
+     */
+    void drain() {
+        flushCarries();
+        long target = enqueued.get();
+        while (completed.get() < target && writer.isAlive()) {
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    private void writeLoop() {
+        ArrayList<SinkEvent> batch = new ArrayList<>(MAX_BATCH);
+        while (running || !queue.isEmpty()) {
+            SinkEvent first;
+            try {
+                first = queue.poll(50, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                continue;
+            }
+            if (first == null) continue;
+            batch.add(first);
+            queue.drainTo(batch, MAX_BATCH - 1);
+
+            synchronized (writeLock) {
+                for (SinkEvent event : batch) {
+                    try {
+                        sink.write(event);
+                    } catch (IOException | RuntimeException e) {
+                        System.err.println("Erro no sink " + sink.name() + ": " + e.getMessage());
+                    }
+                }
+                // Um único flush por lote
+                try {
+                    sink.flush();
+                } catch (IOException e) {
+                    System.err.println("Erro no sink " + sink.name() + ": " + e.getMessage());
+                }
+            }
+            long now = System.nanoTime();
+            LatencyHistogram current = lag;
+            for (SinkEvent event : batch) current.record(now - event.nanoTime());
+            lastLagNanos = now - batch.get(batch.size() - 1).nanoTime();
+            written.add(batch.size());
+            completed.addAndGet(batch.size());
+            for (SinkEvent event : batch) recycle(event);
+            batch.clear();
+        }
+    }
+
+    /** Registo livre da reserva (só aloca enquanto a reserva ainda não encheu). */
+    private SinkEvent obtain() {
+        SinkEvent event = free.poll();
+        return event != null ? event : new SinkEvent();
+    }
+
+    private void recycle(SinkEvent event) {
+        event.clear();
+        free.offer(event);
+    }
+
+    int queueDepth() {
+        return queue.size();
+    }
+
+    int capacity() {
+        return queue.size() + queue.remainingCapacity();
+    }
+
+    long written() {
+        return written.sum();
+    }
+
+    long dropped() {
+        return dropped.sum();
+    }
+
+    long coalesced() {
+        return coalesced.sum();
+    }
+
+    /** Atraso do último lote escrito (nanoTime do evento até ao flush). */
+    long lastLagNanos() {
+        return lastLagNanos;
+    }
+
+    /** Histograma de atraso da geração atual, substituído por um novo. */
+    LatencyHistogram swapLag() {
+        LatencyHistogram previous = lag;
+        lag = new LatencyHistogram();
+        return previous;
+    }
+
+    /** Escreve o que falta, termina a thread de escrita e fecha o sink. */
+    @Override
+    public void close() {
+        drain();
+        running = false;
+        try {
+            writer.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (writeLock) {
+            try {
+                sink.close();
+            } catch (IOException e) {
+                System.err.println("Erro ao fechar o sink " + sink.name() + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package monitor;
+
+/**
+ * Registo entregue aos {@link EventSink}s.
+ * <p>
+ * Tal como o {@link MonitorEvent} do pipeline, os registos são reutilizados para que um evento não aloque nada
+ * até chegar aos sinks: o contexto de processamento preenche sempre o mesmo registo, escrito diretamente no modo
+ * síncrono, e cada {@link SinkChannel} copia-o para um registo da sua reserva, que volta à reserva depois de
+ * escrito. Um sink nunca deve guardar a referência depois de {@code write()} retornar.
+ */
+public final class SinkEvent {
+    private long timestampMillis;
+    private long nanoTime;
+    private long threadId;
+    private String threadName;
+    private EventType eventType;
+    private Severity severity;
+    private String resource;
+    private String message;
+    private boolean blocked;
+    private int weight;
+    private boolean synthetic;
+
+    SinkEvent() { }
+
+    void set(long timestampMillis, long nanoTime, long threadId, String threadName, EventType eventType,
+             Severity severity, String resource, String message, boolean blocked, int weight, boolean synthetic) {
+        this.timestampMillis = timestampMillis;
+        this.nanoTime = nanoTime;
+        this.threadId = threadId;
+        this.threadName = threadName;
+        this.eventType = eventType;
+        this.severity = severity;
+        this.resource = resource;
+        this.message = message;
+        this.blocked = blocked;
+        this.weight = weight;
+        this.synthetic = synthetic;
+    }
+
+    void copyFrom(SinkEvent other) {
+        set(other.timestampMillis, other.nanoTime, other.threadId, other.threadName, other.eventType, other.severity,
+                other.resource, other.message, other.blocked, other.weight, other.synthetic);
+    }
+
+    /** Muda o peso (usado pela política COALESCE). */
+    void setWeight(int weight) {
+        this.weight = weight;
+    }
+
+    /** Larga as referências para não reter Strings de eventos já escritos. */
+    void clear() {
+        threadName = null;
+        resource = null;
+        message = null;
+    }
+
+    /** Relógio de parede do evento. */
+    public long timestampMillis() {
+        return timestampMillis;
+    }
+
+    /** Relógio monotónico do evento (usado para medir o atraso de cada sink). */
+    public long nanoTime() {
+        return nanoTime;
+    }
+
+    /** Id numérico da thread. */
+    public long threadId() {
+        return threadId;
+    }
+
+    /** Nome lógico da thread. */
+    public String threadName() {
+        return threadName;
+    }
+
+    public EventType eventType() {
+        return eventType;
+    }
+
+    /** Severidade pré-calculada. */
+    public Severity severity() {
+        return severity;
+    }
+
+    /** Recurso envolvido (ou null). */
+    public String resource() {
+        return resource;
+    }
+
+    public String message() {
+        return message;
+    }
+
+    /** true se o evento é crítico (campo "action": "BLOCK" no JSON). */
+    public boolean blocked() {
+        return blocked;
+    }
+
+    /** Eventos que este registo representa (amostragem / agregação). */
+    public int weight() {
+        return weight;
+    }
+
+    /** true para registos gerados pelo monitor (pesos pendentes), não reportados por uma thread. */
+    public boolean synthetic() {
+        return synthetic;
+    }
+}
@@ -0,0 +1,203 @@
+package monitor;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Pipeline com um buffer por thread de trabalho e fusão periódica por nanoTime.
+ * <p>
+ * Cada thread escreve apenas no seu próprio buffer (SPSC: um produtor, o merger como consumidor),
+ * por isso publicar um evento não toca em nenhuma variável partilhada com as outras threads e o custo
+ * por evento deixa de crescer com o número de threads. O merger corre numa thread própria e é acordado:
+ * <ul>
+ * <li><b>Periodicamente:</b> a cada {@code -Debpf.local.flushMs} (por omissão 2 ms).</li>
+ * <li><b>Buffer cheio:</b> o produtor acorda o merger e espera por espaço (back-pressure).</li>
+ * <li><b>drain():</b> quem espera pelo flush acorda-o.</li>
+ * </ul>
+ * Em cada ciclo o merger fixa o fim de cada buffer e funde os eventos disponíveis com um k-way merge
+ * (heap pela nanoTime do próximo evento de cada buffer). A ordem dentro de cada thread é sempre preservada;
+ * entre threads, a ordem é a do nanoTime dentro de cada ciclo. Os buffers de threads que terminaram são
+ * esvaziados e só depois removidos.
+ */
+final class ThreadLocalEventBuffers implements EventPipeline {
+
+    /** Buffer SPSC de uma thread. Os slots são criados à medida que são usados (threads com poucos eventos). */
+    private static final class LocalBuffer {
+        final Thread owner;
+        final MonitorEvent[] slots;
+        final int mask;
+        /** Próxima posição a escrever (só o produtor escreve) e a ler (só o merger escreve). */
+        final AtomicLong head = new AtomicLong();
+        final AtomicLong tail = new AtomicLong();
+
+        // Estado do merger durante um ciclo
+        long cycleEnd;
+        long next;
+
+        LocalBuffer(Thread owner, int capacity) {
+            this.owner = owner;
+            this.slots = new MonitorEvent[capacity];
+            this.mask = capacity - 1;
+        }
+
+        MonitorEvent slot(long seq) {
+            int index = (int) seq & mask;
+            MonitorEvent event = slots[index];
+            if (event == null) slots[index] = event = new MonitorEvent();
+            return event;
+        }
+    }
+
+    private final int capacity;
+    private final long flushNanos;
+    private final EventHandler handler;
+    private final Thread merger;
+    private volatile boolean running = true;
+
+    /** Buffers registados (inserção O(1) por thread nova; só o merger remove). */
+    private final ConcurrentLinkedQueue<LocalBuffer> buffers = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<LocalBuffer> local = ThreadLocal.withInitial(this::register);
+
+    /**
+     * @param capacity   Eventos por thread antes de o produtor ter de esperar (potência de 2).
+     * @param flushNanos Intervalo máximo entre ciclos de merge.
+     * @param handler    Lógica executada na thread do merger.
+     * @param name       Nome da thread do merger.
+     */
+    ThreadLocalEventBuffers(int capacity, long flushNanos, EventHandler handler, String name) {
+        this.capacity = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.flushNanos = flushNanos;
+        this.handler = handler;
+        this.merger = new Thread(this::mergeLoop, name);
+        this.merger.setDaemon(true);
+        this.merger.start();
+    }
+
+    private LocalBuffer register() {
+        LocalBuffer buffer = new LocalBuffer(Thread.currentThread(), capacity);
+        buffers.add(buffer);
+        return buffer;
+    }
+
+    @Override
+    public void publish(String threadName, long threadId, ThreadStats stats, EventType eventType, String resource, String message) {
+        LocalBuffer buffer = local.get();
+        long seq = claim(buffer);
+        MonitorEvent slot = buffer.slot(seq);
+        slot.set(threadName, threadId, eventType, message, System.currentTimeMillis(), System.nanoTime());
+        slot.stats = stats;
+        slot.resource = resource;
+        buffer.head.lazySet(seq + 1);
+    }
+
+    @Override
+    public void publishTask(Runnable task) {
+        LocalBuffer buffer = local.get();
+        long seq = claim(buffer);
+        MonitorEvent slot = buffer.slot(seq);
+        slot.task = task;
+        slot.nanoTime = System.nanoTime();
+        buffer.head.lazySet(seq + 1);
+    }
+
+    /** Próxima posição do buffer da thread; se estiver cheio, entrega-o ao merger e espera. */
+    private long claim(LocalBuffer buffer) {
+        long seq = buffer.head.get();
+        if (seq - buffer.tail.get() >= buffer.slots.length) {
+            LockSupport.unpark(merger);
+            while (seq - buffer.tail.get() >= buffer.slots.length && merger.isAlive()) {
+                LockSupport.parkNanos(10_000);
+            }
+        }
+        return seq;
+    }
+
+    @Override
+    public void drain() {
+        if (Thread.currentThread() == merger) return;
+        // Fim de cada buffer no momento da chamada; espera que o merger passe todos
+        ArrayList<LocalBuffer> snapshot = new ArrayList<>(buffers);
+        long[] targets = new long[snapshot.size()];
+        for (int i = 0; i < targets.length; i++) targets[i] = snapshot.get(i).head.get();
+
+        for (int i = 0; i < targets.length; i++) {
+            LocalBuffer buffer = snapshot.get(i);
+            while (buffer.tail.get() < targets[i] && merger.isAlive()) {
+                LockSupport.unpark(merger);
+                LockSupport.parkNanos(100_000);
+            }
+        }
+    }
+
+    @Override
+    public long backlog() {
+        long pending = 0;
+        for (LocalBuffer buffer : buffers) pending += buffer.head.get() - buffer.tail.get();
+        return pending;
+    }
+
+    @Override
+    public void shutdown() {
+        drain();
+        running = false;
+        LockSupport.unpark(merger);
+        try {
+            merger.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void mergeLoop() {
+        PriorityQueue<LocalBuffer> heap = new PriorityQueue<>(
+                (a, b) -> Long.compare(a.slot(a.next).nanoTime, b.slot(b.next).nanoTime));
+
+        while (running || backlog() > 0) {
+            int merged = mergeCycle(heap);
+            if (merged == 0) LockSupport.parkNanos(flushNanos);
+        }
+    }
+
+    /**
+     * Um ciclo: fixa o fim de cada buffer, funde por nanoTime e liberta os slots no fim.
+     *
+     * @return número de eventos processados.
+     */
+    private int mergeCycle(PriorityQueue<LocalBuffer> heap) {
+        for (Iterator<LocalBuffer> it = buffers.iterator(); it.hasNext(); ) {
+            LocalBuffer buffer = it.next();
+            buffer.next = buffer.tail.get();
+            buffer.cycleEnd = buffer.head.get();
+            if (buffer.next < buffer.cycleEnd) {
+                heap.add(buffer);
+            } else if (!buffer.owner.isAlive()) {
+                it.remove(); // thread terminada e buffer vazio: já não pode receber eventos
+            }
+        }
+
+        int merged = 0;
+        while (!heap.isEmpty()) {
+            LocalBuffer buffer = heap.poll();
+            MonitorEvent event = buffer.slot(buffer.next);
+            try {
+                handler.onEvent(event, heap.isEmpty() && buffer.next + 1 == buffer.cycleEnd);
+            } catch (RuntimeException e) {
+                System.err.println("Erro no merger do monitor: " + e.getMessage());
+            } finally {
+                event.clear();
+            }
+            merged++;
+            buffer.next++;
+            if (buffer.next < buffer.cycleEnd) {
+                heap.add(buffer);
+            } else {
+                buffer.tail.lazySet(buffer.next); // buffer esgotado neste ciclo: liberta o espaço ao produtor
+            }
+        }
+        return merged;
+    }
+}
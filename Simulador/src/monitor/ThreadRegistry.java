@@ -0,0 +1,72 @@
+package monitor;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registo das threads que já reportaram eventos, para que o IPS possa atuar sobre a thread
+ * agressora a partir de outra thread (em vez de lançar a exceção em quem chamou {@code log()}).
+ * <p>
+ * Cada thread regista-se uma única vez; as threads ficam referenciadas com {@link WeakReference},
+ * por isso o registo não impede que threads terminadas sejam recolhidas.
+ */
+final class ThreadRegistry {
+
+    /** Entrada de uma thread. O estado de quarentena é lido pela própria thread a cada log(). */
+    static final class Entry {
+        final long threadId;
+        final String threadName;
+        final WeakReference<Thread> thread;
+        volatile boolean quarantined;
+
+        Entry(Thread thread, String threadName) {
+            this.threadId = thread.threadId();
+            this.threadName = threadName;
+            this.thread = new WeakReference<>(thread);
+        }
+    }
+
+    private final ConcurrentHashMap<Long, Entry> byId = new ConcurrentHashMap<>();
+
+    /** Regista a thread atual (idempotente). */
+    Entry register(String threadName) {
+        Thread current = Thread.currentThread();
+        return byId.computeIfAbsent(current.threadId(), id -> new Entry(current, threadName));
+    }
+
+    Entry get(long threadId) {
+        return byId.get(threadId);
+    }
+
+    /** Remove as entradas de threads que já terminaram. */
+    void prune() {
+        byId.values().removeIf(e -> {
+            Thread t = e.thread.get();
+            return t == null || !t.isAlive();
+        });
+    }
+
+    int size() {
+        return byId.size();
+    }
+
+    /** Threads registadas ainda vivas (leitura sem locks, para as métricas). */
+    int countAlive() {
+        int alive = 0;
+        for (Entry e : byId.values()) {
+            Thread t = e.thread.get();
+            if (t != null && t.isAlive()) alive++;
+        }
+        return alive;
+    }
+
+    /** Threads vivas em quarentena pelo IPS. */
+    int countQuarantined() {
+        int quarantined = 0;
+        for (Entry e : byId.values()) {
+            Thread t = e.thread.get();
+            if (e.quarantined && t != null && t.isAlive()) quarantined++;
+        }
+        return quarantined;
+    }
+}
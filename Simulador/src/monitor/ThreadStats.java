@@ -0,0 +1,97 @@
+package monitor;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Contadores de uma thread, um por {@link EventType}.
+ * <p>
+ * Os contadores são incrementados pela própria thread (sem locks) e lidos por quem gera o resumo.
+ * Os restantes campos pertencem ao contexto de processamento do monitor (thread consumidora).
+ */
+final class ThreadStats {
+    final long threadId;
+    final String threadName;
+    /** Classe da thread para agregação (nome sem o sufixo numérico, ex: "Cliente-VIP"). */
+    final String threadClass;
+    final AtomicLongArray counts = new AtomicLongArray(EventType.values().length);
+    /** Entrada da thread no registo do IPS (preenchida pela própria thread no primeiro log()). */
+    ThreadRegistry.Entry registryEntry;
+
+    // --- Estado do processamento (apenas a thread consumidora lê/escreve) ---
+
+    /** Início do último WAIT ainda sem LOCK_ACQUIRED (-1 = nenhum). */
+    long waitStartMillis = -1;
+    long waitStartNanos;
+    String waitResource;
+    /** Prazo de SLA agendado no watchdog para o WAIT atual. */
+    TimerWheel.Timeout waitTimeout;
+
+    /** Recursos atualmente na posse da thread (locks aninhados) e instante da aquisição. */
+    String[] heldResources = new String[4];
+    long[] heldSince = new long[4];
+    int heldCount;
+    String releasedResource;
+
+    /** Amostragem: token bucket da thread. */
+    double tokens;
+    long lastRefillNanos;
+
+    ThreadStats(long threadId, String threadName) {
+        this.threadId = threadId;
+        this.threadName = threadName;
+        this.threadClass = classOf(threadName);
+    }
+
+    /** Entrada partilhada pelas threads que já não cabem na tabela (só os contadores são válidos). */
+    boolean isAggregate() {
+        return threadId < 0;
+    }
+
+    void pushHeld(String resource, long nanos) {
+        if (heldCount == heldResources.length) {
+            heldResources = java.util.Arrays.copyOf(heldResources, heldCount * 2);
+            heldSince = java.util.Arrays.copyOf(heldSince, heldCount * 2);
+        }
+        heldResources[heldCount] = resource;
+        heldSince[heldCount] = nanos;
+        heldCount++;
+    }
+
+    /**
+     * Remove um recurso da lista de posse (o mais recente, se {@code resource} for null).
+     *
+     * @return instante da aquisição em ns, ou -1 se a thread não tinha o recurso;
+     *         o nome do recurso removido fica em {@link #releasedResource}.
+     */
+    long popHeld(String resource) {
+        for (int i = heldCount - 1; i >= 0; i--) {
+            if (resource == null || resource.equals(heldResources[i])) {
+                long since = heldSince[i];
+                releasedResource = heldResources[i];
+                System.arraycopy(heldResources, i + 1, heldResources, i, heldCount - i - 1);
+                System.arraycopy(heldSince, i + 1, heldSince, i, heldCount - i - 1);
+                heldResources[--heldCount] = null;
+                return since;
+            }
+        }
+        return -1;
+    }
+
+    /** "Cliente-VIP-2" -> "Cliente-VIP", "StressWorker-17" -> "StressWorker", "MB- 3" -> "MB". */
+    static String classOf(String threadName) {
+        int end = threadName.length();
+        while (end > 0) {
+            char c = threadName.charAt(end - 1);
+            if (Character.isDigit(c) || c == '-' || c == '_' || c == ' ') end--;
+            else break;
+        }
+        return end == 0 ? threadName : threadName.substring(0, end);
+    }
+
+    /** Acessos à secção crítica, na definição original do resumo (WORK, LOCK_ACQUIRED, SUCCESS). */
+    long accesses() {
+        return counts.get(EventType.WORK.ordinal())
+                + counts.get(EventType.LOCK_ACQUIRED.ordinal())
+                + counts.get(EventType.SUCCESS.ordinal());
+    }
+}
@@ -0,0 +1,181 @@
+package monitor;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Roda de temporização (hashed timing wheel) para prazos de espera.
+ * <p>
+ * O tempo é dividido em ticks; cada prazo cai no bucket {@code tick & mask} e guarda quantas voltas
+ * completas ainda faltam. A thread da roda avança um bucket por tick e só olha para os prazos desse
+ * bucket, por isso o custo não depende do número de esperas pendentes:
+ * <ul>
+ * <li><b>Agendar:</b> O(1) — o prazo entra numa fila sem locks e é colocado no bucket no tick seguinte.</li>
+ * <li><b>Cancelar:</b> O(1) — um CAS no estado; o nó é removido quando a roda passar pelo bucket.</li>
+ * <li><b>Expirar:</b> no máximo um tick depois do prazo.</li>
+ * </ul>
+ */
+final class TimerWheel implements AutoCloseable {
+
+    /** Callback invocado na thread da roda quando um prazo expira sem ter sido cancelado. */
+    interface ExpiryHandler {
+        void onExpired(Timeout timeout);
+    }
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    /** Prazo agendado. Imutável exceto o estado e os campos internos da roda. */
+    static final class Timeout {
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        final ThreadStats target;
+        final String resource;
+        final long startNanos;
+        final long deadlineNanos;
+
+        private volatile int state = PENDING;
+
+        // Lista do bucket (apenas a thread da roda mexe nestes campos)
+        private long remainingRounds;
+        private Timeout next;
+        private Timeout prev;
+
+        Timeout(ThreadStats target, String resource, long startNanos, long deadlineNanos) {
+            this.target = target;
+            this.resource = resource;
+            this.startNanos = startNanos;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /** @return true se o prazo foi cancelado antes de expirar. */
+        boolean cancel() {
+            return STATE.compareAndSet(this, PENDING, CANCELLED);
+        }
+
+        boolean isCancelled() {
+            return state == CANCELLED;
+        }
+    }
+
+    /** Lista duplamente ligada de prazos de um bucket. */
+    private static final class Bucket {
+        Timeout head;
+        Timeout tail;
+
+        void add(Timeout t) {
+            t.prev = tail;
+            t.next = null;
+            if (tail == null) head = t;
+            else tail.next = t;
+            tail = t;
+        }
+
+        Timeout remove(Timeout t) {
+            Timeout next = t.next;
+            if (t.prev != null) t.prev.next = next;
+            else head = next;
+            if (next != null) next.prev = t.prev;
+            else tail = t.prev;
+            t.prev = null;
+            t.next = null;
+            return next;
+        }
+    }
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final ExpiryHandler handler;
+    private final Queue<Timeout> incoming = new ConcurrentLinkedQueue<>();
+    private final Thread worker;
+    private final long startNanos;
+
+    private volatile boolean running = true;
+    private long tick;
+
+    /**
+     * @param tickMs     Resolução da roda (erro máximo do disparo).
+     * @param wheelSize  Número de buckets (arredondado para potência de 2).
+     * @param handler    Callback de expiração.
+     * @param name       Nome da thread da roda.
+     */
+    TimerWheel(long tickMs, int wheelSize, ExpiryHandler handler, String name) {
+        int size = Integer.highestOneBit(Math.max(2, wheelSize - 1)) << 1;
+        this.tickNanos = Math.max(1, tickMs) * 1_000_000L;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) wheel[i] = new Bucket();
+        this.mask = size - 1;
+        this.handler = handler;
+        this.startNanos = System.nanoTime();
+
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Agenda um prazo. Pode ser chamado de qualquer thread.
+     */
+    Timeout schedule(ThreadStats target, String resource, long startNanos, long deadlineNanos) {
+        Timeout timeout = new Timeout(target, resource, startNanos, deadlineNanos);
+        incoming.add(timeout);
+        return timeout;
+    }
+
+    private void run() {
+        while (running) {
+            // Espera pelo fim do tick atual
+            long tickEnd = startNanos + (tick + 1) * tickNanos;
+            long sleep;
+            while ((sleep = tickEnd - System.nanoTime()) > 0 && running) {
+                LockSupport.parkNanos(sleep);
+            }
+            transferIncoming();
+            expire(wheel[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    private void transferIncoming() {
+        Timeout t;
+        while ((t = incoming.poll()) != null) {
+            if (t.isCancelled()) continue;
+            long ticks = Math.max((t.deadlineNanos - startNanos) / tickNanos, tick); // nunca no passado
+            t.remainingRounds = (ticks - tick) / wheel.length;
+            wheel[(int) (ticks & mask)].add(t);
+        }
+    }
+
+    private void expire(Bucket bucket) {
+        Timeout t = bucket.head;
+        while (t != null) {
+            if (t.isCancelled()) {
+                t = bucket.remove(t);
+            } else if (t.remainingRounds <= 0) {
+                Timeout next = bucket.remove(t);
+                if (Timeout.STATE.compareAndSet(t, PENDING, EXPIRED)) {
+                    try {
+                        handler.onExpired(t);
+                    } catch (RuntimeException e) {
+                        System.err.println("Erro no watchdog: " + e.getMessage());
+                    }
+                }
+                t = next;
+            } else {
+                t.remainingRounds--;
+                t = t.next;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(worker);
+    }
+}
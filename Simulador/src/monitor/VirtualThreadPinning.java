@@ -0,0 +1,100 @@
+package monitor;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Deteção de pinning de threads virtuais com os eventos JFR {@code jdk.VirtualThreadPinned}.
+ * <p>
+ * No JDK 21 uma thread virtual que bloqueia (sleep, park) dentro de um bloco {@code synchronized} não
+ * liberta a carrier thread: fica "pinned" e ocupa a carrier durante todo o bloqueio, o que limita o
+ * paralelismo ao número de carriers. Um {@link RecordingStream} recebe os eventos durante a medição e
+ * agrega o número, a duração e o frame da aplicação onde o bloqueio aconteceu.
+ */
+public final class VirtualThreadPinning implements AutoCloseable {
+
+    /**
+     * Resultado de uma medição.
+     *
+     * @param count      Eventos de pinning recebidos.
+     * @param totalNanos Tempo total em que uma carrier ficou presa.
+     * @param maxNanos   Maior bloqueio individual.
+     * @param byFrame    Eventos por frame da aplicação ({@code Classe.método:linha}), do mais frequente para o menos.
+     */
+    public record Result(long count, long totalNanos, long maxNanos, Map<String, Long> byFrame) {
+
+        /** Frame com mais eventos (ou "-" se não houve pinning). */
+        public String topFrame() {
+            return byFrame.isEmpty() ? "-" : byFrame.keySet().iterator().next();
+        }
+    }
+
+    private final RecordingStream stream;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final ConcurrentHashMap<String, LongAdder> byFrame = new ConcurrentHashMap<>();
+
+    private VirtualThreadPinning(Duration threshold) {
+        stream = new RecordingStream();
+        stream.enable("jdk.VirtualThreadPinned").withThreshold(threshold).withStackTrace();
+        stream.onEvent("jdk.VirtualThreadPinned", this::onPinned);
+        stream.startAsync();
+    }
+
+    /**
+     * Começa a receber eventos de pinning.
+     *
+     * @param threshold Duração mínima de um bloqueio para gerar evento (o JFR usa 20 ms por omissão).
+     */
+    public static VirtualThreadPinning start(Duration threshold) {
+        return new VirtualThreadPinning(threshold);
+    }
+
+    private void onPinned(RecordedEvent event) {
+        long nanos = event.getDuration().toNanos();
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+        byFrame.computeIfAbsent(applicationFrame(event.getStackTrace()), f -> new LongAdder()).increment();
+    }
+
+    /** Primeiro frame fora do JDK (quem chamou o sleep/park dentro do synchronized). */
+    private static String applicationFrame(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) return "(sem stack trace)";
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            if (!frame.isJavaFrame()) continue;
+            String type = frame.getMethod().getType().getName();
+            if (type.startsWith("java.") || type.startsWith("jdk.") || type.startsWith("sun.")) continue;
+            return type.substring(type.lastIndexOf('.') + 1) + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+        }
+        return "(JDK)";
+    }
+
+    /**
+     * Termina a medição, depois de processar todos os eventos já gravados.
+     */
+    public Result stop() {
+        stream.stop();
+        Map<String, Long> frames = new LinkedHashMap<>();
+        byFrame.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, LongAdder> e) -> e.getValue().sum()).reversed())
+                .forEach(e -> frames.put(e.getKey(), e.getValue().sum()));
+        return new Result(count.sum(), totalNanos.sum(), maxNanos.get(), frames);
+    }
+
+    @Override
+    public void close() {
+        stream.close();
+    }
+}
@@ -1,10 +1,15 @@
 package monitor;
 
 import java.io.*;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Exceção de segurança personalizada utilizada para interromper a execução de uma thread.
@@ -20,43 +25,164 @@ class SecurityViolationException extends RuntimeException {
  * <ul>
  * <li><b>Consola Limpa / Modo Silencioso:</b> Adaptável para testes de carga (Stress Tests).</li>
  * <li><b>Logging Híbrido:</b> JSON centralizado para SIEM + Ficheiros de Alerta individuais por Thread.</li>
- * <li><b>IPS:</b> Deteta anomalias e termina threads agressoras.</li>
+ * <li><b>IPS:</b> Deteta anomalias; um motor de políticas interrompe e isola as threads agressoras.</li>
+ * <li><b>Pipeline Assíncrono:</b> As threads publicam eventos num ring buffer sem locks (ou em buffers por thread);
+ * uma thread consumidora dedicada analisa e distribui.</li>
+ * <li><b>Sinks:</b> Cada saída (consola, JSON, alertas, journal...) tem fila e thread de escrita próprias,
+ * com a sua política de back-pressure ({@link OverflowPolicy}).</li>
+ * <li><b>Contextos:</b> Além do monitor global ({@link #getInstance()}), cada cenário pode ter o seu
+ * ({@link #create(String)}), com estatísticas, ficheiros e threads próprios.</li>
  * </ul>
  */
 public class eBPFMonitor {
 
-    private static eBPFMonitor instance;
-    private PrintWriter writer; // Log geral (JSON)
+    /** Monitor global, criado na primeira utilização (holder idiom: leitura sem lock nem volatile). */
+    private static final class Holder {
+        static final eBPFMonitor INSTANCE = new eBPFMonitor(null);
+    }
+
+    // Contexto deste monitor (null = global): pasta de logs e sufixo das threads próprios
+    private final String context;
+    private final String logDir;
+    private final String threadSuffix;
+
+    // Saídas do monitor, cada uma com fila e thread de escrita próprias (-Debpf.sink.<nome>.policy|capacity)
+    private final CopyOnWriteArrayList<SinkChannel> sinks = new CopyOnWriteArrayList<>();
+    private JsonLogSink jsonSink; // Log geral (JSON), com rotação e compressão em background
+    private final AlertLogSink alertSink;
+
+    // Severidade pré-calculada por EventType (evita comparações de Strings por evento)
+    private static final Severity[] SEVERITY_BY_TYPE = new Severity[EventType.values().length];
+    static {
+        for (EventType t : EventType.values()) SEVERITY_BY_TYPE[t.ordinal()] = determineSeverity(t);
+    }
 
     // Flag para controlar a saída na consola durante Stress Tests
-    private boolean silentMode = false;
+    private volatile boolean silentMode = false;
+
+    // Amostragem por EventType e token bucket por thread (-Debpf.sample.<TIPO>, -Debpf.rate.perThread)
+    private final EventSampler sampler = new EventSampler();
+    /** Estado de processamento das threads de overflow da tabela de estatísticas (ver {@link #processingState}). */
+    private final HashMap<Long, ThreadStats> overflowState = new HashMap<>();
+
+    // Pipeline assíncrono: as threads de trabalho só publicam, a thread consumidora faz o resto
+    // (-Debpf.pipeline=ring|local: anel partilhado ou buffers por thread fundidos por nanoTime)
+    private static final int RING_CAPACITY = 1 << 16;
+    private final EventRingBuffer ring;
+    private ThreadLocalEventBuffers localBuffers; // criado na primeira utilização
+    private volatile EventPipeline pipeline;
+    private volatile boolean asyncMode = true;
+
+    // Evento de rascunho usado no modo síncrono (protegido pelo lock do monitor)
+    private final MonitorEvent syncEvent = new MonitorEvent();
+    // Registo entregue aos sinks, reutilizado pelo contexto de processamento (os canais copiam-no)
+    private final SinkEvent sinkRecord = new SinkEvent();
+
+    // Journal binário opcional (-Debpf.journal=on|only): "only" substitui o JSON de texto
+    private volatile EventJournal journal;
+
+    // IPS: registo de threads e motor de políticas com thread de atuação própria
+    private final ThreadRegistry registry = new ThreadRegistry();
+    private final PolicyEngine policy;
+
+    // Grafo de espera (só usado no contexto de processamento) e último ciclo detetado
+    private final DeadlockDetector deadlocks = new DeadlockDetector();
+    private final AlertSignal deadlockSignal = new AlertSignal();
+    private volatile DeadlockDetector.Cycle lastDeadlock;
+
+    // Watchdog de starvation: cada WAIT agenda um prazo numa roda de temporização (-Debpf.watchdog.tickMs)
+    private final TimerWheel watchdog;
+    private final AlertSignal starvationSignal = new AlertSignal();
+
+    // Backends de instrumentação (-Debpf.backend=json|jfr|both): JSON de texto e/ou eventos JFR
+    private final JfrRecorder jfr;
+
+    // Contadores cumulativos para o endpoint Prometheus (-Debpf.metrics.port), nunca trocados no print()
+    private final MonitorMetrics metrics = new MonitorMetrics();
+    private volatile MetricsServer metricsServer;
 
     // Estatísticas e Timers
-    private final Map<String, Integer> accessStats = new ConcurrentHashMap<>();
-    private final Map<String, Long> waitTimers = new ConcurrentHashMap<>();
-    private static final long STARVATION_THRESHOLD_MS = 5000;
+    // Geração atual das estatísticas (trocada no print() em vez de limpar os contadores)
+    private static final int STATS_CAPACITY = Integer.getInteger("ebpf.stats.capacity", 1 << 16);
+    private volatile EventStats stats = new EventStats(STATS_CAPACITY);
+    private static final long STARVATION_THRESHOLD_MS = Long.getLong("ebpf.starvation.slaMs", 5000L);
 
-    //Caminho para a pasta logs
+    //Caminho para a pasta logs (os contextos usam uma subpasta com o seu nome)
     private static final String LOG_DIR = "logs/";
 
-    private eBPFMonitor() {
+    private eBPFMonitor(String context) {
+        this.context = context;
+        this.logDir = context == null ? LOG_DIR : LOG_DIR + context + "/";
+        this.threadSuffix = context == null ? "" : "-" + context;
+        policy = new PolicyEngine(SEVERITY_BY_TYPE, registry, this::onEnforced, "eBPF-Enforcer" + threadSuffix);
+        watchdog = new TimerWheel(Long.getLong("ebpf.watchdog.tickMs", 10L), 512,
+                this::onStarvation, "eBPF-Watchdog" + threadSuffix);
         try {
 
-            File directory = new File(LOG_DIR);
+            File directory = new File(logDir);
             if(!directory.exists()) {
                 directory.mkdirs();
             }
             // Ficheiro geral do sistema (comportamento completo em JSON)
-            FileWriter fw = new FileWriter(LOG_DIR + "eBPFlogs.json", true);
-            writer = new PrintWriter(fw, true);
+            // Sem autoflush: a thread do sink faz flush no fim de cada lote
+            // Rotação: -Debpf.log.maxBytes, -Debpf.log.maxAgeMs, retenção -Debpf.log.retainBytes
+            RotatingLogFile logChannel = new RotatingLogFile(Path.of(logDir), "eBPFlogs",
+                    Long.getLong("ebpf.log.maxBytes", 64L << 20),
+                    Long.getLong("ebpf.log.maxAgeMs", 60 * 60 * 1000L),
+                    Long.getLong("ebpf.log.retainBytes", 512L << 20),
+                    Boolean.parseBoolean(System.getProperty("ebpf.log.compress", "true")),
+                    "eBPF-LogCompressor" + threadSuffix);
+            jsonSink = new JsonLogSink(logChannel);
         } catch (IOException e) {
             System.err.println("CRITICAL: Falha ao iniciar sistema de logs.");
         }
+        ring = new EventRingBuffer(RING_CAPACITY, this::onEvent, "eBPF-Consumer" + threadSuffix);
+        pipeline = ring;
+        if (System.getProperty("ebpf.pipeline", "ring").equalsIgnoreCase("local")) setThreadLocalBuffers(true);
+
+        String backend = System.getProperty("ebpf.backend", "json").toLowerCase(Locale.ROOT);
+        boolean jsonBackend = !backend.equals("jfr");
+        jfr = backend.equals("jfr") || backend.equals("both") ? new JfrRecorder(Path.of(logDir, "eBPFmonitor.jfr")) : null;
+
+        // Sinks por omissão: um terminal lento só perde eventos INFO; JSON e alertas nunca perdem nada
+        addSink(new ConsoleSink(() -> silentMode), OverflowPolicy.DROP_INFO, 4096);
+        if (jsonSink != null && jsonBackend) addSink(jsonSink, OverflowPolicy.BLOCK, 1 << 16);
+        // Ficheiros de alerta por thread mantidos abertos (-Debpf.alerts.maxOpen, -Debpf.alerts.flushMs)
+        alertSink = new AlertLogSink(new File(logDir), Integer.getInteger("ebpf.alerts.maxOpen", 64),
+                Long.getLong("ebpf.alerts.flushMs", 1000L), "eBPF-AlertFlusher" + threadSuffix);
+        addSink(alertSink, OverflowPolicy.BLOCK, 4096);
+
+        String journalMode = System.getProperty("ebpf.journal", "off");
+        if (!journalMode.equals("off")) {
+            enableJournal(journalMode.equals("only"));
+        }
+
+        // Só o monitor global abre a porta configurada; os contextos usam startMetricsServer(0) se for preciso
+        int metricsPort = Integer.getInteger("ebpf.metrics.port", -1);
+        if (metricsPort >= 0 && context == null) startMetricsServer(metricsPort);
     }
 
-    public static synchronized eBPFMonitor getInstance() {
-        if (instance == null) instance = new eBPFMonitor();
-        return instance;
+    public static eBPFMonitor getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Cria um monitor independente do global, para um cenário ou shard: estatísticas, grafo de espera,
+     * IPS e sinks próprios, ficheiros em {@code logs/<contexto>/} e threads {@code eBPF-*-<contexto>}.
+     * Deve ser terminado com {@link #shutdown()}.
+     *
+     * @param context Nome do contexto (letras, dígitos, '.', '-' e '_').
+     */
+    public static eBPFMonitor create(String context) {
+        if (context == null || context.isEmpty() || !context.matches("[A-Za-z0-9._-]+")) {
+            throw new IllegalArgumentException("Nome de contexto inválido: " + context);
+        }
+        return new eBPFMonitor(context);
+    }
+
+    /** Nome do contexto, ou null para o monitor global. */
+    public String context() {
+        return context;
     }
 
     /**
@@ -67,82 +193,384 @@ public class eBPFMonitor {
         this.silentMode = silent;
     }
 
+    public boolean isSilentMode() {
+        return silentMode;
+    }
+
+    /**
+     * Altera a regra do IPS para um tipo de evento neste monitor (como {@code -Debpf.ips.rule.<TIPO>}).
+     * @param action allow, alert, interrupt ou quarantine.
+     */
+    public void setIpsRule(EventType type, String action) {
+        policy.setRule(type, action);
+    }
+
+    /**
+     * Amostragem determinística: escreve 1 em cada {@code n} eventos INFO deste tipo (1 = todos).
+     */
+    public void setSampling(EventType type, int n) {
+        sampler.setOneInN(type, n);
+    }
+
+    /**
+     * Amostragem probabilística: cada evento INFO deste tipo é escrito com probabilidade {@code p}.
+     */
+    public void setSamplingProbability(EventType type, double p) {
+        sampler.setProbability(type, p);
+    }
+
+    /**
+     * Limita cada thread a {@code perSecond} eventos INFO escritos por segundo, com rajadas até {@code burst}
+     * (0 desliga o limite).
+     */
+    public void setThreadRateLimit(double perSecond, double burst) {
+        sampler.setThreadRate(perSecond, burst);
+    }
+
+    /**
+     * Alterna entre o pipeline assíncrono (ring buffer) e o processamento síncrono original.
+     * O modo síncrono é mantido para comparação de throughput (ver Benchmark do Monitor).
+     *
+     * @param async true para publicar no ring buffer; false para processar na thread chamadora.
+     */
+    public void setAsyncMode(boolean async) {
+        if (!async) flush(); // garante que nada fica para trás ao mudar de modo
+        this.asyncMode = async;
+    }
+
+    public boolean isAsyncMode() {
+        return asyncMode;
+    }
+
+    /**
+     * Escolhe o pipeline assíncrono: buffers por thread sem sincronização, fundidos periodicamente
+     * por nanoTime ({@code -Debpf.local.capacity}, {@code -Debpf.local.flushMs}), ou o ring buffer partilhado.
+     *
+     * @param enabled true para os buffers por thread; false para o ring buffer.
+     */
+    public synchronized void setThreadLocalBuffers(boolean enabled) {
+        EventPipeline target;
+        if (enabled) {
+            if (localBuffers == null) {
+                localBuffers = new ThreadLocalEventBuffers(Integer.getInteger("ebpf.local.capacity", 1024),
+                        Long.getLong("ebpf.local.flushMs", 2L) * 1_000_000L, this::onEvent, "eBPF-Merger" + threadSuffix);
+            }
+            target = localBuffers;
+        } else {
+            target = ring;
+        }
+        if (target == pipeline) return;
+        pipeline.drain(); // os dois consumidores nunca processam ao mesmo tempo
+        pipeline = target;
+    }
+
+    public boolean isThreadLocalBuffers() {
+        return pipeline == localBuffers;
+    }
+
+    /**
+     * Ativa o journal binário em {@code logs/journal/} (segmentos mapeados em memória).
+     * Pode ser lido em tempo real com {@link JournalTail} e convertido com {@link JournalConverter}.
+     *
+     * @param replaceJson true para deixar de escrever o eBPFlogs.json (o JSON passa a ser gerado a pedido).
+     */
+    public synchronized void enableJournal(boolean replaceJson) {
+        flush();
+        try {
+            if (journal == null) {
+                journal = new EventJournal(new File(logDir + "journal"), 1 << 16, 8 << 20);
+                addSink(new JournalSink(journal), OverflowPolicy.BLOCK, 1 << 16);
+            }
+            if (jsonSink != null) jsonSink.setEnabled(!replaceJson);
+        } catch (IOException e) {
+            System.err.println("Erro ao iniciar journal binário: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Regista uma saída adicional do monitor, com fila e thread de escrita próprias.
+     * A política e a capacidade podem ser substituídas com {@code -Debpf.sink.<nome>.policy}
+     * e {@code -Debpf.sink.<nome>.capacity}.
+     *
+     * @param sink     Saída a registar.
+     * @param policy   Política quando a fila está cheia.
+     * @param capacity Número máximo de eventos em fila.
+     */
+    public void addSink(EventSink sink, OverflowPolicy policy, int capacity) {
+        String prefix = "ebpf.sink." + sink.name() + ".";
+        String configured = System.getProperty(prefix + "policy");
+        if (configured != null) {
+            try {
+                policy = OverflowPolicy.valueOf(configured.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                System.err.println("Política desconhecida para o sink " + sink.name() + ": " + configured);
+            }
+        }
+        sinks.add(new SinkChannel(sink, policy, Integer.getInteger(prefix + "capacity", capacity),
+                "eBPF-Sink-" + sink.name() + threadSuffix));
+    }
+
+    /**
+     * Remove uma saída pelo nome (ex: "console"), depois de escrever os eventos que tinha em fila.
+     * @return false se não existir nenhum sink com esse nome.
+     */
+    public boolean removeSink(String name) {
+        for (SinkChannel channel : sinks) {
+            if (channel.name().equals(name) && sinks.remove(channel)) {
+                channel.close();
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Regista eventos, gere logs e atua sobre ameaças.
      * Utiliza {@link EventType} para maior segurança de tipos e código limpo.
+     * <p>
+     * No modo assíncrono a thread chamadora apenas publica o evento no ring buffer;
+     * formatação, escrita do JSON e análise comportamental correm na thread consumidora.
+     *
+     * @param threadName Nome da thread.
+     * @param eventType Tipo de evento (Enum).
+     * @param message Mensagem descritiva.
+     */
+    public void log(String threadName, EventType eventType, String message) {
+        log(threadName, eventType, null, message);
+    }
+
+    /**
+     * Variante com o recurso envolvido (conta, carteira, guiché...), usada para medir as latências
+     * de espera e de posse de cada lock.
      *
      * @param threadName Nome da thread.
      * @param eventType Tipo de evento (Enum).
+     * @param resource Identificador do recurso (ou null se não se aplicar).
      * @param message Mensagem descritiva.
      */
-    public synchronized void log(String threadName, EventType eventType, String message) {
-        // 1. Timestamp curto para a consola, longo para o JSON
-        String timeFull = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+    public void log(String threadName, EventType eventType, String resource, String message) {
+        // Estatísticas atualizadas na própria thread, sem locks (contadores por id numérico)
+        long threadId = Thread.currentThread().threadId();
+        ThreadStats threadStats = stats.record(threadId, threadName, eventType);
+        ThreadRegistry.Entry entry = threadStats.registryEntry;
+        if (entry == null || entry.threadId != threadId) {
+            threadStats.registryEntry = entry = registry.register(threadName);
+        }
+        // JFR: emitido na própria thread, para ficar alinhado com os eventos da JVM (park, GC, safepoints)
+        if (jfr != null) jfr.onLog(threadName, eventType, SEVERITY_BY_TYPE[eventType.ordinal()], resource, message);
+        dispatch(threadName, threadId, threadStats, eventType, resource, message);
 
-        // 2. CONSOLA INTELIGENTE (Silent Mode)
-        // Se estiver em silentMode, só imprimimos se for CRÍTICO (Deadlocks ou Starvation confirmados)
-        boolean isCritical = (eventType == EventType.DEADLOCK_DETECTED ||
-                eventType == EventType.ALERT_STARVATION ||
-                eventType == EventType.IPS_BLOCK);
+        // IPS - Uma thread posta em quarentena pelo enforcer termina na sua próxima operação
+        if (entry.quarantined) {
+            killThread(threadName, "Thread em quarentena pelo IPS.");
+        }
+    }
 
-        if (!silentMode || isCritical) {
-            System.out.println(threadName + " -> " + message);        }
+    /**
+     * Entrega o evento ao contexto de processamento: pipeline assíncrono ou lock do monitor.
+     */
+    private void dispatch(String threadName, long threadId, ThreadStats threadStats, EventType eventType,
+                          String resource, String message) {
+        if (asyncMode) {
+            pipeline.publish(threadName, threadId, threadStats, eventType, resource, message);
+        } else {
+            synchronized (this) {
+                syncEvent.set(threadName, threadId, eventType, message, System.currentTimeMillis(), System.nanoTime());
+                syncEvent.stats = threadStats;
+                syncEvent.resource = resource;
+                process(syncEvent); // os sinks escrevem e fazem flush por evento (comportamento original)
+                syncEvent.clear();
+            }
+        }
+    }
 
-        // 3. Lógica de Severidade e Ação
-        String severity = determineSeverity(eventType);
-        String action = (isCritical) ? "BLOCK" : "ALLOW";
+    /**
+     * Espera que a thread consumidora processe todos os eventos já publicados
+     * e que cada sink os escreva.
+     */
+    public void flush() {
+        pipeline.drain();
+        for (SinkChannel sink : sinks) sink.drain();
+    }
+
+    /**
+     * Processa os eventos pendentes e fecha o ficheiro de logs.
+     */
+    public void shutdown() {
+        if (metricsServer != null) metricsServer.close();
+        watchdog.close();
+        policy.close();
+        pipeline.drain();
+        ring.shutdown();
+        if (localBuffers != null) localBuffers.shutdown();
+        synchronized (this) {
+            for (SinkChannel sink : sinks) sink.close();
+        }
+        if (jfr != null) jfr.close();
+    }
 
-        // 4. LOG GERAL (JSON para SIEM) - Sempre escrito, independente do modo silencioso
-        String jsonLog = String.format(
-                "{\"timestamp\": \"%s\", \"severity\": \"%s\", \"event\": \"%s\", \"thread\": \"%s\", \"msg\": \"%s\", \"action\": \"%s\"}",
-                timeFull, severity, eventType, threadName, message, action
-        );
-        if (writer != null) writer.println(jsonLog);
+    private void onEvent(MonitorEvent event, boolean endOfBatch) {
+        if (event.task != null) event.task.run();
+        else process(event);
+    }
 
-        // 5. SEGREGAÇÃO DE LOGS (Requisito: Alertas por utilizador)
-        // Se for HIGH ou CRITICAL, escreve também num ficheiro exclusivo desta thread
-        if (severity.equals("HIGH") || severity.equals("CRITICAL")) {
-            writeUserAlertLog(threadName, jsonLog);
+    /**
+     * Entrega um registo a todos os sinks (fila própria no modo assíncrono, escrita direta no síncrono).
+     */
+    private void publishToSinks(SinkEvent record) {
+        if (asyncMode) {
+            for (SinkChannel sink : sinks) sink.publish(record);
+        } else {
+            for (SinkChannel sink : sinks) sink.writeDirect(record);
         }
+    }
 
-        // 6. Análise Comportamental (Não analisa os próprios alertas para evitar loop)
-        if (!eventType.name().startsWith("ALERT")) {
-            updateStats(threadName, eventType);
-            checkAnomalies(threadName, eventType);
+    /**
+     * Formatação, escrita e análise de um evento. Corre sempre numa única thread de cada vez
+     * (a consumidora, ou a chamadora sob o lock do monitor no modo síncrono).
+     */
+    private void process(MonitorEvent event) {
+        String threadName = event.threadName;
+        EventType eventType = event.eventType;
+        String message = event.message;
+        ThreadStats thread = processingState(event);
+
+        // Lógica de Severidade e Ação (tabela pré-calculada)
+        boolean isCritical = isCritical(eventType);
+        Severity severity = SEVERITY_BY_TYPE[eventType.ordinal()];
+        metrics.event(eventType, severity);
+
+        // Amostragem antes de qualquer formatação (HIGH/CRITICAL são sempre mantidos)
+        int weight = sampler.sample(thread, eventType, severity, event.nanoTime);
+        if (weight == 0) {
+            stats.sampledOut.increment();
+            metrics.sampledOut();
+        } else {
+            // 1-4. SINKS: consola (no silentMode só os CRÍTICOS), log geral JSON, alertas HIGH/CRITICAL
+            // num ficheiro exclusivo da thread e journal binário
+            sinkRecord.set(event.timestampMillis, event.nanoTime, event.threadId, threadName,
+                    eventType, severity, event.resource, message, isCritical, weight, false);
+            publishToSinks(sinkRecord);
         }
 
-        // 7. IPS - Atuação
-        if (action.equals("BLOCK")) {
-            killThread(threadName, "Violação de SLA detectada: " + eventType);
+        // 5. Análise Comportamental (Não analisa os próprios alertas para evitar loop)
+        if (eventType != EventType.ALERT_STARVATION) {
+            checkAnomalies(event, thread);
         }
+        if (thread != event.stats) releaseIfIdle(event.threadId, thread);
+
+        // 6. IPS - Só enfileira um pedido ao enforcer se a regra do tipo exigir atuação
+        policy.evaluate(event.threadId, threadName, eventType, event.nanoTime);
+    }
+
+    /**
+     * Escreve um registo de fecho por tipo com os eventos descartados pela amostragem que ainda não tinham
+     * sido somados a nenhum {@code sampled_weight}. Corre no contexto de processamento, por isso os eventos
+     * processados depois ficam para o fecho seguinte.
+     */
+    private void flushSampling() {
+        long millis = System.currentTimeMillis();
+        long nanos = System.nanoTime();
+        for (EventType type : EventType.values()) {
+            int pending = sampler.takePending(type);
+            if (pending == 0) continue;
+            sinkRecord.set(millis, nanos, -1, "(amostragem)", type, SEVERITY_BY_TYPE[type.ordinal()],
+                    null, "(amostragem) eventos não escritos", false, pending, true);
+            publishToSinks(sinkRecord);
+        }
+    }
+
+    /**
+     * Regista um alerta gerado pela própria análise; a atuação fica a cargo do motor de políticas.
+     */
+    private void raiseAlert(ThreadStats target, EventType eventType, String message) {
+        MonitorEvent alert = new MonitorEvent();
+        alert.set(target.threadName, target.threadId, eventType, message, System.currentTimeMillis(), System.nanoTime());
+        alert.stats = stats.record(target.threadId, target.threadName, eventType);
+        if (jfr != null) jfr.onLog(target.threadName, eventType, SEVERITY_BY_TYPE[eventType.ordinal()], null, message);
+        process(alert);
+    }
+
+    /**
+     * Chamado pelo enforcer depois de interromper a thread: regista o IPS_BLOCK em nome da agressora.
+     */
+    private void onEnforced(ThreadRegistry.Entry offender, PolicyEngine.Action action, EventType cause) {
+        String message = "IPS ACTION: " + offender.threadName
+                + (action == PolicyEngine.Action.QUARANTINE ? " interrompida e em quarentena. " : " interrompida. ")
+                + "Violação de SLA detectada: " + cause;
+        metrics.enforced(action);
+        if (jfr != null) jfr.onEnforced(offender, action, cause);
+        ThreadStats current = stats.record(offender.threadId, offender.threadName, EventType.IPS_BLOCK);
+        dispatch(offender.threadName, offender.threadId, current, EventType.IPS_BLOCK, null, message);
     }
 
     // --- Métodos Auxiliares ---
 
-    private String determineSeverity(EventType type) {
+    private static boolean isCritical(EventType type) {
+        return type == EventType.DEADLOCK_DETECTED ||
+                type == EventType.ALERT_STARVATION ||
+                type == EventType.IPS_BLOCK;
+    }
+
+    private static Severity determineSeverity(EventType type) {
         if (type == EventType.DEADLOCK_DETECTED || type == EventType.ALERT_STARVATION || type == EventType.IPS_BLOCK) {
-            return "CRITICAL";
+            return Severity.CRITICAL;
         }
         if (type == EventType.ERROR || type == EventType.INTERRUPT) {
-            return "HIGH";
+            return Severity.HIGH;
         }
-        return "INFO";
+        return Severity.INFO;
     }
 
     /**
-     * Escreve num ficheiro separado específico para a thread em questão.
-     * Útil para isolar o comportamento de um utilizador problemático.
+     * Bytes alocados por evento no caminho de codificação JSON (medido com ThreadMXBean).
      */
-    private void writeUserAlertLog(String threadName, String logContent) {
-        // Limpa caracteres especiais do nome da thread para criar um ficheiro válido
-        String safeName = threadName.replaceAll("[^a-zA-Z0-9.-]", "_");
-        String fileName = LOG_DIR + "alert_" + safeName + ".log";
-
-        try (FileWriter fw = new FileWriter(fileName, true);
-             PrintWriter pw = new PrintWriter(fw, true)) {
-            pw.println(logContent);
+    public static double jsonEncoderBytesPerEvent(int events) {
+        try {
+            return JsonEventEncoder.allocatedBytesPerEvent(events);
         } catch (IOException e) {
-            System.err.println("Erro ao escrever log individual: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Bytes alocados por evento no caminho completo de um {@code log()}: estatísticas, {@code process()},
+     * registo entregue aos sinks e codificação JSON. Corre num contexto próprio em modo síncrono, para que
+     * tudo aconteça na thread medida, com o JSON num canal que descarta os bytes em vez da consola e do ficheiro.
+     *
+     * @return bytes alocados por evento, ou -1 se a JVM não suportar a medição.
+     */
+    public static double processBytesPerEvent(int events) {
+        java.lang.management.ThreadMXBean bean = java.lang.management.ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean mx) || !mx.isThreadAllocatedMemorySupported()) return -1;
+
+        eBPFMonitor monitor = create("alloc-bench");
+        try {
+            monitor.removeSink("console");
+            monitor.removeSink("json");
+            JsonEventEncoder encoder = new JsonEventEncoder(JsonEventEncoder.discardChannel(), 64 * 1024);
+            monitor.addSink(new EventSink() {
+                public String name() { return "json-discard"; }
+                public void write(SinkEvent event) throws IOException {
+                    encoder.encode(event.timestampMillis(), event.severity(), event.eventType(), event.threadName(),
+                            event.message(), event.blocked(), event.weight());
+                }
+                public void flush() throws IOException { encoder.flush(); }
+            }, OverflowPolicy.BLOCK, 1024);
+            monitor.setAsyncMode(false);
+
+            String thread = "StressWorker-42";
+            String message = "Saldo atualizado: 1500€ \"teste\"";
+            // Aquecimento: JIT, estatísticas e registo da thread
+            for (int i = 0; i < 200_000; i++) monitor.log(thread, EventType.WORK, message);
+
+            long id = Thread.currentThread().threadId();
+            long before = mx.getThreadAllocatedBytes(id);
+            for (int i = 0; i < events; i++) monitor.log(thread, EventType.WORK, message);
+            long after = mx.getThreadAllocatedBytes(id);
+            return (double) (after - before) / events;
+        } finally {
+            monitor.shutdown();
         }
     }
 
@@ -150,37 +578,276 @@ public class eBPFMonitor {
         throw new SecurityViolationException("IPS ACTION: " + threadId + " terminada. " + reason);
     }
 
-    private void updateStats(String thread, EventType type) {
-        // Usa o Enum para comparação (mais eficiente e limpo)
-        if (type == EventType.WORK || type == EventType.LOCK_ACQUIRED || type == EventType.SUCCESS) {
-            accessStats.put(thread, accessStats.getOrDefault(thread, 0) + 1);
+    private void checkAnomalies(MonitorEvent event, ThreadStats thread) {
+        long now = event.timestampMillis;
+        EventStats current = stats;
+
+        if (event.eventType == EventType.WAIT) {
+            thread.waitStartMillis = now;
+            thread.waitStartNanos = event.nanoTime;
+            thread.waitResource = event.resource;
+
+            // Prazo de SLA na roda do watchdog: dispara mesmo que a thread nunca chegue a adquirir
+            if (thread.waitTimeout != null) thread.waitTimeout.cancel();
+            thread.waitTimeout = watchdog.schedule(thread, resourceName(event.resource), event.nanoTime,
+                    event.nanoTime + STARVATION_THRESHOLD_MS * 1_000_000L);
+
+            // Só os eventos com recurso explícito entram no grafo de espera
+            if (event.resource != null) {
+                DeadlockDetector.Cycle cycle = deadlocks.onWait(event.threadId, event.threadName, event.resource);
+                if (cycle != null) reportDeadlock(thread, cycle);
+            }
+        }
+        else if (event.eventType == EventType.LOCK_ACQUIRED) {
+            String resource = resourceName(event.resource != null ? event.resource : thread.waitResource);
+
+            if (thread.waitStartMillis >= 0) {
+                long waitNanos = event.nanoTime - thread.waitStartNanos;
+                thread.waitStartMillis = -1;
+                cancelWaitTimeout(thread);
+
+                // Histogramas de espera (WAIT -> LOCK_ACQUIRED) por recurso e por classe de thread
+                current.resourceLatency(resource).wait.record(waitNanos);
+                current.classLatency(thread.threadClass).wait.record(waitNanos);
+                metrics.lock(resource).wait.record(waitNanos);
+            }
+            thread.pushHeld(resource, event.nanoTime);
+            if (event.resource != null) deadlocks.onAcquired(event.threadId, event.threadName, event.resource);
+        }
+        else if (event.eventType == EventType.LOCK_RELEASE) {
+            // Sem recurso indicado, liberta o lock adquirido mais recentemente
+            long since = thread.popHeld(event.resource != null ? resourceName(event.resource) : null);
+            if (since >= 0) {
+                long holdNanos = event.nanoTime - since;
+                current.resourceLatency(thread.releasedResource).hold.record(holdNanos);
+                current.classLatency(thread.threadClass).hold.record(holdNanos);
+                metrics.lock(thread.releasedResource).hold.record(holdNanos);
+                deadlocks.onRelease(event.threadId, thread.releasedResource);
+            }
+        }
+        else if (event.eventType == EventType.INTERRUPT) {
+            // A thread desistiu da espera (ex: interrompida após um deadlock)
+            deadlocks.onAbort(event.threadId);
+            thread.waitStartMillis = -1;
+            cancelWaitTimeout(thread);
         }
     }
 
-    private void checkAnomalies(String thread, EventType type) {
-        long now = System.currentTimeMillis();
+    /**
+     * Estado de processamento da thread do evento. As threads agregadas na entrada partilhada de overflow
+     * (tabela cheia) só partilham os contadores: o WAIT pendente, os locks na posse, o prazo do watchdog e a
+     * amostragem ficam num objeto próprio, guardado apenas enquanto houver estado em curso.
+     */
+    private ThreadStats processingState(MonitorEvent event) {
+        ThreadStats recorded = event.stats;
+        if (!recorded.isAggregate()) return recorded;
+        return overflowState.computeIfAbsent(event.threadId, id -> new ThreadStats(id, event.threadName));
+    }
 
-        if (type == EventType.WAIT) {
-            waitTimers.put(thread, now);
+    /** Larga o estado de uma thread de overflow sem nada em curso (o token bucket da amostragem recomeça). */
+    private void releaseIfIdle(long threadId, ThreadStats thread) {
+        if (thread.waitStartMillis >= 0 || thread.waitTimeout != null || thread.heldCount > 0) return;
+        overflowState.remove(threadId);
+    }
+
+    private static void cancelWaitTimeout(ThreadStats thread) {
+        if (thread.waitTimeout != null) {
+            thread.waitTimeout.cancel();
+            thread.waitTimeout = null;
         }
-        else if (type == EventType.LOCK_ACQUIRED) {
-            if (waitTimers.containsKey(thread)) {
-                long duration = now - waitTimers.remove(thread);
+    }
 
-                if (duration > STARVATION_THRESHOLD_MS) {
-                    // Chama o log recursivamente com o evento de Alerta
-                    log(thread, EventType.ALERT_STARVATION, "Latência excessiva: " + duration + "ms");
-                }
+    /**
+     * Disparado pela thread do watchdog quando um WAIT excede o SLA sem LOCK_ACQUIRED.
+     * O alerta segue o caminho normal (ring buffer ou lock) em nome da thread em espera.
+     */
+    private void onStarvation(TimerWheel.Timeout timeout) {
+        ThreadStats target = timeout.target;
+        long waitedMs = (System.nanoTime() - timeout.startNanos) / 1_000_000L;
+        String message = "Starvation: à espera de " + timeout.resource + " há " + waitedMs + "ms (SLA "
+                + STARVATION_THRESHOLD_MS + "ms)";
+
+        ThreadStats current = stats.record(target.threadId, target.threadName, EventType.ALERT_STARVATION);
+        if (jfr != null) jfr.onLog(target.threadName, EventType.ALERT_STARVATION, Severity.CRITICAL, timeout.resource, message);
+        dispatch(target.threadName, target.threadId, current, EventType.ALERT_STARVATION, timeout.resource, message);
+        starvationSignal.signal(target.threadName);
+    }
+
+    /**
+     * Emite o alerta de deadlock com as threads e recursos exatos do ciclo e acorda quem espera
+     * por {@link #awaitDeadlock(long, long)}.
+     */
+    private void reportDeadlock(ThreadStats thread, DeadlockDetector.Cycle cycle) {
+        raiseAlert(thread, EventType.DEADLOCK_DETECTED, "Ciclo de espera: " + cycle.describe());
+        lastDeadlock = cycle;
+        deadlockSignal.signal(cycle.describe());
+    }
+
+    /**
+     * Número de deadlocks detetados pelo grafo de espera desde o arranque.
+     */
+    public long deadlockCount() {
+        return deadlockSignal.count();
+    }
+
+    /**
+     * Espera até ser detetado um deadlock para além dos {@code seen} já conhecidos.
+     *
+     * @param seen      Valor de {@link #deadlockCount()} antes do cenário.
+     * @param timeoutMs Tempo máximo de espera.
+     * @return true se foi detetado um novo deadlock dentro do prazo.
+     */
+    public boolean awaitDeadlock(long seen, long timeoutMs) throws InterruptedException {
+        return deadlockSignal.await(seen, timeoutMs);
+    }
+
+    /**
+     * Descrição do último ciclo detetado (ex: {@code Hacker -> [Cliente B] -> Vitima -> [Cliente A] -> Hacker}).
+     */
+    public String lastDeadlock() {
+        return deadlockSignal.last();
+    }
+
+    /**
+     * Número de alertas de starvation disparados pelo watchdog desde o arranque.
+     */
+    public long starvationCount() {
+        return starvationSignal.count();
+    }
+
+    /**
+     * Espera até o watchdog disparar um alerta de starvation para além dos {@code seen} já conhecidos.
+     */
+    public boolean awaitStarvation(long seen, long timeoutMs) throws InterruptedException {
+        return starvationSignal.await(seen, timeoutMs);
+    }
+
+    /** Nome da última thread sinalizada pelo watchdog. */
+    public String lastStarved() {
+        return starvationSignal.last();
+    }
+
+    /**
+     * Latência do IPS na geração atual: do evento que violou a regra até a thread agressora ser interrompida.
+     */
+    public LatencyHistogram enforcementLatency() {
+        return policy.metrics().latency;
+    }
+
+    /** SLA de espera (ms) usado pelo watchdog. */
+    public long starvationSlaMs() {
+        return STARVATION_THRESHOLD_MS;
+    }
+
+    /**
+     * Verificação cruzada do último ciclo com {@code ThreadMXBean.findDeadlockedThreads()}.
+     *
+     * @return "confirmadas/total" threads do ciclo que a JVM também vê em deadlock.
+     */
+    public String crossCheckDeadlock() {
+        DeadlockDetector.Cycle cycle = lastDeadlock;
+        if (cycle == null) return "0/0";
+        return DeadlockDetector.confirmedByJvm(cycle) + "/" + cycle.threads.size();
+    }
+
+    /**
+     * Inicia o endpoint {@code http://localhost:<porta>/metrics} (formato Prometheus), se ainda não estiver ativo.
+     *
+     * @param port Porta local (0 = escolhida pelo sistema).
+     * @return Porta em uso, ou -1 se o servidor não puder ser iniciado.
+     */
+    public synchronized int startMetricsServer(int port) {
+        if (metricsServer != null) return metricsServer.port();
+        try {
+            metricsServer = new MetricsServer(port, body -> metrics.writeTo(body, registry, pipeline.backlog(), sinks),
+                    "eBPF-Metrics" + threadSuffix);
+            System.out.println("[eBPF] Métricas Prometheus em http://localhost:" + metricsServer.port() + "/metrics");
+            return metricsServer.port();
+        } catch (IOException e) {
+            System.err.println("Falha ao iniciar o endpoint de métricas: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Regista o resultado de um teste de carga (exportado como throughput por cenário).
+     *
+     * @param scenario     Nome do cenário (ex: "stress-semaforo").
+     * @param operations   Operações concluídas.
+     * @param elapsedNanos Duração da execução.
+     */
+    public void recordThroughput(String scenario, long operations, long elapsedNanos) {
+        metrics.throughput(scenario, operations, elapsedNanos);
+    }
+
+    private static String resourceName(String resource) {
+        return resource != null ? resource : "(sem recurso)";
+    }
+
+    /**
+     * Latências de espera e posse do recurso na geração atual de estatísticas.
+     */
+    public LockLatency lockLatency(String resource) {
+        flush();
+        return stats.resourceLatency(resource);
+    }
+
+    /**
+     * Imprime o resumo da execução e começa uma nova geração de estatísticas.
+     */
+    public void print() {
+        report().print(System.out);
+    }
+
+    /**
+     * Resumo da geração atual de estatísticas; começa uma nova geração.
+     * <p>
+     * Não usa o lock do monitor: a geração atual é trocada atomicamente por uma nova e o resumo
+     * é lido da geração antiga, que deixa de receber atualizações.
+     */
+    public MonitorReport report() {
+        flush(); // a análise (tempos de espera) é feita pela thread consumidora
+        alertSink.flushAll();
+
+        EventStats snapshot = stats;
+        stats = new EventStats(STATS_CAPACITY);
+
+        // Os pesos pendentes da amostragem são escritos pelo contexto de processamento, na ordem dos eventos
+        if (asyncMode) {
+            pipeline.publishTask(this::flushSampling);
+            flush();
+        } else {
+            synchronized (this) {
+                flushSampling();
             }
         }
+        PolicyEngine.Metrics ips = policy.swapMetrics();
+
+        List<ThreadStats> threads = snapshot.threads();
+        threads.sort(Comparator.comparingLong(t -> t.threadId));
+        LinkedHashMap<String, Long> accesses = new LinkedHashMap<>();
+        for (ThreadStats t : threads) accesses.merge(t.threadName, t.accesses(), Long::sum);
+
+        long[] totals = new long[EventType.values().length];
+        for (EventType type : EventType.values()) totals[type.ordinal()] = snapshot.total(type);
+
+        return new MonitorReport(context, accesses, totals, snapshot.sampledOut.sum(), sampler.toString(),
+                snapshot.latencyByResource(), snapshot.latencyByClass(),
+                ips.enforced.sum(), ips.protectedThreads.sum(), ips.dropped.sum(), ips.latency, sinkSummaries());
     }
 
-    public synchronized void print() {
-        System.out.println("\n=== Resumo de Execução ===");
-        if (accessStats.isEmpty()) System.out.println("Sem dados registados.");
-        else accessStats.forEach((k, v) -> System.out.println("THREAD: " + k + " | ACESSOS: " + v));
-        System.out.println("==========================\n");
-        accessStats.clear();
-        waitTimers.clear();
+    /**
+     * Uma linha por sink com atividade: fila, descartados/agregados (cumulativos) e atraso da geração.
+     */
+    private List<String> sinkSummaries() {
+        List<String> lines = new ArrayList<>();
+        for (SinkChannel sink : sinks) {
+            LatencyHistogram lag = sink.swapLag();
+            if (lag.count() == 0 && sink.dropped() == 0 && sink.coalesced() == 0) continue;
+            lines.add("SINK: " + sink.name() + " (" + sink.policy() + ") | FILA: " + sink.queueDepth()
+                    + "/" + sink.capacity() + " | DESCARTADOS: " + sink.dropped() + " | AGREGADOS: " + sink.coalesced()
+                    + " | ATRASO: " + lag.summary());
+        }
+        return lines;
     }
-}
\ No newline at end of file
+}
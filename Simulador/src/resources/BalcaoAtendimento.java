@@ -0,0 +1,47 @@
+package resources;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Balcões do departamento de crédito vistos por um cliente de uma classe (ex: 0 = VIP, 1 = Normal):
+ * {@code entrar} bloqueia até haver um balcão para ele e {@code sair} liberta-o.
+ * <p>
+ * Permite comparar no mesmo cenário o escalonador por classes ({@link DepartamentoCreditoBalcoes}) com as
+ * defesas que ignoram a classe: um semáforo justo e o Ticket Lock.
+ */
+public interface BalcaoAtendimento {
+
+    void entrar(int classe) throws InterruptedException;
+
+    void sair();
+
+    /** Semáforo (ex: {@code new Semaphore(1, true)}): uma licença por balcão, a classe é ignorada. */
+    static BalcaoAtendimento deSemaforo(Semaphore semaforo) {
+        return new BalcaoAtendimento() {
+            @Override
+            public void entrar(int classe) throws InterruptedException {
+                semaforo.acquire();
+            }
+
+            @Override
+            public void sair() {
+                semaforo.release();
+            }
+        };
+    }
+
+    /** Ticket Lock: um único balcão, atendido estritamente por ordem de senha. */
+    static BalcaoAtendimento deSenhas(SistemaSenhas senhas) {
+        return new BalcaoAtendimento() {
+            @Override
+            public void entrar(int classe) throws InterruptedException {
+                senhas.aguardarVez(senhas.tirarSenha());
+            }
+
+            @Override
+            public void sair() {
+                senhas.sair();
+            }
+        };
+    }
+}
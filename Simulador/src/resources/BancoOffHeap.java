@@ -0,0 +1,168 @@
+package resources;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Banco com milhões de contas sem um objeto por conta.
+ * <p>
+ * Os saldos vivem fora do heap, num {@link ByteBuffer} direto (8 bytes por conta, indexado pelo id), e são
+ * protegidos por um array fixo de locks repartidos (<i>striped locks</i>): a conta {@code id} usa o lock
+ * {@code id % stripes}. O heap passa a custar apenas os locks, independentemente do número de contas, e o número
+ * de stripes controla o compromisso entre memória e contenção. Os locks são espaçados em memória, para que stripes
+ * vizinhos não partilhem uma linha de cache.
+ * <p>
+ * Nas transferências os dois locks são adquiridos por ordem crescente de índice (a mesma ordenação de recursos
+ * do {@code DeadlockSecure}), por isso transferências cruzadas nunca formam espera circular.
+ */
+public final class BancoOffHeap {
+    private static final int BYTES_POR_CONTA = Long.BYTES;
+
+    /**
+     * Lock de um stripe com enchimento. O estado do lock fica no {@code Sync} que o ReentrantLock aloca logo a
+     * seguir a este objeto; os campos extra afastam os {@code Sync} de stripes consecutivos mais de 64 bytes.
+     */
+    private static final class LockEspacado extends ReentrantLock {
+        private static final long serialVersionUID = 1L;
+        long p1, p2, p3, p4, p5, p6, p7, p8;
+    }
+
+    private final ByteBuffer saldos;
+    private final int numContas;
+    private final ReentrantLock[] stripes;
+
+    /**
+     * @param numContas Número de contas (ids de 0 a numContas - 1).
+     * @param stripes   Número de locks repartidos pelas contas.
+     * @param saldoInicial Saldo inicial de cada conta.
+     */
+    public BancoOffHeap(int numContas, int stripes, long saldoInicial) {
+        this(ByteBuffer.allocateDirect(Math.multiplyExact(numContas, BYTES_POR_CONTA)).order(ByteOrder.nativeOrder()),
+                numContas, stripes);
+        preencher(saldoInicial);
+    }
+
+    private BancoOffHeap(ByteBuffer saldos, int numContas, int stripes) {
+        if (stripes < 1) throw new IllegalArgumentException("É preciso pelo menos um stripe");
+        this.saldos = saldos;
+        this.numContas = numContas;
+        this.stripes = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) this.stripes[i] = new LockEspacado();
+    }
+
+    /**
+     * Outra vista dos mesmos saldos com um número diferente de stripes
+     * (para comparar configurações sem alocar de novo a memória off-heap).
+     * Não pode ser usada ao mesmo tempo que esta.
+     */
+    public BancoOffHeap comStripes(int stripes) {
+        return new BancoOffHeap(saldos, numContas, stripes);
+    }
+
+    /** Repõe todas as contas com o mesmo saldo (sem outras operações em curso). */
+    public void preencher(long saldoInicial) {
+        for (int id = 0; id < numContas; id++) saldos.putLong(id * BYTES_POR_CONTA, saldoInicial);
+    }
+
+    public int getNumContas() {
+        return numContas;
+    }
+
+    public int getStripes() {
+        return stripes.length;
+    }
+
+    /** Bytes ocupados fora do heap pelos saldos. */
+    public long bytesOffHeap() {
+        return saldos.capacity();
+    }
+
+    private int stripe(int id) {
+        return id % stripes.length;
+    }
+
+    public void depositar(int id, long valor) {
+        ReentrantLock lock = stripes[stripe(id)];
+        lock.lock();
+        try {
+            escrever(id, ler(id) + valor);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return false se o saldo não chega (nada é alterado).
+     */
+    public boolean levantar(int id, long valor) {
+        ReentrantLock lock = stripes[stripe(id)];
+        lock.lock();
+        try {
+            long saldo = ler(id);
+            if (saldo < valor) return false;
+            escrever(id, saldo - valor);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Transfere entre duas contas de forma atómica.
+     * @return false se a origem não tem saldo suficiente ou se origem e destino são a mesma conta.
+     */
+    public boolean transferir(int origem, int destino, long valor) {
+        if (origem == destino) return false;
+        int a = stripe(origem), b = stripe(destino);
+        ReentrantLock primeiro = stripes[Math.min(a, b)];
+        ReentrantLock segundo = stripes[Math.max(a, b)];
+
+        primeiro.lock();
+        try {
+            if (segundo != primeiro) segundo.lock();
+            try {
+                long saldo = ler(origem);
+                if (saldo < valor) return false;
+                escrever(origem, saldo - valor);
+                escrever(destino, ler(destino) + valor);
+                return true;
+            } finally {
+                if (segundo != primeiro) segundo.unlock();
+            }
+        } finally {
+            primeiro.unlock();
+        }
+    }
+
+    public long getSaldo(int id) {
+        ReentrantLock lock = stripes[stripe(id)];
+        lock.lock();
+        try {
+            return ler(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Soma de todos os saldos, com todos os stripes adquiridos por ordem (fotografia consistente). */
+    public long saldoTotal() {
+        for (ReentrantLock lock : stripes) lock.lock();
+        try {
+            long total = 0;
+            for (int id = 0; id < numContas; id++) total += ler(id);
+            return total;
+        } finally {
+            for (int i = stripes.length - 1; i >= 0; i--) stripes[i].unlock();
+        }
+    }
+
+    // Acessos absolutos: não alteram a posição do buffer, e o lock do stripe dá a visibilidade entre threads
+    private long ler(int id) {
+        return saldos.getLong(id * BYTES_POR_CONTA);
+    }
+
+    private void escrever(int id, long saldo) {
+        saldos.putLong(id * BYTES_POR_CONTA, saldo);
+    }
+}
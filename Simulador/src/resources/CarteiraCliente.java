@@ -4,13 +4,29 @@ import java.util.concurrent.Semaphore;
 /**
  * Representa a carteira individual de um cliente.
  * Para transferir dinheiro, é preciso bloquear a carteira de origem e a de destino.
+ * <p>
+ * No motor de transferências cada carteira tem também um id numérico estável, que define a ordem global
+ * de aquisição dos locks, e um saldo (alterado apenas com o lock da carteira).
  */
 public class CarteiraCliente {
     private String titular;
     private Semaphore lock = new Semaphore(1);
+    private final int id;
+    private long saldo;
 
     public CarteiraCliente(String titular) {
+        this(-1, titular, 0);
+    }
+
+    /**
+     * @param id           Id numérico estável (ordem de aquisição dos locks).
+     * @param titular      Nome do titular.
+     * @param saldoInicial Saldo inicial da carteira.
+     */
+    public CarteiraCliente(int id, String titular, long saldoInicial) {
+        this.id = id;
         this.titular = titular;
+        this.saldo = saldoInicial;
     }
 
     public String getTitular() {
@@ -20,4 +36,18 @@ public class CarteiraCliente {
     public Semaphore getLock() {
         return lock;
     }
-}
\ No newline at end of file
+
+    public int getId() {
+        return id;
+    }
+
+    /** Saldo atual (ler com o lock, ou depois de todas as transferências terminarem). */
+    public long getSaldo() {
+        return saldo;
+    }
+
+    /** Só deve ser chamado por quem tem o lock da carteira. */
+    public void setSaldo(long saldo) {
+        this.saldo = saldo;
+    }
+}
@@ -0,0 +1,44 @@
+package resources;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Conta conjunta sem locks: o saldo é um {@link AtomicLong} atualizado com compare-and-set (CAS).
+ * Nenhum depósito bloqueia; se outra thread alterar o saldo entre a leitura e a escrita,
+ * o CAS falha e o depósito é repetido com o saldo novo.
+ */
+public class ContaAtomica extends ContaConjunta {
+    private final AtomicLong saldo = new AtomicLong();
+    private final LongAdder falhas = new LongAdder();
+
+    @Override
+    public int getSaldo() {
+        return (int) saldo.get();
+    }
+
+    @Override
+    public void setSaldo(int saldo) {
+        this.saldo.set(saldo);
+    }
+
+    /** Saldo atual, para usar como valor esperado no {@link #compareAndSet}. */
+    public long lerSaldo() {
+        return saldo.get();
+    }
+
+    /**
+     * Escreve o novo saldo apenas se ainda for o lido.
+     * @return false se outra thread alterou o saldo entretanto.
+     */
+    public boolean compareAndSet(long esperado, long novo) {
+        if (saldo.compareAndSet(esperado, novo)) return true;
+        falhas.increment();
+        return false;
+    }
+
+    /** CAS falhados desde a criação da conta (cada um obrigou a repetir um depósito). */
+    public long getFalhasCas() {
+        return falhas.sum();
+    }
+}
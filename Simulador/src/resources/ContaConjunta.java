@@ -1,5 +1,6 @@
 package resources;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Representa uma Conta Bancária Conjunta.
@@ -7,10 +8,20 @@ import java.util.concurrent.Semaphore;
  * causando erros no saldo final.
  */
 public class ContaConjunta {
+    private static final AtomicInteger SEQUENCIA = new AtomicInteger();
+
     private int saldo = 0;
 
     private final Semaphore mutex = new Semaphore(1, true);
 
+    /** Único por conta (ex: ContaAtomica-3), para as latências de duas contas não se misturarem. */
+    private final String id = getClass().getSimpleName() + "-" + SEQUENCIA.incrementAndGet();
+
+    /** Identificador do recurso nos eventos do monitor. */
+    public String getId() {
+        return id;
+    }
+
     public int getSaldo() {
         return saldo;
     }
@@ -0,0 +1,29 @@
+package resources;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Conta conjunta com o saldo repartido num {@link LongAdder}.
+ * Sob contenção cada thread passa a somar numa célula própria, por isso rajadas de depósitos
+ * não disputam a mesma variável; o saldo é a soma das células (leitura mais cara, mas rara).
+ */
+public class ContaRepartida extends ContaConjunta {
+    private final LongAdder saldo = new LongAdder();
+
+    @Override
+    public int getSaldo() {
+        return (int) saldo.sum();
+    }
+
+    /** Substitui o saldo (só é exato sem depósitos em curso). */
+    @Override
+    public void setSaldo(int saldo) {
+        this.saldo.reset();
+        this.saldo.add(saldo);
+    }
+
+    /** Depósito sem bloqueio nem repetição. */
+    public void depositar(int valor) {
+        saldo.add(valor);
+    }
+}
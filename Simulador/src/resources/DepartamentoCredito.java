@@ -1,5 +1,6 @@
 package resources;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Departamento que aprova créditos.
@@ -7,12 +8,20 @@ import java.util.concurrent.Semaphore;
  * Se 'fair' for true, atende por ordem de chegada (fila única).
  */
 public class DepartamentoCredito {
+    private static final AtomicInteger SEQUENCIA = new AtomicInteger();
+
+    private final String id = "DepartamentoCredito-" + SEQUENCIA.incrementAndGet();
     private Semaphore sem;
 
     public DepartamentoCredito(boolean sistemaJusto) {
         this.sem = new Semaphore(1, sistemaJusto);
     }
 
+    /** Identificador do recurso nos eventos do monitor (um por instância). */
+    public String getId() {
+        return id;
+    }
+
     public Semaphore getSem() {
         return sem;
     }
@@ -0,0 +1,159 @@
+package resources;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Departamento de crédito com k balcões e um escalonador por classes de cliente.
+ * <p>
+ * O {@link DepartamentoCredito} só tem dois extremos: sem justiça (os VIPs podem esfomear os clientes normais)
+ * ou FIFO estrito (os VIPs não têm qualquer prioridade). Aqui cada classe tem um peso e a sua própria fila:
+ * <ul>
+ * <li><b>Weighted Fair Queuing:</b> cada pedido recebe uma etiqueta de tempo virtual,
+ * {@code max(tempoVirtual, ultimaEtiqueta[classe]) + 1/peso}, e o balcão livre vai para a cabeça de fila com a
+ * menor etiqueta. Com todas as classes em fila, uma classe de peso 3 é atendida três vezes por cada atendimento de
+ * uma classe de peso 1.</li>
+ * <li><b>Envelhecimento (aging):</b> cada {@code envelhecimento} de espera desconta um atendimento à etiqueta,
+ * por isso um cliente que espera há muito acaba sempre por passar à frente, seja qual for o peso da classe.</li>
+ * </ul>
+ * Dentro de cada classe a ordem é de chegada. Os clientes em espera estacionam ({@link LockSupport#park}) e quem
+ * liberta um balcão entrega-o diretamente ao escolhido, que é o único acordado.
+ */
+public class DepartamentoCreditoBalcoes implements BalcaoAtendimento {
+
+    /** Pedido de um cliente em fila. */
+    private static final class Pedido {
+        final Thread thread = Thread.currentThread();
+        final long chegada = System.nanoTime();
+        final double etiqueta;
+        volatile boolean atendido;
+
+        Pedido(double etiqueta) {
+            this.etiqueta = etiqueta;
+        }
+    }
+
+    private static final AtomicInteger SEQUENCIA = new AtomicInteger();
+
+    private final String id = "DepartamentoCreditoBalcoes-" + SEQUENCIA.incrementAndGet();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final double[] custo;              // 1 / peso de cada classe
+    private final double[] ultimaEtiqueta;
+    private final List<ArrayDeque<Pedido>> filas;
+    private final long envelhecimentoNanos;
+    private double tempoVirtual;
+    private int livres;
+
+    /**
+     * @param balcoes         Número de balcões (clientes atendidos em simultâneo).
+     * @param pesos           Peso de cada classe (índice = classe).
+     * @param envelhecimento  Espera que vale um atendimento de prioridade (0 = sem envelhecimento).
+     */
+    public DepartamentoCreditoBalcoes(int balcoes, int[] pesos, long envelhecimento, TimeUnit unidade) {
+        if (balcoes < 1) throw new IllegalArgumentException("É preciso pelo menos um balcão");
+        this.livres = balcoes;
+        this.custo = new double[pesos.length];
+        this.ultimaEtiqueta = new double[pesos.length];
+        this.filas = new ArrayList<>(pesos.length);
+        for (int c = 0; c < pesos.length; c++) {
+            if (pesos[c] < 1) throw new IllegalArgumentException("Peso inválido para a classe " + c + ": " + pesos[c]);
+            custo[c] = 1.0 / pesos[c];
+            filas.add(new ArrayDeque<>());
+        }
+        this.envelhecimentoNanos = unidade.toNanos(envelhecimento);
+    }
+
+    /** Identificador do recurso nos eventos do monitor (um por instância). */
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public void entrar(int classe) throws InterruptedException {
+        Pedido pedido;
+        lock.lock();
+        try {
+            if (livres > 0 && filasVazias()) {
+                livres--;
+                return;
+            }
+            double etiqueta = Math.max(tempoVirtual, ultimaEtiqueta[classe]) + custo[classe];
+            ultimaEtiqueta[classe] = etiqueta;
+            pedido = new Pedido(etiqueta);
+            filas.get(classe).addLast(pedido);
+        } finally {
+            lock.unlock();
+        }
+
+        while (!pedido.atendido) {
+            LockSupport.park(this);
+            if (Thread.interrupted()) {
+                desistir(classe, pedido);
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    @Override
+    public void sair() {
+        lock.lock();
+        try {
+            Pedido seguinte = escolher(System.nanoTime());
+            if (seguinte == null) {
+                livres++;
+                return;
+            }
+            tempoVirtual = Math.max(tempoVirtual, seguinte.etiqueta);
+            seguinte.atendido = true;
+            LockSupport.unpark(seguinte.thread);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Tira da fila a cabeça com a menor etiqueta já descontado o envelhecimento.
+     * Basta olhar para as cabeças: dentro de uma classe, quem chegou primeiro tem a menor etiqueta e a maior espera.
+     */
+    private Pedido escolher(long agora) {
+        int melhor = -1;
+        double prioridade = Double.MAX_VALUE;
+        for (int c = 0; c < filas.size(); c++) {
+            Pedido cabeca = filas.get(c).peekFirst();
+            if (cabeca == null) continue;
+            double efetiva = cabeca.etiqueta;
+            if (envelhecimentoNanos > 0) efetiva -= (double) (agora - cabeca.chegada) / envelhecimentoNanos;
+            if (efetiva < prioridade) {
+                prioridade = efetiva;
+                melhor = c;
+            }
+        }
+        return melhor < 0 ? null : filas.get(melhor).pollFirst();
+    }
+
+    /** Sai da fila; se o balcão já lhe tinha sido entregue, passa-o ao seguinte. */
+    private void desistir(int classe, Pedido pedido) {
+        lock.lock();
+        try {
+            if (!pedido.atendido) {
+                filas.get(classe).remove(pedido);
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        sair();
+    }
+
+    private boolean filasVazias() {
+        for (ArrayDeque<Pedido> fila : filas) {
+            if (!fila.isEmpty()) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,121 @@
+package resources;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ticket Lock com uma fila de threads estacionadas, em vez de wait() e notifyAll().
+ * <p>
+ * No {@link DepartamentoCreditoSync}, cada {@code sair()} acorda os N clientes em espera, que voltam todos a
+ * disputar o monitor só para verificar a senha e adormecer outra vez: cada passagem de vez custa O(N) trocas de
+ * contexto. Aqui cada senha tem um lugar num array circular onde o cliente regista a sua thread antes de
+ * estacionar ({@link LockSupport#park}), e {@code sair()} acorda apenas o dono da senha seguinte ({@code unpark}).
+ * Antes de estacionar, o cliente ainda espera ativamente umas voltas (só com mais de um processador), porque a
+ * vez costuma chegar mais depressa do que uma troca de contexto.
+ * <p>
+ * A capacidade do array deve cobrir o número máximo de clientes em fila. Se duas senhas em espera caírem no mesmo
+ * lugar, a segunda não se regista e verifica a vez periodicamente: continua correto, apenas mais lento.
+ * Um cliente interrompido desiste da sua senha, e quem chamar essa senha passa a vez ao seguinte.
+ */
+public class DepartamentoCreditoFila implements SistemaSenhas {
+    private static final int VOLTAS_SPIN = Runtime.getRuntime().availableProcessors() > 1 ? 128 : 0;
+
+    /** Intervalo de verificação de quem não conseguiu registar-se no seu lugar. */
+    private static final long ESPERA_COLISAO_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final AtomicInteger SEQUENCIA = new AtomicInteger();
+
+    private final String id = "DepartamentoCreditoFila-" + SEQUENCIA.incrementAndGet();
+
+    private final AtomicInteger proximaSenha = new AtomicInteger(); // Próximo número a ser distribuído
+    private volatile int senhaAtual = 0;                            // Número que está a ser atendido
+
+    private final int mascara;
+    /** Thread estacionada à espera de cada senha (lugar = senha & mascara). */
+    private final AtomicReferenceArray<Thread> espera;
+    /** Marca das senhas cujo dono desistiu antes de ser chamado (0 = nenhuma). */
+    private final AtomicLongArray desistencias;
+
+    public DepartamentoCreditoFila() {
+        this(1024);
+    }
+
+    /**
+     * @param capacidade Número máximo esperado de clientes em fila (arredondado à potência de 2 seguinte).
+     */
+    public DepartamentoCreditoFila(int capacidade) {
+        int lugares = Integer.highestOneBit(Math.max(2, capacidade) - 1) << 1;
+        this.mascara = lugares - 1;
+        this.espera = new AtomicReferenceArray<>(lugares);
+        this.desistencias = new AtomicLongArray(lugares);
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public int tirarSenha() {
+        return proximaSenha.getAndIncrement();
+    }
+
+    @Override
+    public void aguardarVez(int minhaSenha) throws InterruptedException {
+        for (int i = 0; i < VOLTAS_SPIN; i++) {
+            if (senhaAtual == minhaSenha) return;
+            Thread.onSpinWait();
+        }
+
+        int lugar = minhaSenha & mascara;
+        Thread eu = Thread.currentThread();
+        // Regista-se antes de voltar a ler a senha atual: se o sair() já passou, o ciclo nem estaciona,
+        // e se ainda não passou, vai encontrar esta thread no lugar
+        boolean registado = espera.compareAndSet(lugar, null, eu);
+        try {
+            while (senhaAtual != minhaSenha) {
+                if (registado) LockSupport.park(this);
+                else LockSupport.parkNanos(this, ESPERA_COLISAO_NANOS);
+
+                if (Thread.interrupted()) {
+                    desistir(minhaSenha);
+                    throw new InterruptedException();
+                }
+            }
+        } finally {
+            if (registado) espera.compareAndSet(lugar, eu, null);
+        }
+    }
+
+    @Override
+    public void sair() {
+        int seguinte = senhaAtual + 1;
+        while (true) {
+            senhaAtual = seguinte;
+            // Se o dono desta senha já desistiu, a vez passa logo para a seguinte
+            if (!desistencias.compareAndSet(seguinte & mascara, marca(seguinte), 0)) break;
+            seguinte++;
+        }
+        Thread proximo = espera.get(seguinte & mascara);
+        if (proximo != null) LockSupport.unpark(proximo);
+    }
+
+    /**
+     * Abandona a fila. A marca e a senha atual decidem quem passa a vez: se o {@code sair()} já chamou esta
+     * senha sem ver a marca, quem retira a marca é o próprio cliente, e é ele que chama o seguinte.
+     */
+    private void desistir(int minhaSenha) {
+        int lugar = minhaSenha & mascara;
+        desistencias.set(lugar, marca(minhaSenha));
+        if (senhaAtual == minhaSenha && desistencias.compareAndSet(lugar, marca(minhaSenha), 0)) {
+            sair();
+        }
+    }
+
+    /** Marca de desistência de uma senha (nunca 0). */
+    private static long marca(int senha) {
+        return (senha & 0xFFFFFFFFL) + 1;
+    }
+}
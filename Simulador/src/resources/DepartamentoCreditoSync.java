@@ -1,5 +1,7 @@
 package resources;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Monitor que implementa um algoritmo de Ticket Lock (Sistema de Senhas)
  * usando wait() e notifyAll().
@@ -7,10 +9,18 @@ package resources;
  * Isto prova que é possível implementar Justiça (Fairness) manualmente
  * sem depender de classes prontas como Semaphore(true).
  */
-public class DepartamentoCreditoSync {
+public class DepartamentoCreditoSync implements SistemaSenhas {
+    private static final AtomicInteger SEQUENCIA = new AtomicInteger();
+
+    private final String id = "DepartamentoCreditoSync-" + SEQUENCIA.incrementAndGet();
     private int senhaAtual = 0;      // Número que está a ser atendido
     private int proximaSenha = 0;    // Próximo número a ser distribuído
 
+    /** Identificador do recurso nos eventos do monitor (um por instância). */
+    public String getId() {
+        return id;
+    }
+
     /**
      * Retira uma senha da máquina.
      * É synchronized para garantir que dois clientes não tiram o mesmo número.
@@ -0,0 +1,23 @@
+package resources;
+
+/**
+ * Sistema de senhas (Ticket Lock) do departamento de crédito: cada cliente tira uma senha
+ * e é atendido estritamente por ordem de chegada.
+ * <p>
+ * Implementado com wait/notifyAll ({@link DepartamentoCreditoSync}) e com uma fila de
+ * threads estacionadas ({@link DepartamentoCreditoFila}), que acorda apenas o próximo cliente.
+ */
+public interface SistemaSenhas {
+
+    /** Identificador do recurso nos eventos do monitor (um por instância). */
+    String getId();
+
+    /** Retira uma senha da máquina (nunca duas threads recebem o mesmo número). */
+    int tirarSenha();
+
+    /** Bloqueia a thread até que a sua senha seja chamada. */
+    void aguardarVez(int minhaSenha) throws InterruptedException;
+
+    /** Termina o atendimento e chama o próximo número. */
+    void sair();
+}
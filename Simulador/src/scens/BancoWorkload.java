@@ -0,0 +1,117 @@
+package scens;
+
+import monitor.EventType;
+import monitor.eBPFMonitor;
+import resources.BancoOffHeap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Worker de carga sobre o {@link BancoOffHeap}: uma mistura de depósitos, levantamentos e transferências
+ * entre contas escolhidas com uma distribuição de Zipf (poucas contas "quentes" recebem a maioria das operações).
+ * <p>
+ * Com milhões de operações por worker, só o início e o fim são reportados ao monitor: um evento por operação
+ * mediria o logging e não a contenção nos stripes. Os totais depositados/levantados ficam no worker para
+ * verificar, no fim, que o dinheiro do banco bate certo.
+ * <p>
+ * Os ranks não são usados diretamente como ids: com o rank k na conta k - 1, as contas mais quentes ficavam
+ * seguidas no buffer (8 por linha de cache de 64 bytes) e a comparação de stripes media sobretudo false sharing.
+ * Cada rank passa por uma permutação fixa, {@code (k - 1) * passo mod n} com o passo primo com n, que as espalha
+ * pelo buffer inteiro.
+ */
+public class BancoWorkload implements Runnable {
+    /** Monitor que recebe os eventos (o global, ou o contexto do cenário). */
+    private final eBPFMonitor monitor;
+
+    private final BancoOffHeap banco;
+    private final ZipfGenerator zipf;
+    private final int operacoes;
+    private final int percentDepositos;
+    private final int percentLevantamentos;
+    private final long passo;
+
+    private long depositado;
+    private long levantado;
+    private long transferencias;
+    private long recusadas;
+
+    /**
+     * @param operacoes            Operações a executar.
+     * @param percentDepositos     Percentagem de depósitos (0-100).
+     * @param percentLevantamentos Percentagem de levantamentos; o resto são transferências.
+     */
+    public BancoWorkload(eBPFMonitor monitor, BancoOffHeap banco, ZipfGenerator zipf, int operacoes,
+                         int percentDepositos, int percentLevantamentos) {
+        this.monitor = monitor;
+        this.banco = banco;
+        this.zipf = zipf;
+        this.operacoes = operacoes;
+        this.percentDepositos = percentDepositos;
+        this.percentLevantamentos = percentLevantamentos;
+        this.passo = passoPermutacao(banco.getNumContas());
+    }
+
+    /** Passo perto de n / φ e primo com n: consecutivos ficam longe uns dos outros e nenhuma conta se repete. */
+    private static long passoPermutacao(int n) {
+        long passo = Math.max(1, (long) (n * 0.6180339887498949));
+        while (mdc(passo, n) != 1) passo++;
+        return passo % n;
+    }
+
+    private static long mdc(long a, long b) {
+        while (b != 0) {
+            long r = a % b;
+            a = b;
+            b = r;
+        }
+        return a;
+    }
+
+    /** Conta correspondente a um rank de Zipf (1 = o mais frequente). */
+    private int conta(int rank) {
+        return (int) ((rank - 1) * passo % banco.getNumContas());
+    }
+
+    @Override
+    public void run() {
+        String nomeThread = Thread.currentThread().getName();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        monitor.log(nomeThread, EventType.INIT, operacoes + " operações em " + banco.getNumContas() + " contas ("
+                + banco.getStripes() + " stripes)");
+
+        for (int i = 0; i < operacoes; i++) {
+            int conta = conta(zipf.next(random));
+            int valor = 1 + random.nextInt(100);
+            int tipo = random.nextInt(100);
+
+            if (tipo < percentDepositos) {
+                banco.depositar(conta, valor);
+                depositado += valor;
+            } else if (tipo < percentDepositos + percentLevantamentos) {
+                if (banco.levantar(conta, valor)) levantado += valor;
+                else recusadas++;
+            } else {
+                if (banco.transferir(conta, conta(zipf.next(random)), valor)) transferencias++;
+                else recusadas++;
+            }
+        }
+
+        monitor.log(nomeThread, EventType.SUCCESS, "Depositado " + depositado + "€, levantado " + levantado
+                + "€, " + transferencias + " transferências, " + recusadas + " recusadas");
+    }
+
+    public long getDepositado() {
+        return depositado;
+    }
+
+    public long getLevantado() {
+        return levantado;
+    }
+
+    public long getTransferencias() {
+        return transferencias;
+    }
+
+    public long getRecusadas() {
+        return recusadas;
+    }
+}
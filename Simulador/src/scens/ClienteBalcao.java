@@ -0,0 +1,80 @@
+package scens;
+
+import monitor.EventType;
+import monitor.LatencyHistogram;
+import monitor.eBPFMonitor;
+import resources.BalcaoAtendimento;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cliente de uma classe (VIP, Normal, ...) do departamento de crédito com vários balcões.
+ * <p>
+ * Em ciclo fechado até ao fim da medição: pede um balcão, é atendido durante {@code servicoNanos} e volta logo à
+ * fila, o que mantém a carga oferecida sempre acima da capacidade dos balcões. A espera por cada balcão fica num
+ * histograma do próprio cliente, juntado no fim aos da sua classe. Ao monitor só chegam o início e o fim: a espera
+ * já está no histograma, e um evento por atendimento só poria o monitor entre atendimentos seguidos do cliente.
+ */
+public class ClienteBalcao implements Runnable {
+    /** Monitor que recebe os eventos (o global, ou o contexto do cenário). */
+    private final eBPFMonitor monitor;
+
+    private final BalcaoAtendimento balcao;
+    private final int classe;
+    private final long servicoNanos;
+    private final AtomicBoolean parar;
+    private final LatencyHistogram espera = new LatencyHistogram();
+
+    private long atendimentos;
+
+    /**
+     * @param classe       Classe do cliente (índice dos pesos do escalonador).
+     * @param servicoNanos Duração de cada atendimento.
+     * @param parar        Sinal de fim da medição (o atendimento em curso termina normalmente).
+     */
+    public ClienteBalcao(eBPFMonitor monitor, BalcaoAtendimento balcao, int classe, long servicoNanos,
+                         AtomicBoolean parar) {
+        this.monitor = monitor;
+        this.balcao = balcao;
+        this.classe = classe;
+        this.servicoNanos = servicoNanos;
+        this.parar = parar;
+    }
+
+    @Override
+    public void run() {
+        String nomeThread = Thread.currentThread().getName();
+        monitor.log(nomeThread, EventType.INIT, "Cliente da classe " + classe + " em fila");
+
+        try {
+            while (!parar.get()) {
+                long inicio = System.nanoTime();
+                balcao.entrar(classe);
+                espera.record(System.nanoTime() - inicio);
+                try {
+                    Thread.sleep(servicoNanos / 1_000_000, (int) (servicoNanos % 1_000_000));
+                } finally {
+                    balcao.sair();
+                }
+                atendimentos++;
+            }
+        } catch (InterruptedException e) {
+            monitor.log(nomeThread, EventType.INTERRUPT, "Desistiu da fila");
+            return;
+        }
+
+        monitor.log(nomeThread, EventType.SUCCESS, atendimentos + " atendimentos");
+    }
+
+    public int getClasse() {
+        return classe;
+    }
+
+    public long getAtendimentos() {
+        return atendimentos;
+    }
+
+    /** Espera por um balcão em cada atendimento deste cliente. */
+    public LatencyHistogram getEspera() {
+        return espera;
+    }
+}
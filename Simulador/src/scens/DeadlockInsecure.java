@@ -9,6 +9,9 @@ import resources.CarteiraCliente;
  * Simula uma transferência bancária sem ordem de bloqueio definida.
  */
 public class DeadlockInsecure implements Runnable {
+    /** Monitor que recebe os eventos (o global, ou o contexto do cenário). */
+    private final eBPFMonitor monitor;
+
     /** Carteira de onde os fundos serão retirados. */
     private CarteiraCliente origem, destino;
 
@@ -22,6 +25,19 @@ public class DeadlockInsecure implements Runnable {
      * @param r2 Carteira de destino
      */
     public DeadlockInsecure(String id, CarteiraCliente r1, CarteiraCliente r2) {
+        this(eBPFMonitor.getInstance(), id, r1, r2);
+    }
+
+    /**
+     * Construtor com o monitor que recebe os eventos deste worker
+     * (ex: um contexto próprio por cenário na matriz de cenários).
+     * @param monitor Monitor deste cenário
+     * @param id Identificador da Thread
+     * @param r1 Carteira de origem
+     * @param r2 Carteira de destino
+     */
+    public DeadlockInsecure(eBPFMonitor monitor, String id, CarteiraCliente r1, CarteiraCliente r2) {
+        this.monitor = monitor;
         this.id = id;
         this.origem = r1;
         this.destino = r2;
@@ -35,27 +51,27 @@ public class DeadlockInsecure implements Runnable {
     @Override
     public void run() {
         String threadName = Thread.currentThread().getName();
-        eBPFMonitor monitor = eBPFMonitor.getInstance();
 
         try{
             // 1. Bloqueia carteira de origem
-            monitor.log(threadName, EventType.WAIT, "Validando origem: " + origem.getTitular());
+            monitor.log(threadName, EventType.WAIT, origem.getTitular(), "Validando origem: " + origem.getTitular());
             origem.getLock().acquire();
-            monitor.log(threadName, EventType.LOCK_ACQUIRED, "Origem bloqueada: " + origem.getTitular());
+            monitor.log(threadName, EventType.LOCK_ACQUIRED, origem.getTitular(), "Origem bloqueada: " + origem.getTitular());
 
             // Pausa para garantir que a outra thread bloqueia a outra carteira (provocando Deadlock)
             Thread.sleep(500);
 
             // 2. Tenta bloquear carteira de destino
-            monitor.log(threadName, EventType.WAIT, "A tentar validar destino: " + destino.getTitular());
+            monitor.log(threadName, EventType.WAIT, destino.getTitular(), "A tentar validar destino: " + destino.getTitular());
             destino.getLock().acquire();
 
             try{
+                monitor.log(threadName, EventType.LOCK_ACQUIRED, destino.getTitular(), "Destino bloqueado: " + destino.getTitular());
                 monitor.log(threadName, EventType.SUCCESS, "Transferência realizada com sucesso!");
                 Thread.sleep(100);
             } finally {
                 destino.getLock().release();
-                monitor.log(threadName, EventType.LOCK_RELEASE, "Destino libertado");
+                monitor.log(threadName, EventType.LOCK_RELEASE, destino.getTitular(), "Destino libertado");
             }
         } catch (InterruptedException e) {
             monitor.log(threadName, EventType.INTERRUPT, "Transferência abortada.");
@@ -63,7 +79,7 @@ public class DeadlockInsecure implements Runnable {
             // Liberta a origem caso tenha ficado presa
             if (origem.getLock().availablePermits() == 0) {
                 origem.getLock().release();
-                monitor.log(threadName, EventType.LOCK_RELEASE, "Origem libertada (Limpeza)");
+                monitor.log(threadName, EventType.LOCK_RELEASE, origem.getTitular(), "Origem libertada (Limpeza)");
             }
         }
     }
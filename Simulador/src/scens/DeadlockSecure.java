@@ -10,6 +10,9 @@ import resources.CarteiraCliente;
  * adquire o menor primeiro, sendo a = menor, b = maior
  */
 public class DeadlockSecure implements Runnable{
+    /** Monitor que recebe os eventos (o global, ou o contexto do cenário). */
+    private final eBPFMonitor monitor;
+
     /** A carteira que será bloqueada em primeiro lugar (a menor alfabeticamente). */
     private CarteiraCliente origem, destino;
 
@@ -28,6 +31,19 @@ public class DeadlockSecure implements Runnable{
      * @param r2 A outra carteira envolvida.
      */
     public DeadlockSecure(String id, CarteiraCliente r1, CarteiraCliente r2) {
+        this(eBPFMonitor.getInstance(), id, r1, r2);
+    }
+
+    /**
+     * Construtor com o monitor que recebe os eventos deste worker
+     * (ex: um contexto próprio por cenário na matriz de cenários).
+     * @param monitor Monitor deste cenário
+     * @param id Identificador da thread.
+     * @param r1 Uma das carteiras envolvidas na transação.
+     * @param r2 A outra carteira envolvida.
+     */
+    public DeadlockSecure(eBPFMonitor monitor, String id, CarteiraCliente r1, CarteiraCliente r2) {
+        this.monitor = monitor;
         this.id = id;
 
         //vai comparar os nomes para decidir quem bloqueia 1
@@ -43,27 +59,27 @@ public class DeadlockSecure implements Runnable{
     @Override
     public void run() {
         String threadName = Thread.currentThread().getName();
-        eBPFMonitor monitor = eBPFMonitor.getInstance();
 
         try {
             // 1. Adquire sempre o recurso "Menor" primeiro
-            monitor.log(threadName, EventType.WAIT, "Aguardar origem (  " + origem.getTitular() + ")");
+            monitor.log(threadName, EventType.WAIT, origem.getTitular(), "Aguardar origem (  " + origem.getTitular() + ")");
             origem.getLock().acquire();
-            monitor.log(threadName, EventType.LOCK_ACQUIRED, "Conta validada: " + origem.getTitular());
+            monitor.log(threadName, EventType.LOCK_ACQUIRED, origem.getTitular(), "Conta validada: " + origem.getTitular());
 
             // Mesmo com sleep, o deadlock não ocorre porque a outra thread também está à espera do "Menor" ou já o tem.
             Thread.sleep(100);
 
             // 2. Adquire o recurso "Maior"
-            monitor.log(threadName, EventType.WAIT, "Aguardar destino ( " + destino.getTitular() + ")");
+            monitor.log(threadName, EventType.WAIT, destino.getTitular(), "Aguardar destino ( " + destino.getTitular() + ")");
             destino.getLock().acquire();
 
             try {
+                monitor.log(threadName, EventType.LOCK_ACQUIRED, destino.getTitular(), "Conta validada: " + destino.getTitular());
                 monitor.log(threadName, EventType.SUCCESS, "Transferência realizada com sucesso");
                 Thread.sleep(100);
             } finally {
                 destino.getLock().release();
-                monitor.log(threadName, EventType.LOCK_RELEASE, "Libertou destino " + destino.getTitular());
+                monitor.log(threadName, EventType.LOCK_RELEASE, destino.getTitular(), "Libertou destino " + destino.getTitular());
             }
 
         } catch (InterruptedException e) {
@@ -71,7 +87,7 @@ public class DeadlockSecure implements Runnable{
         } finally {
             // Libertar o primeiro recurso
             origem.getLock().release();
-            monitor.log(threadName, EventType.LOCK_RELEASE, "Libertou origem" + origem.getTitular());
+            monitor.log(threadName, EventType.LOCK_RELEASE, origem.getTitular(), "Libertou origem" + origem.getTitular());
         }
     }
 }
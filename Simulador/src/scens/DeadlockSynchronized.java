@@ -14,12 +14,24 @@ import resources.CarteiraCliente;
  * Estratégia: Ordenação de Recursos (igual à versão Semáforo) para evitar Espera Circular.
  */
 public class DeadlockSynchronized implements Runnable {
+    /** Monitor que recebe os eventos (o global, ou o contexto do cenário). */
+    private final eBPFMonitor monitor;
 
     private final CarteiraCliente origem;
     private final CarteiraCliente destino;
     private final String id;
 
     public DeadlockSynchronized(String id, CarteiraCliente r1, CarteiraCliente r2) {
+        this(eBPFMonitor.getInstance(), id, r1, r2);
+    }
+
+    /**
+     * Construtor com o monitor que recebe os eventos deste worker
+     * (ex: um contexto próprio por cenário na matriz de cenários).
+     * @param monitor Monitor deste cenário
+     */
+    public DeadlockSynchronized(eBPFMonitor monitor, String id, CarteiraCliente r1, CarteiraCliente r2) {
+        this.monitor = monitor;
         this.id = id;
 
         // ORDENAÇÃO DE RECURSOS (Vital para evitar Deadlock)
@@ -36,32 +48,31 @@ public class DeadlockSynchronized implements Runnable {
     @Override
     public void run() {
         String threadName = Thread.currentThread().getName();
-        eBPFMonitor monitor = eBPFMonitor.getInstance();
 
         try {
-            monitor.log(threadName, EventType.WAIT, "A aguardar monitor 1 (" + origem.getTitular() + ")");
+            monitor.log(threadName, EventType.WAIT, origem.getTitular(), "A aguardar monitor 1 (" + origem.getTitular() + ")");
 
             // 1. Primeiro Bloqueio (Nativo)
             synchronized (origem) {
-                monitor.log(threadName, EventType.LOCK_ACQUIRED, "Monitor 1 adquirido");
+                monitor.log(threadName, EventType.LOCK_ACQUIRED, origem.getTitular(), "Monitor 1 adquirido");
 
                 Thread.sleep(50); // Simula latência
 
-                monitor.log(threadName, EventType.WAIT, "A aguardar monitor 2 (" + destino.getTitular() + ")");
+                monitor.log(threadName, EventType.WAIT, destino.getTitular(), "A aguardar monitor 2 (" + destino.getTitular() + ")");
 
                 // 2. Segundo Bloqueio (Nativo e Aninhado)
                 synchronized (destino) {
-                    monitor.log(threadName, EventType.LOCK_ACQUIRED, "Monitor 2 adquirido");
+                    monitor.log(threadName, EventType.LOCK_ACQUIRED, destino.getTitular(), "Monitor 2 adquirido");
 
                     // --- SECÇÃO CRÍTICA ---
                     monitor.log(threadName, EventType.SUCCESS, "Transferência Sync realizada");
                     Thread.sleep(100);
                 }
                 // Fim do bloco destino -> Release automático
-                monitor.log(threadName, EventType.LOCK_RELEASE, "Monitor 2 libertado");
+                monitor.log(threadName, EventType.LOCK_RELEASE, destino.getTitular(), "Monitor 2 libertado");
             }
             // Fim do bloco origem -> Release automático
-            monitor.log(threadName, EventType.LOCK_RELEASE, "Monitor 1 libertado");
+            monitor.log(threadName, EventType.LOCK_RELEASE, origem.getTitular(), "Monitor 1 libertado");
 
         } catch (InterruptedException e) {
             monitor.log(threadName, EventType.INTERRUPT, "Interrompido");
@@ -0,0 +1,83 @@
+package scens;
+
+import monitor.EventType;
+import monitor.eBPFMonitor;
+import resources.ContaAtomica;
+import java.util.Random;
+
+/**
+ * Worker seguro sem locks: depósito com um ciclo de compare-and-set sobre {@link ContaAtomica}.
+ * Comparação para o Relatório:
+ * - Vantagem: nenhuma thread fica parada à espera de outra (sem park/unpark); enquanto uma processa,
+ *   as outras também processam, em vez de esperarem na fila do semáforo.
+ * - Desvantagem: sob contenção os CAS falham e o depósito é repetido (trabalho desperdiçado).
+ * Tem a mesma forma ler-processar-escrever dos modos com lock: o processamento fica entre a leitura do saldo
+ * e o CAS, e uma falha repete a leitura e o processamento. Cada falha é registada como CAS_RETRY.
+ */
+public class RaceConditionAtomic implements Runnable {
+    /** Monitor que recebe os eventos (o global, ou o contexto do cenário). */
+    private final eBPFMonitor monitor;
+
+    private final ContaAtomica conta;
+    private final int valor;
+    private final Random random;
+    /** Latência fixa do processamento em nanossegundos (-1 = aleatória entre 10 e 99 ms). */
+    private final long latenciaNanos;
+
+    public RaceConditionAtomic(ContaAtomica conta, int valor) {
+        this(eBPFMonitor.getInstance(), conta, valor, -1);
+    }
+
+    /**
+     * @param monitor Monitor deste cenário
+     * @param conta Conta partilhada (saldo atómico)
+     * @param valor Valor a depositar
+     * @param latenciaNanos Latência simulada em nanossegundos (0 = sem espera, -1 = aleatória entre 10 e 99 ms)
+     */
+    public RaceConditionAtomic(eBPFMonitor monitor, ContaAtomica conta, int valor, long latenciaNanos) {
+        this.monitor = monitor;
+        if (conta == null) {
+            throw new IllegalArgumentException("A conta não pode ser nula");
+        }
+        this.conta = conta;
+        this.valor = valor;
+        this.random = new Random();
+        this.latenciaNanos = latenciaNanos;
+    }
+
+    @Override
+    public void run() {
+        String nomeThread = Thread.currentThread().getName();
+        monitor.log(nomeThread, EventType.INIT, "Transação (CAS) de " + valor + "€");
+
+        try {
+            // O WAIT -> LOCK_ACQUIRED mede o tempo até o CAS vingar; cada falha é um evento de contenção
+            monitor.log(nomeThread, EventType.WAIT, conta.getId(), "CAS: a ler saldo");
+            int falhas = 0;
+            long saldoLido;
+            while (true) {
+                saldoLido = conta.lerSaldo();
+                simularLatencia(); // processamento
+                if (conta.compareAndSet(saldoLido, saldoLido + valor)) break;
+                falhas++;
+                monitor.log(nomeThread, EventType.CAS_RETRY, conta.getId(), "CAS falhou (saldo alterado), tentativa " + (falhas + 1));
+            }
+            monitor.log(nomeThread, EventType.LOCK_ACQUIRED, conta.getId(), "CAS aplicado após " + falhas + " falhas");
+            monitor.log(nomeThread, EventType.WORK, "Saldo atualizado: " + (saldoLido + valor));
+            monitor.log(nomeThread, EventType.LOCK_RELEASE, conta.getId(), "CAS concluído");
+
+        } catch (InterruptedException e) {
+            monitor.log(nomeThread, EventType.ERROR, "Thread interrompida");
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Simula o processamento: aleatório (10-99 ms) ou a latência fixa do construtor. */
+    private void simularLatencia() throws InterruptedException {
+        if (latenciaNanos < 0) {
+            Thread.sleep(10 + random.nextInt(90));
+        } else if (latenciaNanos > 0) {
+            Thread.sleep(latenciaNanos / 1_000_000, (int) (latenciaNanos % 1_000_000));
+        }
+    }
+}
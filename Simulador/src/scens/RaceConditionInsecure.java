@@ -11,9 +11,14 @@ import java.util.Random;
  * Vai simular a falha.
  */
 public class RaceConditionInsecure implements Runnable {
+    /** Monitor que recebe os eventos (o global, ou o contexto do cenário). */
+    private final eBPFMonitor monitor;
+
     private final ContaConjunta conta;
     private final int valor;
     private final Random random;
+    /** Latência fixa do processamento em nanossegundos (-1 = aleatória entre 10 e 99 ms). */
+    private final long latenciaNanos;
 
     /**
      * Construtor do worker inseguro
@@ -21,35 +26,69 @@ public class RaceConditionInsecure implements Runnable {
      * @param valor Valor a ser add ao saldo
      */
     public RaceConditionInsecure(ContaConjunta conta, int valor) {
+        this(eBPFMonitor.getInstance(), conta, valor);
+    }
+
+    /**
+     * Construtor com o monitor que recebe os eventos deste worker
+     * (ex: um contexto próprio por cenário na matriz de cenários).
+     * @param monitor Monitor deste cenário
+     * @param conta Referência para a conta partilhada
+     * @param valor Valor a ser add ao saldo
+     */
+    public RaceConditionInsecure(eBPFMonitor monitor, ContaConjunta conta, int valor) {
+        this(monitor, conta, valor, -1);
+    }
+
+    /**
+     * Construtor com latência fixa no processamento, para cargas com muitos workers
+     * (ex: 100k threads virtuais, onde 10-99 ms por depósito serializado seria impraticável).
+     * @param monitor Monitor deste cenário
+     * @param conta Conta partilhada
+     * @param valor Valor a depositar
+     * @param latenciaNanos Latência simulada em nanossegundos (0 = sem espera, -1 = aleatória entre 10 e 99 ms)
+     */
+    public RaceConditionInsecure(eBPFMonitor monitor, ContaConjunta conta, int valor, long latenciaNanos) {
+        this.monitor = monitor;
         if (conta == null) {
             throw new IllegalArgumentException("A conta não pode ser nula");
         }
         this.conta = conta;
         this.valor = valor;
         this.random = new Random();
+        this.latenciaNanos = latenciaNanos;
     }
 
     @Override
     public void run() {
         String nomeThread = Thread.currentThread().getName();
-        eBPFMonitor.getInstance().log(nomeThread, EventType.INIT, "Iniciar depósito de " + valor + "€");
+        monitor.log(nomeThread, EventType.INIT, "Iniciar depósito de " + valor + "€");
 
         try{
             // Secção critica desprotegida
             int saldoTemp = conta.getSaldo();
 
-            eBPFMonitor.getInstance().log(nomeThread, EventType.WORK, "A ler saldo " + saldoTemp + "€ - vai somar: " + valor + "€");
+            monitor.log(nomeThread, EventType.WORK, "A ler saldo " + saldoTemp + "€ - vai somar: " + valor + "€");
 
             // processamento
-            Thread.sleep(10 + random.nextInt(90));
+            simularLatencia();
 
             // escrita
             conta.setSaldo(saldoTemp + valor);
-            eBPFMonitor.getInstance().log(nomeThread, EventType.WORK, "Saldo atualizado para: " + conta.getSaldo());
+            monitor.log(nomeThread, EventType.WORK, "Saldo atualizado para: " + conta.getSaldo());
 
         } catch (InterruptedException e) {
-            eBPFMonitor.getInstance().log(nomeThread, EventType.ERROR, "Thread interrompida");
+            monitor.log(nomeThread, EventType.ERROR, "Thread interrompida");
             Thread.currentThread().interrupt();
         }
     }
+
+    /** Simula o processamento: aleatório (10-99 ms) ou a latência fixa do construtor. */
+    private void simularLatencia() throws InterruptedException {
+        if (latenciaNanos < 0) {
+            Thread.sleep(10 + random.nextInt(90));
+        } else if (latenciaNanos > 0) {
+            Thread.sleep(latenciaNanos / 1_000_000, (int) (latenciaNanos % 1_000_000));
+        }
+    }
 }
\ No newline at end of file
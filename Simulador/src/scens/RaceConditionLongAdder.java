@@ -0,0 +1,76 @@
+package scens;
+
+import monitor.EventType;
+import monitor.eBPFMonitor;
+import resources.ContaRepartida;
+import java.util.Random;
+
+/**
+ * Worker seguro para rajadas de depósitos: soma numa {@link ContaRepartida} (LongAdder).
+ * Ao contrário do CAS num único contador, o LongAdder reparte a contenção por células,
+ * por isso o depósito nunca falha nem é repetido; em troca, ler o saldo obriga a somar as células.
+ * Como a soma é comutativa, não há leitura do saldo a proteger: o processamento corre fora de qualquer região
+ * serializada, e os tempos deste modo não se comparam diretamente com os dos modos com lock.
+ */
+public class RaceConditionLongAdder implements Runnable {
+    /** Monitor que recebe os eventos (o global, ou o contexto do cenário). */
+    private final eBPFMonitor monitor;
+
+    private final ContaRepartida conta;
+    private final int valor;
+    private final Random random;
+    /** Latência fixa do processamento em nanossegundos (-1 = aleatória entre 10 e 99 ms). */
+    private final long latenciaNanos;
+
+    public RaceConditionLongAdder(ContaRepartida conta, int valor) {
+        this(eBPFMonitor.getInstance(), conta, valor, -1);
+    }
+
+    /**
+     * @param monitor Monitor deste cenário
+     * @param conta Conta partilhada (saldo repartido)
+     * @param valor Valor a depositar
+     * @param latenciaNanos Latência simulada em nanossegundos (0 = sem espera, -1 = aleatória entre 10 e 99 ms)
+     */
+    public RaceConditionLongAdder(eBPFMonitor monitor, ContaRepartida conta, int valor, long latenciaNanos) {
+        this.monitor = monitor;
+        if (conta == null) {
+            throw new IllegalArgumentException("A conta não pode ser nula");
+        }
+        this.conta = conta;
+        this.valor = valor;
+        this.random = new Random();
+        this.latenciaNanos = latenciaNanos;
+    }
+
+    @Override
+    public void run() {
+        String nomeThread = Thread.currentThread().getName();
+        monitor.log(nomeThread, EventType.INIT, "Transação (LongAdder) de " + valor + "€");
+
+        try {
+            // processamento
+            simularLatencia();
+
+            // Mantém a sequência WAIT/LOCK_ACQUIRED/LOCK_RELEASE do monitor (a espera é sempre ~0)
+            monitor.log(nomeThread, EventType.WAIT, conta.getId(), "a somar na célula do LongAdder");
+            conta.depositar(valor);
+            monitor.log(nomeThread, EventType.LOCK_ACQUIRED, conta.getId(), "Depósito somado");
+            monitor.log(nomeThread, EventType.WORK, "Depositados " + valor + "€");
+            monitor.log(nomeThread, EventType.LOCK_RELEASE, conta.getId(), "Saiu da conta");
+
+        } catch (InterruptedException e) {
+            monitor.log(nomeThread, EventType.ERROR, "Thread interrompida");
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Simula o processamento: aleatório (10-99 ms) ou a latência fixa do construtor. */
+    private void simularLatencia() throws InterruptedException {
+        if (latenciaNanos < 0) {
+            Thread.sleep(10 + random.nextInt(90));
+        } else if (latenciaNanos > 0) {
+            Thread.sleep(latenciaNanos / 1_000_000, (int) (latenciaNanos % 1_000_000));
+        }
+    }
+}
@@ -12,47 +12,82 @@ import java.util.Random;
  * - Desvantagem: Menos flexível (não tem tryAcquire com timeout, nem fairness garantido).
  */
 public class RaceConditionSynchronized implements Runnable {
+    /** Monitor que recebe os eventos (o global, ou o contexto do cenário). */
+    private final eBPFMonitor monitor;
 
     private final ContaConjunta conta;
     private final int valor;
     private final Random random;
+    /** Latência fixa da secção crítica em nanossegundos (-1 = aleatória entre 10 e 99 ms). */
+    private final long latenciaNanos;
 
     public RaceConditionSynchronized(ContaConjunta conta, int valor) {
+        this(eBPFMonitor.getInstance(), conta, valor);
+    }
+
+    /**
+     * Construtor com o monitor que recebe os eventos deste worker
+     * (ex: um contexto próprio por cenário na matriz de cenários).
+     * @param monitor Monitor deste cenário
+     */
+    public RaceConditionSynchronized(eBPFMonitor monitor, ContaConjunta conta, int valor) {
+        this(monitor, conta, valor, -1);
+    }
+
+    /**
+     * Construtor com latência fixa na secção crítica, para cargas com muitos workers
+     * (ex: 100k threads virtuais, onde 10-99 ms por depósito serializado seria impraticável).
+     * @param monitor Monitor deste cenário
+     * @param conta Conta partilhada
+     * @param valor Valor a depositar
+     * @param latenciaNanos Latência simulada em nanossegundos (0 = sem espera, -1 = aleatória entre 10 e 99 ms)
+     */
+    public RaceConditionSynchronized(eBPFMonitor monitor, ContaConjunta conta, int valor, long latenciaNanos) {
+        this.monitor = monitor;
         this.conta = conta;
         this.valor = valor;
         this.random = new Random();
+        this.latenciaNanos = latenciaNanos;
     }
 
     @Override
     public void run() {
         String nomeThread = Thread.currentThread().getName();
-        eBPFMonitor monitor = eBPFMonitor.getInstance();
 
         monitor.log(nomeThread, EventType.INIT, "Transação (Sync) de " + valor + "€");
 
         try {
-            monitor.log(nomeThread, EventType.WAIT, "A aguardar monitor...");
+            monitor.log(nomeThread, EventType.WAIT, conta.getId(), "A aguardar monitor...");
 
             // --- DIFERENÇA PRINCIPAL AQUI ---
             // Em vez de Semáforo, usamos o Monitor do objeto 'conta'.
             // Isto cria uma barreira de exclusão mútua nativa da JVM.
             synchronized (conta) {
 
-                monitor.log(nomeThread, EventType.LOCK_ACQUIRED, "Monitor adquirido");
+                monitor.log(nomeThread, EventType.LOCK_ACQUIRED, conta.getId(), "Monitor adquirido");
 
                 // Secção Crítica
                 int saldoTemp = conta.getSaldo();
-                Thread.sleep(10 + random.nextInt(90));
+                simularLatencia();
                 conta.setSaldo(saldoTemp + valor);
 
                 monitor.log(nomeThread, EventType.WORK, "Saldo atualizado: " + conta.getSaldo());
 
                 // O 'release' é automático quando o bloco fecha
-                monitor.log(nomeThread, EventType.LOCK_RELEASE, "Monitor libertado");
+                monitor.log(nomeThread, EventType.LOCK_RELEASE, conta.getId(), "Monitor libertado");
             }
 
         } catch (InterruptedException e) {
             monitor.log(nomeThread, EventType.ERROR, "Interrompida");
         }
     }
+
+    /** Espera dentro da secção crítica: aleatória (10-99 ms) ou a latência fixa do construtor. */
+    private void simularLatencia() throws InterruptedException {
+        if (latenciaNanos < 0) {
+            Thread.sleep(10 + random.nextInt(90));
+        } else if (latenciaNanos > 0) {
+            Thread.sleep(latenciaNanos / 1_000_000, (int) (latenciaNanos % 1_000_000));
+        }
+    }
 }
\ No newline at end of file
@@ -10,6 +10,9 @@ import java.util.Random;
  * Garante exclusão mútua na secção critica, impedindo as RaceConditions
  */
 public class RaceConditionsSecure implements Runnable {
+    /** Monitor que recebe os eventos (o global, ou o contexto do cenário). */
+    private final eBPFMonitor monitor;
+
     /** Referência para a conta bancária partilhada onde será feito o depósito. */
     private final ContaConjunta conta;
 
@@ -19,6 +22,9 @@ public class RaceConditionsSecure implements Runnable {
     /** Gerador de aleatoriedade para simular latência de rede/processamento. */
     private final Random random;
 
+    /** Latência fixa da secção crítica em nanossegundos (-1 = aleatória entre 10 e 99 ms). */
+    private final long latenciaNanos;
+
     /**
      * Instancia um novo worker para realizar uma transação segura.
      *
@@ -27,11 +33,37 @@ public class RaceConditionsSecure implements Runnable {
      * @throws IllegalArgumentException Se a conta fornecida for nula.
      */
     public RaceConditionsSecure(ContaConjunta conta, int valor) {
+        this(eBPFMonitor.getInstance(), conta, valor);
+    }
+
+    /**
+     * Construtor com o monitor que recebe os eventos deste worker
+     * (ex: um contexto próprio por cenário na matriz de cenários).
+     * @param monitor Monitor deste cenário
+     * @param conta A conta bancária partilhada (recurso crítico). Não pode ser nula.
+     * @param valor O valor a depositar na conta.
+     * @throws IllegalArgumentException Se a conta fornecida for nula.
+     */
+    public RaceConditionsSecure(eBPFMonitor monitor, ContaConjunta conta, int valor) {
+        this(monitor, conta, valor, -1);
+    }
+
+    /**
+     * Construtor com latência fixa na secção crítica, para cargas com muitos workers
+     * (ex: 100k threads virtuais, onde 10-99 ms por depósito serializado seria impraticável).
+     * @param monitor Monitor deste cenário
+     * @param conta Conta partilhada
+     * @param valor Valor a depositar
+     * @param latenciaNanos Latência simulada em nanossegundos (0 = sem espera, -1 = aleatória entre 10 e 99 ms)
+     */
+    public RaceConditionsSecure(eBPFMonitor monitor, ContaConjunta conta, int valor, long latenciaNanos) {
+        this.monitor = monitor;
         if (conta == null)
             throw  new IllegalArgumentException("A conta não pode ser nula");
         this.conta = conta;
         this.valor = valor;
         this.random = new Random();
+        this.latenciaNanos = latenciaNanos;
     }
 
     /**
@@ -40,34 +72,42 @@ public class RaceConditionsSecure implements Runnable {
     @Override
     public  void run() {
         String nomeThread = Thread.currentThread().getName();
-        eBPFMonitor monitor = eBPFMonitor.getInstance();
 
         monitor.log(nomeThread, EventType.INIT, "Transferência de: " + valor + " €");
 
         try{
             //solicita permissão
-            monitor.log(nomeThread, EventType.WAIT, "a aguardar permissão...");
+            monitor.log(nomeThread, EventType.WAIT, conta.getId(), "a aguardar permissão...");
             conta.getMutex().acquire();
 
             try{
-                monitor.log(nomeThread, EventType.LOCK_ACQUIRED, "permissão obtida");
+                monitor.log(nomeThread, EventType.LOCK_ACQUIRED, conta.getId(), "permissão obtida");
                 int saldoTemp = conta.getSaldo();
 
                 //simular latência
-                Thread.sleep(10 + random.nextInt(90));
+                simularLatencia();
                 conta.setSaldo(saldoTemp + valor);
 
                 monitor.log(nomeThread, EventType.WORK, "Saldo atualizado" + conta.getSaldo());
             } finally {
                 //liberta permissão
                 conta.getMutex().release();
-                monitor.log(nomeThread, EventType.LOCK_RELEASE, "Saiu da conta");
+                monitor.log(nomeThread, EventType.LOCK_RELEASE, conta.getId(), "Saiu da conta");
             }
         } catch (InterruptedException e) {
             monitor.log(nomeThread, EventType.ERROR, "Thread interrompida");
             Thread.currentThread().interrupt();
         }
     }
+
+    /** Espera dentro da secção crítica: aleatória (10-99 ms) ou a latência fixa do construtor. */
+    private void simularLatencia() throws InterruptedException {
+        if (latenciaNanos < 0) {
+            Thread.sleep(10 + random.nextInt(90));
+        } else if (latenciaNanos > 0) {
+            Thread.sleep(latenciaNanos / 1_000_000, (int) (latenciaNanos % 1_000_000));
+        }
+    }
 }
 
 //Foi alterado todos os tipos de EventType
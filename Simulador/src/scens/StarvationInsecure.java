@@ -8,6 +8,9 @@ import resources.DepartamentoCredito;
  * Worker inseguro que simula um cliente num sistema de atendimento de crédito suscetível a <b>Starvation</b> (Inanição).
  */
 public class StarvationInsecure implements Runnable {
+    /** Monitor que recebe os eventos (o global, ou o contexto do cenário). */
+    private final eBPFMonitor monitor;
+
     /** Referência para o departamento de crédito (recurso partilhado injusto). */
     private DepartamentoCredito dep;
 
@@ -21,6 +24,18 @@ public class StarvationInsecure implements Runnable {
      * @param pedidos Quantidade de operações a realizar.
      */
     public StarvationInsecure(DepartamentoCredito dep, int pedidos) {
+        this(eBPFMonitor.getInstance(), dep, pedidos);
+    }
+
+    /**
+     * Construtor com o monitor que recebe os eventos deste worker
+     * (ex: um contexto próprio por cenário na matriz de cenários).
+     * @param monitor Monitor deste cenário
+     * @param dep O departamento de crédito partilhado. Deve estar configurado com {@code fair=false} para demonstrar o ataque.
+     * @param pedidos Quantidade de operações a realizar.
+     */
+    public StarvationInsecure(eBPFMonitor monitor, DepartamentoCredito dep, int pedidos) {
+        this.monitor = monitor;
         this.dep = dep;
         this.pedidos = pedidos;
     }
@@ -34,20 +49,20 @@ public class StarvationInsecure implements Runnable {
         //loop de acesso
         for(int i = 0; i < pedidos; i++) {
             try{
-                eBPFMonitor.getInstance().log(name, EventType.WAIT, "A tentar entrar na fila...");
+                monitor.log(name, EventType.WAIT, dep.getId(), "A tentar entrar na fila...");
 
                 dep.getSem().acquire();
 
                 try{
                     // Registar entrada (ACQUIRED)
-                    eBPFMonitor.getInstance().log(name, EventType.LOCK_ACQUIRED, "A analisar o pedido de crédito");
+                    monitor.log(name, EventType.LOCK_ACQUIRED, dep.getId(), "A analisar o pedido de crédito");
                     Thread.sleep(100);
                 } finally {
                     dep.getSem().release();
-                    eBPFMonitor.getInstance().log(name, EventType.LOCK_RELEASE, "Saiu do guiché");
+                    monitor.log(name, EventType.LOCK_RELEASE, dep.getId(), "Saiu do guiché");
                 }
             }catch (InterruptedException e) {
-                eBPFMonitor.getInstance().log(name, EventType.INTERRUPT, "Interrompida");
+                monitor.log(name, EventType.INTERRUPT, "Interrompida");
                 return;
             }
         }
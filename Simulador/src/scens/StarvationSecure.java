@@ -8,6 +8,9 @@ import resources.DepartamentoCredito;
  * Simula um cliente num sistema de Crédito Justo (FIFO).
  */
 public class StarvationSecure implements Runnable {
+    /** Monitor que recebe os eventos (o global, ou o contexto do cenário). */
+    private final eBPFMonitor monitor;
+
     /** Referência para o departamento de crédito (recurso partilhado com política justa). */
     private DepartamentoCredito departamento;
 
@@ -21,6 +24,18 @@ public class StarvationSecure implements Runnable {
      * @param loopCount Quantidade de operações a realizar.
      */
     public StarvationSecure(DepartamentoCredito dep, int loopCount) {
+        this(eBPFMonitor.getInstance(), dep, loopCount);
+    }
+
+    /**
+     * Construtor com o monitor que recebe os eventos deste worker
+     * (ex: um contexto próprio por cenário na matriz de cenários).
+     * @param monitor Monitor deste cenário
+     * @param dep O departamento de crédito partilhado. Deve estar configurado com {@code fair=true}.
+     * @param loopCount Quantidade de operações a realizar.
+     */
+    public StarvationSecure(eBPFMonitor monitor, DepartamentoCredito dep, int loopCount) {
+        this.monitor = monitor;
         this.departamento = dep;
         this.loopCount = loopCount;
     }
@@ -31,21 +46,20 @@ public class StarvationSecure implements Runnable {
     @Override
     public void run() {
         String name = Thread.currentThread().getName();
-        eBPFMonitor monitor = eBPFMonitor.getInstance();
 
         // Loop de tentativas de pedido de crédito
         for(int i = 0; i < loopCount; i++) {
             try{
-                monitor.log(name, EventType.WAIT, "A entrar na fila...");
+                monitor.log(name, EventType.WAIT, departamento.getId(), "A entrar na fila...");
                 // Tenta entrar no guiché (que agora é FIFO/Justo)
                 departamento.getSem().acquire();
 
                 try{
-                    monitor.log(name, EventType.LOCK_ACQUIRED, "Atendimento iniciado");
+                    monitor.log(name, EventType.LOCK_ACQUIRED, departamento.getId(), "Atendimento iniciado");
                     Thread.sleep(100);
                 } finally {
                     departamento.getSem().release();
-                    monitor.log(name, EventType.LOCK_RELEASE, "Atendimento concluído");
+                    monitor.log(name, EventType.LOCK_RELEASE, departamento.getId(), "Atendimento concluído");
                 }
             } catch (InterruptedException e) {
                 monitor.log(name, EventType.INTERRUPT, "Saiu da fila");
@@ -2,17 +2,29 @@ package scens;
 
 import monitor.EventType;
 import monitor.eBPFMonitor;
-import resources.DepartamentoCreditoSync;
+import resources.SistemaSenhas;
 
 /**
- * Worker seguro que utiliza o sistema de Ticket Lock.
+ * Worker seguro que utiliza o sistema de Ticket Lock (wait/notify ou fila com park/unpark).
  */
 public class StarvationSynchronized implements Runnable {
+    /** Monitor que recebe os eventos (o global, ou o contexto do cenário). */
+    private final eBPFMonitor monitor;
 
-    private final DepartamentoCreditoSync departamento;
+    private final SistemaSenhas departamento;
     private final int loopCount;
 
-    public StarvationSynchronized(DepartamentoCreditoSync dep, int loopCount) {
+    public StarvationSynchronized(SistemaSenhas dep, int loopCount) {
+        this(eBPFMonitor.getInstance(), dep, loopCount);
+    }
+
+    /**
+     * Construtor com o monitor que recebe os eventos deste worker
+     * (ex: um contexto próprio por cenário na matriz de cenários).
+     * @param monitor Monitor deste cenário
+     */
+    public StarvationSynchronized(eBPFMonitor monitor, SistemaSenhas dep, int loopCount) {
+        this.monitor = monitor;
         this.departamento = dep;
         this.loopCount = loopCount;
     }
@@ -20,12 +32,11 @@ public class StarvationSynchronized implements Runnable {
     @Override
     public void run() {
         String name = Thread.currentThread().getName();
-        eBPFMonitor monitor = eBPFMonitor.getInstance();
 
         for (int i = 0; i < loopCount; i++) {
             try {
                 // 1. Tirar Senha
-                monitor.log(name, EventType.WAIT, "Tirou senha e aguarda...");
+                monitor.log(name, EventType.WAIT, departamento.getId(), "Tirou senha e aguarda...");
                 int minhaSenha = departamento.tirarSenha();
 
                 // 2. Wait (Guard)
@@ -33,14 +44,14 @@ public class StarvationSynchronized implements Runnable {
 
                 try {
                     // 3. Trabalho (Secção Crítica)
-                    monitor.log(name, EventType.LOCK_ACQUIRED, "A ser atendido (Senha " + minhaSenha + ")");
+                    monitor.log(name, EventType.LOCK_ACQUIRED, departamento.getId(), "A ser atendido (Senha " + minhaSenha + ")");
 
                     Thread.sleep(100);
 
                 } finally {
                     // 4. Notify (Sair)
                     departamento.sair();
-                    monitor.log(name, EventType.LOCK_RELEASE, "Atendimento concluído");
+                    monitor.log(name, EventType.LOCK_RELEASE, departamento.getId(), "Atendimento concluído");
                 }
             } catch (InterruptedException e) {
                 monitor.log(name, EventType.INTERRUPT, "Desistiu da fila");
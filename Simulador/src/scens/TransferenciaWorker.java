@@ -0,0 +1,185 @@
+package scens;
+
+import monitor.EventType;
+import monitor.LatencyHistogram;
+import monitor.eBPFMonitor;
+import resources.CarteiraCliente;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Worker do motor de transferências: executa transferências entre pares aleatórios de N carteiras.
+ * <p>
+ * Duas estratégias para nunca haver deadlock com muitas carteiras e muitas threads:
+ * <ul>
+ * <li><b>Ordem por id:</b> adquire sempre primeiro a carteira de id menor (ordenação global de recursos,
+ * como no {@code DeadlockSecure}, mas com uma comparação de inteiros em vez de nomes).</li>
+ * <li><b>Try-lock com backoff:</b> adquire origem e destino pela ordem natural, cada uma com
+ * {@code tryAcquire(timeout)}. Se falhar, liberta o que tem, espera um tempo aleatório até um limite que duplica
+ * a cada tentativa (backoff exponencial com jitter) e volta a tentar; ao fim de {@code MAX_TENTATIVAS} a
+ * transferência é abortada.</li>
+ * </ul>
+ * Tal como no {@code BancoWorkload}, só o início e o fim são reportados ao monitor; as contagens e a latência de
+ * cada transferência ficam no worker (o histograma é do worker, para a gravação não ser disputada).
+ */
+public class TransferenciaWorker implements Runnable {
+
+    /** Estratégia de aquisição dos dois locks de uma transferência. */
+    public enum Estrategia {
+        ORDEM_ID("Ordem por id"),
+        TRY_LOCK_BACKOFF("Try-lock + backoff");
+
+        private final String nome;
+
+        Estrategia(String nome) {
+            this.nome = nome;
+        }
+
+        public String getNome() {
+            return nome;
+        }
+    }
+
+    /** Tentativas do try-lock antes de abortar a transferência. */
+    public static final int MAX_TENTATIVAS = 10;
+
+    /** Primeiro limite do backoff e teto para onde ele duplica. */
+    private static final long BACKOFF_BASE_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+    private static final long BACKOFF_MAX_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /** Monitor que recebe os eventos (o global, ou o contexto do cenário). */
+    private final eBPFMonitor monitor;
+
+    private final CarteiraCliente[] carteiras;
+    private final int transferencias;
+    private final Estrategia estrategia;
+    private final long timeoutNanos;
+    private final LatencyHistogram latencias = new LatencyHistogram();
+
+    private long concluidas;
+    private long recusadas;
+    private long tentativasFalhadas;
+    private long abortadas;
+
+    /**
+     * @param carteiras      Carteiras entre as quais se transfere (pelo menos duas).
+     * @param transferencias Transferências a executar.
+     * @param estrategia     Estratégia de aquisição dos locks.
+     * @param timeoutNanos   Timeout de cada {@code tryAcquire} (só no try-lock com backoff).
+     */
+    public TransferenciaWorker(eBPFMonitor monitor, CarteiraCliente[] carteiras, int transferencias,
+                               Estrategia estrategia, long timeoutNanos) {
+        this.monitor = monitor;
+        this.carteiras = carteiras;
+        this.transferencias = transferencias;
+        this.estrategia = estrategia;
+        this.timeoutNanos = timeoutNanos;
+    }
+
+    @Override
+    public void run() {
+        String nomeThread = Thread.currentThread().getName();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        monitor.log(nomeThread, EventType.INIT, transferencias + " transferências entre " + carteiras.length
+                + " carteiras (" + estrategia.getNome() + ")");
+
+        try {
+            for (int i = 0; i < transferencias; i++) {
+                CarteiraCliente origem = carteiras[random.nextInt(carteiras.length)];
+                CarteiraCliente destino = carteiras[random.nextInt(carteiras.length - 1)];
+                if (destino == origem) destino = carteiras[carteiras.length - 1]; // par sempre distinto
+                int valor = 1 + random.nextInt(100);
+
+                long inicio = System.nanoTime();
+                if (estrategia == Estrategia.ORDEM_ID) transferirOrdenado(origem, destino, valor);
+                else transferirComBackoff(origem, destino, valor, random);
+                latencias.record(System.nanoTime() - inicio);
+            }
+        } catch (InterruptedException e) {
+            monitor.log(nomeThread, EventType.INTERRUPT, "Transferências abortadas.");
+            return;
+        }
+
+        monitor.log(nomeThread, EventType.SUCCESS, concluidas + " concluídas, " + recusadas + " sem saldo, "
+                + tentativasFalhadas + " tentativas falhadas, " + abortadas + " abortadas");
+    }
+
+    private void transferirOrdenado(CarteiraCliente origem, CarteiraCliente destino, int valor)
+            throws InterruptedException {
+        CarteiraCliente primeira = origem.getId() < destino.getId() ? origem : destino;
+        CarteiraCliente segunda = primeira == origem ? destino : origem;
+
+        primeira.getLock().acquire();
+        try {
+            segunda.getLock().acquire();
+            try {
+                mover(origem, destino, valor);
+            } finally {
+                segunda.getLock().release();
+            }
+        } finally {
+            primeira.getLock().release();
+        }
+    }
+
+    private void transferirComBackoff(CarteiraCliente origem, CarteiraCliente destino, int valor,
+                                      ThreadLocalRandom random) throws InterruptedException {
+        long limite = BACKOFF_BASE_NANOS;
+        for (int tentativa = 0; tentativa < MAX_TENTATIVAS; tentativa++) {
+            if (origem.getLock().tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                try {
+                    if (destino.getLock().tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                        try {
+                            mover(origem, destino, valor);
+                            return;
+                        } finally {
+                            destino.getLock().release();
+                        }
+                    }
+                } finally {
+                    origem.getLock().release();
+                }
+            }
+
+            // Jitter: espera aleatória entre 0 e o limite, para que as threads em conflito não voltem juntas
+            tentativasFalhadas++;
+            LockSupport.parkNanos(random.nextLong(limite + 1));
+            if (Thread.interrupted()) throw new InterruptedException();
+            limite = Math.min(limite * 2, BACKOFF_MAX_NANOS);
+        }
+        abortadas++;
+    }
+
+    /** Débito e crédito com os dois locks adquiridos; recusa se a origem não tiver saldo. */
+    private void mover(CarteiraCliente origem, CarteiraCliente destino, int valor) {
+        if (origem.getSaldo() < valor) {
+            recusadas++;
+            return;
+        }
+        origem.setSaldo(origem.getSaldo() - valor);
+        destino.setSaldo(destino.getSaldo() + valor);
+        concluidas++;
+    }
+
+    public long getConcluidas() {
+        return concluidas;
+    }
+
+    public long getRecusadas() {
+        return recusadas;
+    }
+
+    public long getTentativasFalhadas() {
+        return tentativasFalhadas;
+    }
+
+    public long getAbortadas() {
+        return abortadas;
+    }
+
+    /** Latência de cada transferência deste worker (a juntar com {@link LatencyHistogram#add}). */
+    public LatencyHistogram getLatencias() {
+        return latencias;
+    }
+}
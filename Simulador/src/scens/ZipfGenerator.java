@@ -0,0 +1,68 @@
+package scens;
+
+import java.util.Random;
+
+/**
+ * Gerador de ranks com distribuição de Zipf em {1..n}: o rank k sai com probabilidade proporcional a 1/k^s.
+ * <p>
+ * Usa o método de <i>rejection-inversion</i> (Hörmann e Derflinger), que não precisa de tabelas:
+ * memória constante e custo O(1) por amostra, mesmo com 10M contas. Com s = 0.99 (típico em benchmarks
+ * de bases de dados) cerca de metade das operações cai nas poucas centenas de contas mais "quentes".
+ */
+public class ZipfGenerator {
+    private final int n;
+    private final double s;
+    private final double hIntegralX1;
+    private final double hIntegralN;
+    private final double limiar;
+
+    /**
+     * @param n Número de elementos.
+     * @param s Expoente (0 = uniforme; quanto maior, mais concentrado nos primeiros ranks).
+     */
+    public ZipfGenerator(int n, double s) {
+        if (n < 1) throw new IllegalArgumentException("n tem de ser positivo");
+        this.n = n;
+        this.s = Math.max(0, s);
+        this.hIntegralX1 = hIntegral(1.5) - 1.0;
+        this.hIntegralN = hIntegral(n + 0.5);
+        this.limiar = 2.0 - hIntegralInverse(hIntegral(2.5) - h(2.0));
+    }
+
+    /** Próximo rank, entre 1 (o mais frequente) e n. */
+    public int next(Random random) {
+        if (s == 0) return 1 + random.nextInt(n);
+        while (true) {
+            double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+            double x = hIntegralInverse(u);
+            int k = (int) (x + 0.5);
+            if (k < 1) k = 1;
+            else if (k > n) k = n;
+            if (k - x <= limiar || u >= hIntegral(k + 0.5) - h(k)) return k;
+        }
+    }
+
+    private double hIntegral(double x) {
+        double logX = Math.log(x);
+        return helper2((1.0 - s) * logX) * logX;
+    }
+
+    private double h(double x) {
+        return Math.exp(-s * Math.log(x));
+    }
+
+    private double hIntegralInverse(double x) {
+        double t = Math.max(-1.0, x * (1.0 - s));
+        return Math.exp(helper1(t) * x);
+    }
+
+    /** log(1+x)/x, estável perto de 0. */
+    private static double helper1(double x) {
+        return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1.0 - x * (0.5 - x * (1.0 / 3.0 - 0.25 * x));
+    }
+
+    /** (e^x-1)/x, estável perto de 0. */
+    private static double helper2(double x) {
+        return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1.0 + x * 0.5 * (1.0 + x * (1.0 / 3.0) * (1.0 + 0.25 * x));
+    }
+}